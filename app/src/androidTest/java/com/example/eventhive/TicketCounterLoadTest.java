@@ -0,0 +1,127 @@
+package com.example.eventhive;
+
+import android.content.Context;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.example.eventhive.utils.TicketCounter;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.FirebaseApp;
+import com.google.firebase.FirebaseOptions;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.QuerySnapshot;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Drives concurrent purchases of one to MAX_ORDER tickets through
+ * TicketCounter against the Firestore emulator and checks that the event
+ * never oversells and that no order is partly filled.
+ *
+ * Skipped unless the emulator address is passed in, e.g.
+ * ./gradlew connectedAndroidTest
+ * -Pandroid.testInstrumentationRunnerArguments.firestoreEmulatorHost=10.0.2.2:8080
+ */
+@RunWith(AndroidJUnit4.class)
+public class TicketCounterLoadTest {
+
+    private static final int CAPACITY = 100;
+    private static final int BUYERS = 300;
+    private static final int MAX_ORDER = 3;
+
+    private static FirebaseFirestore db;
+
+    @BeforeClass
+    public static void connectToEmulator() {
+        String host = InstrumentationRegistry.getArguments().getString("firestoreEmulatorHost");
+        assumeTrue("Firestore emulator not configured", host != null);
+
+        // A separate app instance so the emulator setting never touches the default one
+        Context context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        FirebaseApp app = FirebaseApp.initializeApp(context, FirebaseOptions.fromResource(context),
+                "ticketCounterLoadTest");
+        db = FirebaseFirestore.getInstance(app);
+        String[] parts = host.split(":");
+        db.useEmulator(parts[0], Integer.parseInt(parts[1]));
+    }
+
+    @Test
+    public void concurrentPurchasesNeverOversell() throws Exception {
+        String eventId = "load-test-" + System.currentTimeMillis();
+        TicketCounter counter = new TicketCounter(db);
+
+        CountDownLatch done = new CountDownLatch(BUYERS);
+        AtomicInteger purchased = new AtomicInteger(); // Tickets, not orders
+        AtomicInteger soldOut = new AtomicInteger();
+        AtomicInteger failed = new AtomicInteger();
+
+        for (int i = 0; i < BUYERS; i++) {
+            int quantity = i % MAX_ORDER + 1;
+            Map<String, Map<String, Object>> tickets = new LinkedHashMap<>();
+            for (int j = 0; j < quantity; j++) {
+                Map<String, Object> ticket = new HashMap<>();
+                ticket.put("userId", "buyer-" + i);
+                ticket.put("eventId", eventId);
+                ticket.put("uniqueCode", "LOAD-" + i + "-" + j);
+                tickets.put(eventId + "-" + i + "-" + j, ticket);
+            }
+            counter.purchase(eventId, CAPACITY, tickets, new TicketCounter.PurchaseCallback() {
+                @Override
+                public void onPurchased() {
+                    purchased.addAndGet(quantity);
+                    done.countDown();
+                }
+
+                @Override
+                public void onSoldOut() {
+                    soldOut.incrementAndGet();
+                    done.countDown();
+                }
+
+                @Override
+                public void onFailed(Exception e) {
+                    failed.incrementAndGet();
+                    done.countDown();
+                }
+            });
+        }
+
+        assertTrue("Purchases did not finish", done.await(3, TimeUnit.MINUTES));
+        assertTrue("Oversold: " + purchased.get(), purchased.get() <= CAPACITY);
+        if (failed.get() == 0) {
+            // An order is only turned away when fewer tickets are left than it asks for
+            assertTrue(soldOut.get() > 0);
+            assertTrue("Left unsold: " + (CAPACITY - purchased.get()), CAPACITY - purchased.get() < MAX_ORDER);
+        }
+
+        // Every successful order wrote all its tickets and the matching shard increments
+        QuerySnapshot tickets = Tasks.await(db.collection("tickets").whereEqualTo("eventId", eventId).get());
+        assertEquals(purchased.get(), tickets.size());
+
+        QuerySnapshot shards = Tasks.await(db.collection("events").document(eventId)
+                .collection(TicketCounter.COLLECTION_SHARDS).get());
+        long sold = 0;
+        for (DocumentSnapshot shard : shards.getDocuments()) {
+            int index = Integer.parseInt(shard.getId());
+            long shardSold = shard.getLong("sold");
+            assertTrue("Shard " + index + " oversold",
+                    shardSold <= TicketCounter.shardCapacity(index, CAPACITY));
+            sold += shardSold;
+        }
+        assertEquals(purchased.get(), sold);
+    }
+}
@@ -0,0 +1,88 @@
+package com.example.eventhive.databases;
+
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
+
+import com.example.eventhive.models.Event;
+
+/**
+ * Seeds scratch databases for the instrumented benchmarks. Rows are written
+ * with one compiled statement inside a single transaction so seeding stays
+ * out of the measured time.
+ */
+final class BenchmarkData {
+
+    static final long DAY_MS = 24 * 60 * 60 * 1000L;
+
+    private BenchmarkData() {
+    }
+
+    /**
+     * Inserts count events spread one hour apart from a fixed start, rotating
+     * through every status and type. Ids run from 1 to count.
+     */
+    static void insertEvents(SQLiteDatabase db, int count) {
+        long start = 1_700_000_000_000L;
+        Event.Status[] statuses = Event.Status.values();
+        Event.EventType[] types = Event.EventType.values();
+        SQLiteStatement insert = db.compileStatement("INSERT INTO events (title, date, location, description, "
+                + "status_code, ticket_price, ticket_quantity, cover_image_path, gallery_image_paths, event_type, "
+                + "start_at, end_at, type_code) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)");
+        db.beginTransaction();
+        try {
+            for (int i = 0; i < count; i++) {
+                Event.EventType type = types[i % types.length];
+                long startAt = start + i * 60 * 60 * 1000L;
+                insert.bindString(1, "Event " + i);
+                insert.bindString(2, "Date " + i);
+                insert.bindString(3, "Venue " + (i % 200));
+                insert.bindString(4, "Description of event " + i);
+                insert.bindLong(5, statuses[i % statuses.length].code);
+                insert.bindDouble(6, (i % 40) * 50.0);
+                insert.bindLong(7, 100 + i % 900);
+                insert.bindString(8, "/covers/" + i + ".jpg");
+                insert.bindString(9, "");
+                insert.bindString(10, type.label);
+                insert.bindLong(11, startAt);
+                insert.bindLong(12, startAt + 3 * 60 * 60 * 1000L);
+                insert.bindLong(13, type.code);
+                insert.executeInsert();
+                insert.clearBindings();
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+            insert.close();
+        }
+    }
+
+    /**
+     * Inserts count tickets spread across the first events events and users
+     * user uids ("user-0" ...), purchased one minute apart.
+     */
+    static void insertTickets(SQLiteDatabase db, int count, int events, int users) {
+        long start = 1_700_000_000_000L;
+        SQLiteStatement insert = db.compileStatement("INSERT INTO tickets (user_id, user_uid, event_id, "
+                + "unique_code, purchase_timestamp) VALUES (?, ?, ?, ?, ?)");
+        db.beginTransaction();
+        try {
+            for (int i = 0; i < count; i++) {
+                insert.bindLong(1, i % users);
+                insert.bindString(2, "user-" + (i % users));
+                insert.bindLong(3, 1 + i % events);
+                insert.bindString(4, "SEED-" + i);
+                insert.bindLong(5, start + i * 60 * 1000L);
+                insert.executeInsert();
+                insert.clearBindings();
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+            insert.close();
+        }
+    }
+
+    static long elapsedMs(long startNanos) {
+        return (System.nanoTime() - startNanos) / 1_000_000;
+    }
+}
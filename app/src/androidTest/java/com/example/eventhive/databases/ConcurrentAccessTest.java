@@ -0,0 +1,152 @@
+package com.example.eventhive.databases;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks the WAL reader pool and the single writer: reads finish while a
+ * bulk write holds its transaction open, and writes submitted from many
+ * threads run one at a time.
+ */
+@RunWith(AndroidJUnit4.class)
+public class ConcurrentAccessTest {
+
+    private static final int EVENTS = 2_000;
+    private static final int BULK_TICKETS = 20_000;
+    private static final int READERS = 8;
+    private static final int WRITER_THREADS = 6;
+    private static final int WRITES_PER_THREAD = 50;
+
+    private Context context;
+    private DatabaseHelper helper;
+
+    @Before
+    public void seed() {
+        context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        helper = DatabaseHelper.openForTest(context, "concurrent_access_test.db", StorageProfile.BALANCED);
+        BenchmarkData.insertEvents(helper.getWritableDatabase(), EVENTS);
+    }
+
+    @After
+    public void tearDown() {
+        helper.closeForTest(context);
+    }
+
+    @Test
+    public void readsProceedWhileBulkWriteIsInFlight() throws Exception {
+        CountDownLatch writeOpen = new CountDownLatch(1);
+        CountDownLatch readsDone = new CountDownLatch(1);
+
+        Future<?> write = helper.submitWrite(() -> {
+            SQLiteDatabase db = helper.getWritableDatabase();
+            SQLiteStatement insert = db.compileStatement("INSERT INTO tickets (user_uid, event_id, unique_code, "
+                    + "purchase_timestamp) VALUES (?, ?, ?, ?)");
+            db.beginTransactionNonExclusive();
+            try {
+                for (int i = 0; i < BULK_TICKETS; i++) {
+                    insert.bindString(1, "bulk-user");
+                    insert.bindLong(2, 1 + i % EVENTS);
+                    insert.bindString(3, "BULK-" + i);
+                    insert.bindLong(4, i);
+                    insert.executeInsert();
+                }
+                writeOpen.countDown();
+                // Keep the transaction open until the readers are through
+                readsDone.await(30, TimeUnit.SECONDS);
+                db.setTransactionSuccessful();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                db.endTransaction();
+                insert.close();
+            }
+        });
+
+        assertTrue("Bulk write never started", writeOpen.await(30, TimeUnit.SECONDS));
+        List<Future<int[]>> reads = new ArrayList<>();
+        for (int i = 0; i < READERS; i++) {
+            reads.add(helper.submitRead(() -> new int[] {
+                    helper.getEventsPage(null, 0).size(),
+                    countTickets(helper.getReadableDatabase()) }));
+        }
+        for (Future<int[]> read : reads) {
+            // A blocked reader would time out here, since the writer is waiting for it
+            int[] result = read.get(10, TimeUnit.SECONDS);
+            assertEquals(DatabaseHelper.EVENT_PAGE_SIZE, result[0]);
+            assertEquals("Read saw uncommitted rows", 0, result[1]);
+        }
+        readsDone.countDown();
+        write.get(30, TimeUnit.SECONDS);
+
+        assertEquals(BULK_TICKETS, countTickets(helper.getReadableDatabase()));
+    }
+
+    @Test
+    public void writesFromManyThreadsRunOneAtATime() throws Exception {
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger overlaps = new AtomicInteger();
+        ExecutorService callers = Executors.newFixedThreadPool(WRITER_THREADS);
+        List<Future<?>> writes = new ArrayList<>();
+        try {
+            for (int t = 0; t < WRITER_THREADS; t++) {
+                int thread = t;
+                callers.submit(() -> {
+                    for (int i = 0; i < WRITES_PER_THREAD; i++) {
+                        int n = i;
+                        Future<?> write = helper.submitWrite(() -> {
+                            if (running.incrementAndGet() > 1) {
+                                overlaps.incrementAndGet();
+                            }
+                            assertTrue(helper.registerTicket("writer-" + thread, 1 + n % EVENTS,
+                                    "W-" + thread + "-" + n));
+                            running.decrementAndGet();
+                        });
+                        synchronized (writes) {
+                            writes.add(write);
+                        }
+                    }
+                });
+            }
+            callers.shutdown();
+            assertTrue(callers.awaitTermination(30, TimeUnit.SECONDS));
+        } finally {
+            callers.shutdownNow();
+        }
+        for (Future<?> write : writes) {
+            write.get(30, TimeUnit.SECONDS);
+        }
+
+        assertEquals(0, overlaps.get());
+        assertEquals(WRITER_THREADS * WRITES_PER_THREAD, countTickets(helper.getReadableDatabase()));
+    }
+
+    private static int countTickets(SQLiteDatabase db) {
+        Cursor cursor = db.rawQuery("SELECT COUNT(*) FROM tickets", null);
+        try {
+            return cursor.moveToFirst() ? cursor.getInt(0) : -1;
+        } finally {
+            cursor.close();
+        }
+    }
+}
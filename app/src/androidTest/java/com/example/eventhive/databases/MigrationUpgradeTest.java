@@ -0,0 +1,157 @@
+package com.example.eventhive.databases;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
+import android.util.Log;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.example.eventhive.models.Event;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * Upgrades a seeded v3 database (the oldest schema still in the field) to
+ * the current version, logs how long each step and the backfills took, and
+ * checks the resulting schema and data.
+ */
+@RunWith(AndroidJUnit4.class)
+public class MigrationUpgradeTest {
+
+    private static final String TAG = "MigrationUpgradeTest";
+    private static final String DB_NAME = "migration_upgrade_test.db";
+    private static final int EVENTS = 21_000;
+    private static final int TICKETS = 100_000;
+    private static final String[] STATUS_LABELS = { "Active", "Hold", "Cancelled" };
+
+    private Context context;
+    private DatabaseHelper helper;
+
+    @Before
+    public void seedV3() {
+        context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        // openForTest() only deletes the old file; the helper opens it lazily
+        helper = DatabaseHelper.openForTest(context, DB_NAME, StorageProfile.BALANCED);
+        SQLiteDatabase db = context.openOrCreateDatabase(DB_NAME, Context.MODE_PRIVATE, null);
+        try {
+            db.execSQL("CREATE TABLE users (id INTEGER PRIMARY KEY AUTOINCREMENT, first_name TEXT, "
+                    + "last_name TEXT, email TEXT UNIQUE, password TEXT, role TEXT, phone TEXT)");
+            db.execSQL("CREATE TABLE events (id INTEGER PRIMARY KEY AUTOINCREMENT, title TEXT, date TEXT, "
+                    + "location TEXT, description TEXT, image_res_id INTEGER, status TEXT DEFAULT 'Active')");
+            db.execSQL("CREATE TABLE tickets (id INTEGER PRIMARY KEY AUTOINCREMENT, user_id INTEGER, "
+                    + "event_id INTEGER, unique_code TEXT)");
+            db.beginTransaction();
+            try {
+                SQLiteStatement event = db.compileStatement("INSERT INTO events (title, date, location, "
+                        + "description, image_res_id, status) VALUES (?, ?, ?, ?, 0, ?)");
+                for (int i = 0; i < EVENTS; i++) {
+                    event.bindString(1, "Event " + i);
+                    event.bindString(2, (1 + i % 28) + " Dec - 10 PM");
+                    event.bindString(3, "Venue " + (i % 200));
+                    event.bindString(4, "Description of event " + i);
+                    event.bindString(5, STATUS_LABELS[i % STATUS_LABELS.length]);
+                    event.executeInsert();
+                }
+                event.close();
+                SQLiteStatement ticket = db.compileStatement(
+                        "INSERT INTO tickets (user_id, event_id, unique_code) VALUES (?, ?, ?)");
+                for (int i = 0; i < TICKETS; i++) {
+                    ticket.bindLong(1, i % 500);
+                    ticket.bindLong(2, 1 + i % EVENTS);
+                    ticket.bindString(3, "V3-" + i);
+                    ticket.executeInsert();
+                }
+                ticket.close();
+                db.setTransactionSuccessful();
+            } finally {
+                db.endTransaction();
+            }
+            db.setVersion(3);
+        } finally {
+            db.close();
+        }
+    }
+
+    @After
+    public void tearDown() {
+        helper.closeForTest(context);
+    }
+
+    @Test
+    public void upgradesSeededV3DatabaseToCurrentSchema() throws Exception {
+        long started = System.nanoTime();
+        SQLiteDatabase db = helper.getWritableDatabase();
+        Log.i(TAG, "Schema steps took " + BenchmarkData.elapsedMs(started) + " ms");
+        // Backfills run on the writer thread; queue behind them
+        helper.submitWrite(() -> { }).get(5, TimeUnit.MINUTES);
+        Log.i(TAG, "Upgrade including backfills took " + BenchmarkData.elapsedMs(started) + " ms");
+
+        int steps = 0;
+        Cursor cursor = db.rawQuery("SELECT version, description, duration_ms FROM schema_migrations "
+                + "ORDER BY version", null);
+        try {
+            while (cursor.moveToNext()) {
+                assertEquals(4 + steps, cursor.getInt(0));
+                Log.i(TAG, "v" + cursor.getInt(0) + " " + cursor.getString(1) + ": " + cursor.getLong(2) + " ms");
+                steps++;
+            }
+        } finally {
+            cursor.close();
+        }
+        assertEquals(db.getVersion() - 3, steps);
+        assertEquals(0, count(db, "SELECT COUNT(*) FROM schema_backfills WHERE completed_at IS NULL"));
+
+        assertEquals(EVENTS, count(db, "SELECT COUNT(*) FROM events"));
+        assertEquals(0, count(db, "SELECT COUNT(*) FROM events WHERE status IS NOT NULL OR start_at IS NULL"
+                + " OR type_code IS NOT " + Event.EventType.OTHER.code));
+        assertEquals(EVENTS / 3, count(db, "SELECT COUNT(*) FROM events WHERE status_code = "
+                + Event.Status.HOLD.code));
+        assertEquals(0, count(db, "SELECT COUNT(*) FROM event_images"));
+
+        assertEquals(TICKETS, count(db, "SELECT COUNT(*) FROM tickets"));
+        assertEquals(0, count(db, "SELECT COUNT(*) FROM events e WHERE e.sold_count != "
+                + "(SELECT COUNT(*) FROM tickets t WHERE t.event_id = e.id)"));
+
+        List<Event> found = helper.searchEvents("Venue", 10);
+        assertEquals(10, found.size());
+        for (Event event : found) {
+            assertTrue(event.getLocation().startsWith("Venue "));
+        }
+    }
+
+    @Test
+    public void keepsStatusOfEventsWrittenBeforeBackfillDrains() throws Exception {
+        // Queued before the first open, so it runs right after the schema steps and
+        // ahead of the backfills onOpen() queues behind it
+        helper.submitWrite(() -> assertTrue(helper.createEvent(new Event("Held event", "1 Jan - 9 AM",
+                "Held venue", "Written mid-upgrade", 0, Event.Status.HOLD.label)))).get(5, TimeUnit.MINUTES);
+        SQLiteDatabase db = helper.getWritableDatabase();
+        helper.submitWrite(() -> { }).get(5, TimeUnit.MINUTES);
+
+        assertEquals(0, count(db, "SELECT COUNT(*) FROM schema_backfills WHERE completed_at IS NULL"));
+        assertEquals(Event.Status.HOLD.code, count(db, "SELECT status_code FROM events WHERE title = 'Held event'"));
+        assertEquals(EVENTS / 3 + 1, count(db, "SELECT COUNT(*) FROM events WHERE status_code = "
+                + Event.Status.HOLD.code));
+    }
+
+    private static long count(SQLiteDatabase db, String sql) {
+        Cursor cursor = db.rawQuery(sql, null);
+        try {
+            cursor.moveToFirst();
+            return cursor.getLong(0);
+        } finally {
+            cursor.close();
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package com.example.eventhive.databases;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.example.eventhive.models.Event;
+import com.example.eventhive.models.EventFilter;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Runs EXPLAIN QUERY PLAN on the SQL behind the ticket lists, the event
+ * feeds and the notification lookups, and fails if any of them reads a
+ * table without an index or sorts its whole result.
+ */
+@RunWith(AndroidJUnit4.class)
+public class QueryPlanTest {
+
+    private static final String DB_NAME = "query_plan_test.db";
+    private static final int EVENTS = 5_000;
+    private static final int TICKETS = 20_000;
+    private static final int USERS = 100;
+
+    private Context context;
+    private DatabaseHelper helper;
+    private SQLiteDatabase db;
+
+    @Before
+    public void seed() {
+        context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        helper = DatabaseHelper.openForTest(context, DB_NAME, StorageProfile.BALANCED);
+        db = helper.getWritableDatabase();
+        BenchmarkData.insertEvents(db, EVENTS);
+        BenchmarkData.insertTickets(db, TICKETS, EVENTS, USERS);
+        // Half the events are mirrored from Firestore, every event has one notification
+        db.execSQL("UPDATE events SET firestore_id = 'fs-' || id, organizer_id = 'organizer' WHERE id % 2 = 0");
+        db.execSQL("INSERT INTO notifications (title, message, timestamp, user_id, user_uid, related_event_id) "
+                + "SELECT 'Event updated', title, start_at, id % " + USERS + ", 'user-' || (id % " + USERS
+                + "), id FROM events");
+        db.execSQL("ANALYZE");
+    }
+
+    @After
+    public void tearDown() {
+        helper.closeForTest(context);
+    }
+
+    @Test
+    public void ticketQueriesReadInIndexOrder() {
+        assertIndexed(DatabaseHelper.SQL_TICKETS_FOR_USER_ID, "7");
+        assertIndexed(DatabaseHelper.ticketsPageSql(false), "user-7", String.valueOf(Long.MAX_VALUE),
+                String.valueOf(Long.MAX_VALUE), "", "-1", "20");
+        assertIndexed(DatabaseHelper.ticketsPageSql(true), "user-7", "1700000000000", "1700000000000", "SEED-7",
+                "user-7", "1700000000000", "1700000000000", "SEED-7", "20");
+    }
+
+    @Test
+    public void eventFeedQueriesReadInIndexOrder() {
+        assertIndexed(DatabaseHelper.eventsPageSql(null, 0), "20");
+        assertIndexed(DatabaseHelper.eventsPageSql("Date 40", 41), "Date 40", "Date 40", "41", "20");
+        assertIndexed(DatabaseHelper.activeEventsPageSql(false), "1700000000000", "20");
+        assertIndexed(DatabaseHelper.activeEventsPageSql(true), "1700000000000", "1700003600000", "1700003600000",
+                "2", "20");
+    }
+
+    @Test
+    public void mirroredFeedQueriesReadInIndexOrder() {
+        EventFilter byType = new EventFilter();
+        byType.setType(Event.EventType.OTHER);
+        EventFilter byStatus = new EventFilter();
+        byStatus.setStatus(Event.Status.HOLD);
+        for (EventFilter filter : new EventFilter[] { null, byType, byStatus }) {
+            assertMirroredIndexed(filter, DatabaseHelper.MIRROR_DATED, false);
+            assertMirroredIndexed(filter, DatabaseHelper.MIRROR_DATED, true);
+            assertMirroredIndexed(filter, DatabaseHelper.MIRROR_DATED_AFTER, false, "1700003600000",
+                    "1700003600000", "fs-2");
+            assertMirroredIndexed(filter, DatabaseHelper.MIRROR_DATED_BEFORE, true, "1700003600000",
+                    "1700003600000", "fs-2");
+            assertMirroredIndexed(filter, DatabaseHelper.MIRROR_UNDATED_AFTER, false, "");
+            assertMirroredIndexed(filter, DatabaseHelper.MIRROR_UNDATED_BEFORE, true, "fs-2");
+        }
+    }
+
+    @Test
+    public void notificationLookupsUseIndexes() {
+        assertIndexed(DatabaseHelper.cascadeChunkSql("notifications", "related_event_id = ?"), "7");
+        assertIndexed(DatabaseHelper.cascadeChunkSql("notifications", "user_id = ?"), "7");
+    }
+
+    private void assertMirroredIndexed(EventFilter filter, String where, boolean descending, String... keyArgs) {
+        List<String> args = new ArrayList<>();
+        for (String arg : keyArgs) {
+            args.add(arg);
+        }
+        String sql = DatabaseHelper.mirroredPageSql(filter, where, descending, DatabaseHelper.EVENT_PAGE_SIZE, args);
+        assertIndexed(sql, args.toArray(new String[0]));
+    }
+
+    private void assertIndexed(String sql, String... args) {
+        List<String> plan = new ArrayList<>();
+        Cursor cursor = db.rawQuery("EXPLAIN QUERY PLAN " + sql, args);
+        try {
+            while (cursor.moveToNext()) {
+                plan.add(cursor.getString(3));
+            }
+        } finally {
+            cursor.close();
+        }
+        assertFalse("No plan for " + sql, plan.isEmpty());
+        for (String row : plan) {
+            // "SCAN events" on current SQLite, "SCAN TABLE events" on older platform versions
+            boolean bareScan = row.startsWith("SCAN ") && !(row.contains(" USING ") && row.contains("INDEX"));
+            assertFalse("Full table scan in " + plan + " for " + sql, bareScan);
+            // Also matches partial sorts ("... FOR RIGHT PART OF ORDER BY")
+            boolean sorted = row.startsWith("USE TEMP B-TREE FOR") && row.endsWith("ORDER BY");
+            assertFalse("Sorted result in " + plan + " for " + sql, sorted);
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.example.eventhive.databases;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.util.Log;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.example.eventhive.models.Event;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Maps a 100k-row events table with per-row column lookups (the way the
+ * read loops did before the row mappers) and with EventRowMapper, and logs
+ * both times under the RowMapperBenchmark tag.
+ */
+@RunWith(AndroidJUnit4.class)
+public class RowMapperBenchmarkTest {
+
+    private static final String TAG = "RowMapperBenchmark";
+    private static final int ROWS = 100_000;
+    private static final int ROUNDS = 3;
+
+    private Context context;
+    private DatabaseHelper helper;
+
+    @Before
+    public void seed() {
+        context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        helper = DatabaseHelper.openForTest(context, "row_mapper_benchmark.db", StorageProfile.BALANCED);
+        BenchmarkData.insertEvents(helper.getWritableDatabase(), ROWS);
+    }
+
+    @After
+    public void tearDown() {
+        helper.closeForTest(context);
+    }
+
+    @Test
+    public void cachedIndexesMapFasterThanPerRowLookups() {
+        SQLiteDatabase db = helper.getReadableDatabase();
+        // Warm the page cache so both paths read from memory
+        mapPerRow(db);
+
+        long perRowMs = Long.MAX_VALUE;
+        long mapperMs = Long.MAX_VALUE;
+        for (int round = 0; round < ROUNDS; round++) {
+            long start = System.nanoTime();
+            List<Event> perRow = mapPerRow(db);
+            perRowMs = Math.min(perRowMs, BenchmarkData.elapsedMs(start));
+
+            start = System.nanoTime();
+            Cursor cursor = db.rawQuery("SELECT * FROM events", null);
+            List<Event> mapped = DatabaseHelper.mapAll(cursor, new DatabaseHelper.EventRowMapper(cursor));
+            mapperMs = Math.min(mapperMs, BenchmarkData.elapsedMs(start));
+
+            assertEquals(ROWS, perRow.size());
+            assertEquals(ROWS, mapped.size());
+            assertEquals(perRow.get(ROWS - 1).getTitle(), mapped.get(ROWS - 1).getTitle());
+        }
+        Log.i(TAG, ROWS + " rows: per-row lookups " + perRowMs + " ms, row mapper " + mapperMs + " ms (best of "
+                + ROUNDS + ")");
+    }
+
+    // Column lookups on every row, as getAllEvents did before EventRowMapper
+    private static List<Event> mapPerRow(SQLiteDatabase db) {
+        List<Event> events = new ArrayList<>();
+        Cursor cursor = db.rawQuery("SELECT * FROM events", null);
+        try {
+            while (cursor.moveToNext()) {
+                int statusIndex = cursor.getColumnIndex("status_code");
+                int priceIndex = cursor.getColumnIndex("ticket_price");
+                int quantityIndex = cursor.getColumnIndex("ticket_quantity");
+                int coverIndex = cursor.getColumnIndex("cover_image_path");
+                int galleryIndex = cursor.getColumnIndex("gallery_image_paths");
+                int typeIndex = cursor.getColumnIndex("event_type");
+                events.add(new Event(
+                        cursor.getInt(cursor.getColumnIndexOrThrow("id")),
+                        cursor.getString(cursor.getColumnIndexOrThrow("title")),
+                        cursor.getString(cursor.getColumnIndexOrThrow("date")),
+                        cursor.getString(cursor.getColumnIndexOrThrow("location")),
+                        cursor.getString(cursor.getColumnIndexOrThrow("description")),
+                        Event.Status.fromCode(cursor.getInt(statusIndex)).label,
+                        priceIndex != -1 ? cursor.getDouble(priceIndex) : 0.0,
+                        quantityIndex != -1 ? cursor.getInt(quantityIndex) : 0,
+                        coverIndex != -1 ? cursor.getString(coverIndex) : "",
+                        galleryIndex != -1 ? cursor.getString(galleryIndex) : "",
+                        typeIndex != -1 ? cursor.getString(typeIndex) : Event.EventType.OTHER.label));
+            }
+        } finally {
+            cursor.close();
+        }
+        return events;
+    }
+}
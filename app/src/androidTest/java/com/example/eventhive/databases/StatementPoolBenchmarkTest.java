@@ -0,0 +1,71 @@
+package com.example.eventhive.databases;
+
+import android.content.ContentValues;
+import android.content.Context;
+import android.database.sqlite.SQLiteDatabase;
+import android.util.Log;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import static org.junit.Assert.*;
+
+/**
+ * Inserts tickets one call at a time, first through a fresh ContentValues and
+ * db.insert() (the write path before StatementPool), then through
+ * registerTicket(), and logs inserts per second for each under the
+ * StatementPoolBenchmark tag.
+ */
+@RunWith(AndroidJUnit4.class)
+public class StatementPoolBenchmarkTest {
+
+    private static final String TAG = "StatementPoolBenchmark";
+    private static final int INSERTS = 5_000;
+    private static final int EVENTS = 50;
+
+    private Context context;
+    private DatabaseHelper helper;
+
+    @Before
+    public void seed() {
+        context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        helper = DatabaseHelper.openForTest(context, "statement_pool_benchmark.db", StorageProfile.BALANCED);
+        BenchmarkData.insertEvents(helper.getWritableDatabase(), EVENTS);
+    }
+
+    @After
+    public void tearDown() {
+        helper.closeForTest(context);
+    }
+
+    @Test
+    public void pooledStatementsOutpaceContentValues() {
+        SQLiteDatabase db = helper.getWritableDatabase();
+        long now = System.currentTimeMillis();
+
+        long start = System.nanoTime();
+        for (int i = 0; i < INSERTS; i++) {
+            ContentValues values = new ContentValues();
+            values.put("user_uid", "cv-user-" + i % 100);
+            values.put("event_id", 1 + i % EVENTS);
+            values.put("unique_code", "CV-" + i);
+            values.put("purchase_timestamp", now + i);
+            assertTrue(db.insert("tickets", null, values) != -1);
+        }
+        long contentValuesMs = Math.max(1, BenchmarkData.elapsedMs(start));
+
+        start = System.nanoTime();
+        for (int i = 0; i < INSERTS; i++) {
+            assertTrue(helper.registerTicket("pool-user-" + i % 100, 1 + i % EVENTS, "POOL-" + i, now + i));
+        }
+        long pooledMs = Math.max(1, BenchmarkData.elapsedMs(start));
+
+        Log.i(TAG, INSERTS + " ticket inserts: ContentValues " + INSERTS * 1000L / contentValuesMs
+                + "/s, pooled statement " + INSERTS * 1000L / pooledMs + "/s");
+    }
+}
@@ -0,0 +1,100 @@
+package com.example.eventhive.databases;
+
+import android.content.Context;
+import android.database.sqlite.SQLiteDatabase;
+import android.util.Log;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.example.eventhive.models.Event;
+import com.example.eventhive.models.Ticket;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Runs the My Tickets join and the two event feeds against a fresh database
+ * created under each StorageProfile, and logs the best time of each under
+ * the StorageProfileBenchmark tag.
+ */
+@RunWith(AndroidJUnit4.class)
+public class StorageProfileBenchmarkTest {
+
+    private static final String TAG = "StorageProfileBenchmark";
+    private static final int EVENTS = 50_000;
+    private static final int TICKETS = 200_000;
+    private static final int USERS = 100;
+    private static final int FEED_PAGES = 50;
+    private static final int ROUNDS = 3;
+
+    @Test
+    public void ticketJoinAndFeedsUnderEachProfile() {
+        Context context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        StorageProfile[] profiles = { StorageProfile.PLATFORM_DEFAULT, StorageProfile.BALANCED,
+                StorageProfile.READ_HEAVY };
+        for (StorageProfile profile : profiles) {
+            DatabaseHelper helper = DatabaseHelper.openForTest(context, "storage_profile_benchmark.db", profile);
+            try {
+                seed(helper.getWritableDatabase());
+                // Warm the page cache so every profile is measured from memory
+                helper.getTicketsForUser("user-0");
+
+                long ticketsMs = Long.MAX_VALUE;
+                long feedMs = Long.MAX_VALUE;
+                long activeFeedMs = Long.MAX_VALUE;
+                for (int round = 0; round < ROUNDS; round++) {
+                    long start = System.nanoTime();
+                    for (int user = 0; user < 10; user++) {
+                        List<Ticket> tickets = helper.getTicketsForUser("user-" + user);
+                        assertEquals(TICKETS / USERS, tickets.size());
+                    }
+                    ticketsMs = Math.min(ticketsMs, BenchmarkData.elapsedMs(start));
+
+                    start = System.nanoTime();
+                    String afterDate = null;
+                    int afterId = 0;
+                    for (int page = 0; page < FEED_PAGES; page++) {
+                        List<Event> events = helper.getEventsPage(afterDate, afterId);
+                        assertEquals(DatabaseHelper.EVENT_PAGE_SIZE, events.size());
+                        Event last = events.get(events.size() - 1);
+                        afterDate = last.getDate();
+                        afterId = last.getId();
+                    }
+                    feedMs = Math.min(feedMs, BenchmarkData.elapsedMs(start));
+
+                    start = System.nanoTime();
+                    long afterStartAt = 0;
+                    afterId = 0;
+                    for (int page = 0; page < FEED_PAGES; page++) {
+                        List<Event> events = helper.getActiveEventsPage(afterStartAt, afterId);
+                        assertEquals(DatabaseHelper.EVENT_PAGE_SIZE, events.size());
+                        Event last = events.get(events.size() - 1);
+                        afterStartAt = last.getStartAt();
+                        afterId = last.getId();
+                    }
+                    activeFeedMs = Math.min(activeFeedMs, BenchmarkData.elapsedMs(start));
+                }
+                Log.i(TAG, profile.name + ": tickets for 10 users " + ticketsMs + " ms, " + FEED_PAGES
+                        + " feed pages " + feedMs + " ms, " + FEED_PAGES + " active feed pages " + activeFeedMs
+                        + " ms (best of " + ROUNDS + ")");
+            } finally {
+                helper.closeForTest(context);
+            }
+        }
+    }
+
+    private static void seed(SQLiteDatabase db) {
+        BenchmarkData.insertEvents(db, EVENTS);
+        BenchmarkData.insertTickets(db, TICKETS, EVENTS, USERS);
+        // The seeded events start in 2023; move them ahead so the active feed has rows
+        long shift = System.currentTimeMillis() - 1_700_000_000_000L + BenchmarkData.DAY_MS;
+        db.execSQL("UPDATE events SET start_at = start_at + ?, end_at = end_at + ?",
+                new Object[] { shift, shift });
+        db.execSQL("ANALYZE");
+    }
+}
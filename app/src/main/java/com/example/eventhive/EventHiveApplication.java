@@ -3,6 +3,9 @@ package com.example.eventhive;
 import android.app.Application;
 import android.util.Log;
 
+import com.example.eventhive.databases.DatabaseMaintenanceService;
+import com.example.eventhive.utils.FirestoreCascadeDelete;
+import com.example.eventhive.utils.OutboxFlusher;
 import com.google.firebase.FirebaseApp;
 import com.google.firebase.appcheck.FirebaseAppCheck;
 import com.google.firebase.appcheck.debug.DebugAppCheckProviderFactory;
@@ -28,8 +31,17 @@ public class EventHiveApplication extends Application {
             Log.d(TAG, "✅ Firebase initialized successfully");
             Log.d(TAG, "✅ App Check enabled in DEBUG mode");
             Log.d(TAG, "Firebase project: " + FirebaseApp.getInstance().getOptions().getProjectId());
+
+            // Finish event/user deletes that were interrupted last run
+            new FirestoreCascadeDelete(this).resumePending();
+
+            // Send writes queued while offline, now and whenever the network returns
+            OutboxFlusher.getInstance(this).start();
         } catch (Exception e) {
             Log.e(TAG, "❌ Firebase initialization FAILED", e);
         }
+
+        // Vacuum and ANALYZE the local database while the device is idle
+        DatabaseMaintenanceService.schedule(this);
     }
 }
@@ -19,8 +19,12 @@ import androidx.cardview.widget.CardView;
 import com.example.eventhive.R;
 import com.example.eventhive.databases.DatabaseHelper;
 import com.example.eventhive.models.Event;
+import com.example.eventhive.utils.EventDateParser;
+import com.example.eventhive.utils.EventMirrorSync;
 import com.example.eventhive.utils.ImageStorageHelper;
+import com.example.eventhive.utils.OrganizerStatsCache;
 import com.example.eventhive.utils.SessionManager;
+import com.google.firebase.firestore.FieldValue;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -50,7 +54,7 @@ public class CreateEventActivity extends AppCompatActivity {
         super.onCreate(savedInstanceState);
         setContentView(R.layout.activity_create_event);
 
-        dbHelper = new DatabaseHelper(this);
+        dbHelper = DatabaseHelper.getInstance(this);
 
         // Initialize views
         etTitle = findViewById(R.id.etTitle);
@@ -280,6 +284,9 @@ public class CreateEventActivity extends AppCompatActivity {
         eventMap.put("eventType", eventType);
         eventMap.put("organizerId", organizerId);
         eventMap.put("createdAt", timestamp);
+        // Epoch start time so the feed can be filtered and ordered by date server-side
+        eventMap.put(EventMirrorSync.FIELD_START_AT, EventDateParser.parse(date, timestamp));
+        eventMap.put(EventMirrorSync.FIELD_UPDATED_AT, FieldValue.serverTimestamp());
 
         // Write to Firestore
         com.google.firebase.firestore.FirebaseFirestore db = com.google.firebase.firestore.FirebaseFirestore
@@ -287,6 +294,7 @@ public class CreateEventActivity extends AppCompatActivity {
         db.collection("events")
                 .add(eventMap)
                 .addOnSuccessListener(documentReference -> {
+                    OrganizerStatsCache.invalidate(this, organizerId);
                     Toast.makeText(CreateEventActivity.this, "Event Created Successfully!", Toast.LENGTH_SHORT).show();
                     finish();
                 })
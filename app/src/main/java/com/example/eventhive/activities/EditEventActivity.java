@@ -21,7 +21,7 @@ public class EditEventActivity extends AppCompatActivity {
         super.onCreate(savedInstanceState);
         setContentView(R.layout.activity_create_event); // Reuse layout
 
-        dbHelper = new DatabaseHelper(this);
+        dbHelper = DatabaseHelper.getInstance(this);
 
         etTitle = findViewById(R.id.etTitle);
         etDate = findViewById(R.id.etDate);
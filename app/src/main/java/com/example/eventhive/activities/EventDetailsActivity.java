@@ -15,14 +15,28 @@ import androidx.appcompat.app.AppCompatActivity;
 import androidx.cardview.widget.CardView;
 import com.example.eventhive.R;
 import com.example.eventhive.models.Event;
+import com.example.eventhive.models.EventImage;
+import com.example.eventhive.models.PurchaseRequest;
 import com.example.eventhive.utils.SessionManager;
 import com.example.eventhive.databases.DatabaseHelper;
 import com.example.eventhive.utils.ImageStorageHelper;
+import com.example.eventhive.utils.PurchasePipeline;
+import com.example.eventhive.utils.TicketCounter;
+import java.util.ArrayList;
+import java.util.List;
 
 public class EventDetailsActivity extends AppCompatActivity {
 
+    // Gallery thumbnails loaded when the screen opens
+    private static final int GALLERY_PREVIEW_LIMIT = 10;
+
     private Event event;
-    private Button btnPurchase;
+    private Button btnPurchase, btnQuantityMinus, btnQuantityPlus;
+    private TextView tvQuantity;
+
+    // Tickets in the next purchase, at most maxQuantity
+    private int ticketCount = 1;
+    private int maxQuantity = PurchaseRequest.MAX_QUANTITY;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -47,9 +61,19 @@ public class EventDetailsActivity extends AppCompatActivity {
 
             ImageView btnBack = findViewById(R.id.btnBack);
             btnPurchase = findViewById(R.id.btnPurchase);
+            btnQuantityMinus = findViewById(R.id.btnQuantityMinus);
+            btnQuantityPlus = findViewById(R.id.btnQuantityPlus);
+            tvQuantity = findViewById(R.id.tvQuantity);
 
             // Retrieve event
             event = (Event) getIntent().getSerializableExtra("EVENT");
+            if (event != null && event.getDescription() == null && event.getId() > 0) {
+                // Feed rows (local or mirrored) only carry card columns; load the full local row
+                Event fullEvent = DatabaseHelper.getInstance(this).getEventById(event.getId());
+                if (fullEvent != null) {
+                    event = fullEvent;
+                }
+            }
             if (event != null) {
                 // Set title
                 if (tvTitle != null)
@@ -68,16 +92,21 @@ public class EventDetailsActivity extends AppCompatActivity {
 
                 // Set event status with color coding
                 if (tvEventStatus != null) {
-                    String status = event.getStatus();
-                    tvEventStatus.setText(status);
+                    Event.Status status = event.getEventStatus();
+                    tvEventStatus.setText(status.label);
 
                     // Set background color based on status
-                    if (Event.STATUS_ACTIVE.equals(status)) {
-                        tvEventStatus.setBackgroundColor(getResources().getColor(R.color.brand_primary, null));
-                    } else if (Event.STATUS_HOLD.equals(status)) {
-                        tvEventStatus.setBackgroundColor(Color.parseColor("#FF9800")); // Orange
-                    } else if (Event.STATUS_CANCELLED.equals(status)) {
-                        tvEventStatus.setBackgroundColor(getResources().getColor(R.color.destructive, null));
+                    switch (status) {
+                        case HOLD:
+                            tvEventStatus.setBackgroundColor(Color.parseColor("#FF9800")); // Orange
+                            break;
+                        case CANCELLED:
+                            tvEventStatus.setBackgroundColor(getResources().getColor(R.color.destructive, null));
+                            break;
+                        case ACTIVE:
+                        default:
+                            tvEventStatus.setBackgroundColor(getResources().getColor(R.color.brand_primary, null));
+                            break;
                     }
                 }
 
@@ -109,11 +138,22 @@ public class EventDetailsActivity extends AppCompatActivity {
                 // Set ticket availability
                 if (tvTicketAvailability != null) {
                     int quantity = event.getTicketQuantity();
-                    if (quantity > 0) {
+                    if (quantity > 0 && event.getSoldCount() > 0) {
+                        tvTicketAvailability.setText(event.getRemainingTickets() + " of " + quantity + " left");
+                        setMaxQuantity(event.getRemainingTickets());
+                    } else if (quantity > 0) {
                         tvTicketAvailability.setText(quantity + " tickets");
+                        setMaxQuantity(quantity);
                     } else {
                         tvTicketAvailability.setText("No info");
                     }
+                    if (quantity > 0 && event.getFirestoreId() != null) {
+                        // Live count from the event's ticket shards
+                        new TicketCounter().getRemaining(event.getFirestoreId(), quantity, remaining -> {
+                            tvTicketAvailability.setText(remaining + " of " + quantity + " left");
+                            setMaxQuantity(remaining);
+                        });
+                    }
                 }
 
                 // Load cover image from internal storage
@@ -127,7 +167,20 @@ public class EventDetailsActivity extends AppCompatActivity {
 
                 // Load and display gallery images
                 String galleryPathsString = event.getGalleryImagePaths();
-                if (galleryPathsString != null && !galleryPathsString.isEmpty()) {
+                if (event.getFirestoreId() == null && event.getId() > 0) {
+                    // Local events keep one row per image; only read the preview slice
+                    List<EventImage> images = DatabaseHelper.getInstance(this)
+                            .getEventImages(event.getId(), GALLERY_PREVIEW_LIMIT);
+                    if (!images.isEmpty() && galleryImagesContainer != null) {
+                        galleryScrollView.setVisibility(View.VISIBLE);
+                        for (EventImage image : images) {
+                            Bitmap bitmap = ImageStorageHelper.loadImageFromInternalStorage(this, image.getPath());
+                            if (bitmap != null) {
+                                addGalleryImageView(galleryImagesContainer, bitmap);
+                            }
+                        }
+                    }
+                } else if (galleryPathsString != null && !galleryPathsString.isEmpty()) {
                     String[] galleryPaths = galleryPathsString.split(",");
                     if (galleryPaths.length > 0 && galleryImagesContainer != null) {
                         galleryScrollView.setVisibility(View.VISIBLE);
@@ -150,6 +203,7 @@ public class EventDetailsActivity extends AppCompatActivity {
                 btnBack.setOnClickListener(v -> finish());
             }
 
+            setupQuantitySelector();
             setupPurchaseButton();
 
         } catch (Exception e) {
@@ -183,6 +237,37 @@ public class EventDetailsActivity extends AppCompatActivity {
         container.addView(cardView);
     }
 
+    private void setupQuantitySelector() {
+        btnQuantityMinus.setOnClickListener(v -> setTicketCount(ticketCount - 1));
+        btnQuantityPlus.setOnClickListener(v -> setTicketCount(ticketCount + 1));
+        setTicketCount(ticketCount);
+    }
+
+    /**
+     * Limits the selector to the tickets still for sale; none left means sold out.
+     */
+    private void setMaxQuantity(int remaining) {
+        maxQuantity = Math.min(PurchaseRequest.MAX_QUANTITY, remaining);
+        setTicketCount(ticketCount);
+    }
+
+    private void setTicketCount(int value) {
+        if (maxQuantity <= 0) {
+            btnPurchase.setEnabled(false);
+            btnPurchase.setText("Sold Out");
+            btnQuantityMinus.setEnabled(false);
+            btnQuantityPlus.setEnabled(false);
+            return;
+        }
+        ticketCount = Math.max(1, Math.min(maxQuantity, value));
+        // A fresher count can show tickets again after a stale one said sold out
+        btnPurchase.setEnabled(true);
+        tvQuantity.setText(String.valueOf(ticketCount));
+        btnQuantityMinus.setEnabled(ticketCount > 1);
+        btnQuantityPlus.setEnabled(ticketCount < maxQuantity);
+        btnPurchase.setText(ticketCount > 1 ? "Get " + ticketCount + " Tickets" : "Get Ticket");
+    }
+
     private void setupPurchaseButton() {
         // Remove DatabaseHelper, use Firestore
         SessionManager session = SessionManager.getInstance(this);
@@ -205,20 +290,17 @@ public class EventDetailsActivity extends AppCompatActivity {
             }
 
             // Check event status
-            String status = event.getStatus();
-            if (Event.STATUS_HOLD.equals(status)) {
+            Event.Status status = event.getEventStatus();
+            if (status == Event.Status.HOLD) {
                 Toast.makeText(this, "Ticket sales temporarily on hold", Toast.LENGTH_LONG).show();
                 return;
             }
 
-            if (Event.STATUS_CANCELLED.equals(status)) {
+            if (status == Event.Status.CANCELLED) {
                 Toast.makeText(this, "Event has been cancelled", Toast.LENGTH_LONG).show();
                 return;
             }
 
-            // Generate unique ticket code
-            String uniqueCode = "TICKET-" + System.currentTimeMillis() + "-" + (int) (Math.random() * 1000);
-
             // Use Firebase UID
             String userUid = session.getUserUid();
             // String eventId = String.valueOf(event.getId()); // Legacy ID
@@ -237,40 +319,22 @@ public class EventDetailsActivity extends AppCompatActivity {
 
             long timestamp = System.currentTimeMillis();
 
-            String eventTitle = event.getTitle();
-            String eventDate = event.getDate();
-            String eventLocation = event.getLocation();
-
-            // Prepare Map for Firestore
-            java.util.Map<String, Object> ticketMap = new java.util.HashMap<>();
-            ticketMap.put("userId", userUid);
-            ticketMap.put("eventId", eventId);
-            ticketMap.put("uniqueCode", uniqueCode);
-            ticketMap.put("purchaseTimestamp", timestamp);
-            ticketMap.put("eventTitle", eventTitle);
-            ticketMap.put("eventDate", eventDate);
-            ticketMap.put("eventLocation", eventLocation);
-
-            // Disable button
+            // Local-only events have no Firestore document to keep sales counter shards under
+            int ticketLimit = event.getFirestoreId() != null ? event.getTicketQuantity() : 0;
+            PurchaseRequest request = PurchaseRequest.create(userUid, eventId, event.getTitle(), event.getDate(),
+                    event.getLocation(), ticketLimit, ticketCount, timestamp);
+
+            // Confirm straight away; the pipeline commits all the tickets in one transaction in the
+            // background and retries under the same document ids, so a retry never creates a second set
             btnPurchase.setEnabled(false);
-            btnPurchase.setText("Purchasing...");
-
-            // Write to Firestore
-            com.google.firebase.firestore.FirebaseFirestore db = com.google.firebase.firestore.FirebaseFirestore
-                    .getInstance();
-            db.collection("tickets")
-                    .add(ticketMap)
-                    .addOnSuccessListener(documentReference -> {
-                        Intent intent = new Intent(EventDetailsActivity.this, TicketConfirmationActivity.class);
-                        intent.putExtra("TICKET_CODE", uniqueCode);
-                        startActivity(intent);
-                        finish();
-                    })
-                    .addOnFailureListener(e -> {
-                        Toast.makeText(this, "Purchase Failed: " + e.getMessage(), Toast.LENGTH_SHORT).show();
-                        btnPurchase.setEnabled(true);
-                        btnPurchase.setText("Get Ticket");
-                    });
+            PurchasePipeline.getInstance(this).submit(request);
+
+            Intent intent = new Intent(EventDetailsActivity.this, TicketConfirmationActivity.class);
+            intent.putStringArrayListExtra(TicketConfirmationActivity.EXTRA_TICKET_CODES,
+                    new ArrayList<>(request.getTicketCodes()));
+            intent.putExtra(TicketConfirmationActivity.EXTRA_PURCHASE_ID, request.getId());
+            startActivity(intent);
+            finish();
         });
     }
 }
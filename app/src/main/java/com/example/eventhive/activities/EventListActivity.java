@@ -2,6 +2,9 @@ package com.example.eventhive.activities;
 
 import android.content.Intent;
 import android.os.Bundle;
+import android.widget.EditText;
+import android.widget.Toast;
+import androidx.appcompat.app.AlertDialog;
 import androidx.appcompat.app.AppCompatActivity;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
@@ -9,10 +12,14 @@ import com.example.eventhive.R;
 import com.example.eventhive.adapters.EventAdapter;
 import com.example.eventhive.databases.DatabaseHelper;
 import com.example.eventhive.models.Event;
+import java.util.ArrayList;
 import java.util.List;
 
 public class EventListActivity extends AppCompatActivity {
 
+    // Search results are shown as one list, without paging
+    private static final int SEARCH_LIMIT = 50;
+
     private RecyclerView recyclerEvents;
     private EventAdapter adapter;
     private DatabaseHelper dbHelper;
@@ -22,18 +29,68 @@ public class EventListActivity extends AppCompatActivity {
         super.onCreate(savedInstanceState);
         setContentView(R.layout.activity_dashboard);
 
-        dbHelper = new DatabaseHelper(this);
+        dbHelper = DatabaseHelper.getInstance(this);
         recyclerEvents = findViewById(R.id.recyclerEvents);
 
         recyclerEvents.setLayoutManager(new LinearLayoutManager(this));
         loadEvents();
 
         findViewById(R.id.btnBack).setOnClickListener(v -> finish());
+        findViewById(R.id.btnSearch).setOnClickListener(v -> showSearchDialog());
+    }
+
+    private void showSearchDialog() {
+        EditText input = new EditText(this);
+        input.setHint("Title, location, type...");
+        new AlertDialog.Builder(this)
+                .setTitle("Search events")
+                .setView(input)
+                .setPositiveButton("Search", (dialog, which) -> search(input.getText().toString()))
+                .setNeutralButton("Show all", (dialog, which) -> loadEvents())
+                .setNegativeButton("Cancel", null)
+                .show();
+    }
+
+    // Matches against the full-text index off the main thread
+    private void search(String query) {
+        if (query.trim().isEmpty()) {
+            loadEvents();
+            return;
+        }
+        dbHelper.submitRead(() -> {
+            List<Event> results = dbHelper.searchEvents(query, SEARCH_LIMIT);
+            runOnUiThread(() -> {
+                if (isFinishing()) {
+                    return;
+                }
+                adapter.updateEvents(results, false);
+                if (results.isEmpty()) {
+                    Toast.makeText(this, "No events match \"" + query.trim() + "\"", Toast.LENGTH_SHORT).show();
+                }
+            });
+            return null;
+        });
     }
 
     private void loadEvents() {
-        List<Event> events = dbHelper.getAllEvents();
-        adapter = new EventAdapter(this, events);
+        adapter = new EventAdapter(this, new ArrayList<>());
+        adapter.setOnLoadMoreListener(this::loadNextPage);
         recyclerEvents.setAdapter(adapter);
+        loadNextPage(null);
+    }
+
+    // Loads the page after lastEvent (or the first page) off the main thread
+    private void loadNextPage(Event lastEvent) {
+        dbHelper.submitRead(() -> {
+            List<Event> page = lastEvent == null
+                    ? dbHelper.getEventsPage(null, 0)
+                    : dbHelper.getEventsPage(lastEvent.getDate(), lastEvent.getId());
+            runOnUiThread(() -> {
+                if (!isFinishing()) {
+                    adapter.appendEvents(page, page.size() == DatabaseHelper.EVENT_PAGE_SIZE);
+                }
+            });
+            return null;
+        });
     }
 }
@@ -36,7 +36,7 @@ public class MyTicketsActivity extends AppCompatActivity {
 
             ticketRecyclerView = findViewById(R.id.ticketRecyclerView);
             tvEmptyState = findViewById(R.id.tvEmptyState);
-            dbHelper = new DatabaseHelper(this);
+            dbHelper = DatabaseHelper.getInstance(this);
             session = SessionManager.getInstance(this);
 
             if (ticketRecyclerView != null) {
@@ -9,15 +9,15 @@ import androidx.appcompat.app.AppCompatActivity;
 import com.example.eventhive.R;
 import com.example.eventhive.auth.AuthManager;
 import com.example.eventhive.databases.DatabaseHelper;
-import com.example.eventhive.models.Event;
+import com.example.eventhive.utils.OrganizerStatsCache;
 import com.example.eventhive.utils.SessionManager;
-import java.util.List;
 
 public class OrganizerDashboardActivity extends AppCompatActivity {
 
     private DatabaseHelper dbHelper;
     private AuthManager authManager;
     private SessionManager sessionManager;
+    private OrganizerStatsCache statsCache;
     private TextView tvTotalEvents, tvActiveEvents;
 
     @Override
@@ -25,9 +25,10 @@ public class OrganizerDashboardActivity extends AppCompatActivity {
         super.onCreate(savedInstanceState);
         setContentView(R.layout.activity_organizer_dashboard);
 
-        dbHelper = new DatabaseHelper(this);
+        dbHelper = DatabaseHelper.getInstance(this);
         authManager = new AuthManager();
         sessionManager = new SessionManager(this);
+        statsCache = new OrganizerStatsCache(this);
 
         android.view.View btnCreateEvent = findViewById(R.id.btnCreateEvent);
         android.view.View btnMyEvents = findViewById(R.id.btnMyEvents);
@@ -41,9 +42,6 @@ public class OrganizerDashboardActivity extends AppCompatActivity {
         ImageView navEvents = findViewById(R.id.navEvents);
         ImageView navSettings = findViewById(R.id.navSettings);
 
-        // Load statistics
-        loadStatistics();
-
         btnCreateEvent.setOnClickListener(v -> {
             Intent intent = new Intent(this, CreateEventActivity.class);
             startActivity(intent);
@@ -68,7 +66,7 @@ public class OrganizerDashboardActivity extends AppCompatActivity {
         if (navHome != null) {
             navHome.setOnClickListener(v -> {
                 // Already on home
-                loadStatistics(); // Refresh stats
+                loadStatistics(true); // Refresh stats
             });
         }
 
@@ -87,7 +85,7 @@ public class OrganizerDashboardActivity extends AppCompatActivity {
         }
     }
 
-    private void loadStatistics() {
+    private void loadStatistics(boolean force) {
         if (authManager.getCurrentUser() == null) {
             startActivity(new Intent(this, LoginActivity.class));
             finish();
@@ -95,38 +93,28 @@ public class OrganizerDashboardActivity extends AppCompatActivity {
         }
 
         String uid = authManager.getCurrentUser().getUid();
-        com.google.firebase.firestore.FirebaseFirestore db = com.google.firebase.firestore.FirebaseFirestore
-                .getInstance();
-
-        db.collection("events")
-                .whereEqualTo("organizerId", uid)
-                .get()
-                .addOnSuccessListener(queryDocumentSnapshots -> {
-                    int totalEvents = queryDocumentSnapshots.size();
-                    int activeEvents = 0;
-
-                    for (com.google.firebase.firestore.DocumentSnapshot doc : queryDocumentSnapshots) {
-                        String status = doc.getString("status");
-                        if (Event.STATUS_ACTIVE.equalsIgnoreCase(status)) {
-                            activeEvents++;
-                        }
-                    }
-
-                    if (tvTotalEvents != null) {
-                        tvTotalEvents.setText(String.valueOf(totalEvents));
-                    }
-                    if (tvActiveEvents != null) {
-                        tvActiveEvents.setText(String.valueOf(activeEvents));
-                    }
-                })
-                .addOnFailureListener(e -> {
-                    android.util.Log.e("OrganizerDashboard", "Error loading stats", e);
-                });
+
+        // Show the cached counts at once, then refresh them on the server if stale
+        if (statsCache.hasCached(uid)) {
+            showStatistics(statsCache.getTotalEvents(uid), statsCache.getActiveEvents(uid));
+        }
+        if (force || !statsCache.isFresh(uid)) {
+            statsCache.refresh(uid, this::showStatistics);
+        }
+    }
+
+    private void showStatistics(long totalEvents, long activeEvents) {
+        if (tvTotalEvents != null) {
+            tvTotalEvents.setText(String.valueOf(totalEvents));
+        }
+        if (tvActiveEvents != null) {
+            tvActiveEvents.setText(String.valueOf(activeEvents));
+        }
     }
 
     @Override
     protected void onResume() {
         super.onResume();
-        loadStatistics(); // Refresh when returning to this screen
+        loadStatistics(false); // Refresh when returning to this screen, if stale
     }
 }
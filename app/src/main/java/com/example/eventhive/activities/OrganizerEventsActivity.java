@@ -17,8 +17,12 @@ import androidx.appcompat.app.AppCompatActivity;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 import com.example.eventhive.R;
+import com.example.eventhive.databases.CascadeDeleteListener;
 import com.example.eventhive.databases.DatabaseHelper;
 import com.example.eventhive.models.Event;
+import com.example.eventhive.utils.FirestoreCascadeDelete;
+import com.example.eventhive.utils.OrganizerStatsCache;
+import com.example.eventhive.utils.OutboxFlusher;
 import java.util.List;
 
 public class OrganizerEventsActivity extends AppCompatActivity {
@@ -29,6 +33,13 @@ public class OrganizerEventsActivity extends AppCompatActivity {
 
     private com.google.firebase.firestore.FirebaseFirestore db;
     private com.google.firebase.auth.FirebaseAuth auth;
+    private FirestoreCascadeDelete cascadeDelete;
+
+    // A status change Firestore refused; reload so the spinner shows the stored status again
+    private final OutboxFlusher.StatusChangeListener statusChangeListener = (eventId, status, reason) -> {
+        Toast.makeText(this, "Could not change status to " + status + ": " + reason, Toast.LENGTH_LONG).show();
+        loadEvents();
+    };
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -38,8 +49,9 @@ public class OrganizerEventsActivity extends AppCompatActivity {
         // Initialize Firestore & Auth
         db = com.google.firebase.firestore.FirebaseFirestore.getInstance();
         auth = com.google.firebase.auth.FirebaseAuth.getInstance();
+        cascadeDelete = new FirestoreCascadeDelete(this);
 
-        dbHelper = new DatabaseHelper(this); // Keep for safety if needed
+        dbHelper = DatabaseHelper.getInstance(this); // Keep for safety if needed
         recyclerView = findViewById(R.id.rvOrganizerEvents);
         recyclerView.setLayoutManager(new LinearLayoutManager(this));
 
@@ -92,17 +104,28 @@ public class OrganizerEventsActivity extends AppCompatActivity {
     @Override
     protected void onResume() {
         super.onResume();
+        OutboxFlusher.getInstance(this).addStatusChangeListener(statusChangeListener);
         loadEvents(); // Refresh when returning
     }
 
+    @Override
+    protected void onPause() {
+        super.onPause();
+        OutboxFlusher.getInstance(this).removeStatusChangeListener(statusChangeListener);
+    }
+
     // RecyclerView Adapter
     private class OrganizerEventsAdapter extends RecyclerView.Adapter<OrganizerEventsAdapter.EventViewHolder> {
 
         private List<Event> eventList;
-        private String[] statusOptions = { Event.STATUS_ACTIVE, Event.STATUS_HOLD, Event.STATUS_CANCELLED };
+        private final Event.Status[] statuses = Event.Status.values();
+        private final String[] statusOptions = new String[statuses.length];
 
         public OrganizerEventsAdapter(List<Event> eventList) {
             this.eventList = eventList;
+            for (int i = 0; i < statuses.length; i++) {
+                statusOptions[i] = statuses[i].label;
+            }
         }
 
         @NonNull
@@ -128,16 +151,7 @@ public class OrganizerEventsActivity extends AppCompatActivity {
             holder.spinnerStatus.setAdapter(statusAdapter);
 
             // Set current status
-            int statusPosition = 0;
-            String currentStatus = event.getStatus();
-            if (currentStatus != null) {
-                for (int i = 0; i < statusOptions.length; i++) {
-                    if (statusOptions[i].equals(currentStatus)) {
-                        statusPosition = i;
-                        break;
-                    }
-                }
-            }
+            int statusPosition = event.getEventStatus().ordinal();
             // Remove listener before setting selection to prevent crash/loop
             holder.spinnerStatus.setOnItemSelectedListener(null);
             holder.spinnerStatus.setSelection(statusPosition, false);
@@ -147,24 +161,18 @@ public class OrganizerEventsActivity extends AppCompatActivity {
                 holder.spinnerStatus.setOnItemSelectedListener(new AdapterView.OnItemSelectedListener() {
                     @Override
                     public void onItemSelected(AdapterView<?> parent, View view, int pos, long id) {
-                        String newStatus = statusOptions[pos];
+                        Event.Status newStatus = statuses[pos];
                         // Only update if status actually changed
-                        if (event.getStatus() != null && !event.getStatus().equals(newStatus)) {
+                        if (event.getEventStatus() != newStatus) {
                             if (event.getFirestoreId() != null) {
-                                db.collection("events").document(event.getFirestoreId())
-                                        .update("status", newStatus)
-                                        .addOnSuccessListener(aVoid -> {
-                                            event.setStatus(newStatus);
-                                            Toast.makeText(OrganizerEventsActivity.this,
-                                                    "Status updated to " + newStatus,
-                                                    Toast.LENGTH_SHORT).show();
-                                            // Refresh stats if we were locally tracking them
-                                        })
-                                        .addOnFailureListener(e -> {
-                                            Toast.makeText(OrganizerEventsActivity.this,
-                                                    "Update failed: " + e.getMessage(), Toast.LENGTH_SHORT).show();
-                                            // Revert spinner if failed (optional, but good UX)
-                                        });
+                                // Sent through the outbox so the change survives going offline
+                                OutboxFlusher.getInstance(OrganizerEventsActivity.this)
+                                        .enqueueStatusChange(event.getOrganizerId(), event.getFirestoreId(),
+                                                newStatus);
+                                event.setEventStatus(newStatus);
+                                // Not sent yet; statusChangeListener reports it if it is dropped
+                                Toast.makeText(OrganizerEventsActivity.this, "Saving status: " + newStatus.label,
+                                        Toast.LENGTH_SHORT).show();
                             }
                         }
                     }
@@ -197,18 +205,35 @@ public class OrganizerEventsActivity extends AppCompatActivity {
 
             holder.btnDelete.setOnClickListener(v -> {
                 if (event.getFirestoreId() != null) {
-                    db.collection("events").document(event.getFirestoreId())
-                            .delete()
-                            .addOnSuccessListener(aVoid -> {
-                                Toast.makeText(OrganizerEventsActivity.this, "Event deleted", Toast.LENGTH_SHORT)
-                                        .show();
-                                eventList.remove(position);
-                                notifyItemRemoved(position);
-                                notifyItemRangeChanged(position, eventList.size());
-                            })
-                            .addOnFailureListener(e -> Toast
-                                    .makeText(OrganizerEventsActivity.this, "Delete failed", Toast.LENGTH_SHORT)
-                                    .show());
+                    // Removes the event's tickets and image files too, in batches
+                    cascadeDelete.deleteEvent(event, new CascadeDeleteListener() {
+                        @Override
+                        public void onProgress(String table, int deleted) {
+                            if ("events".equals(table)) {
+                                // The event document itself is gone
+                                OrganizerStatsCache.invalidate(OrganizerEventsActivity.this,
+                                        event.getOrganizerId());
+                            }
+                        }
+
+                        @Override
+                        public void onComplete(int deleted) {
+                            Toast.makeText(OrganizerEventsActivity.this, "Event deleted", Toast.LENGTH_SHORT)
+                                    .show();
+                            int index = eventList.indexOf(event);
+                            if (index != -1) {
+                                eventList.remove(index);
+                                notifyItemRemoved(index);
+                                notifyItemRangeChanged(index, eventList.size());
+                            }
+                        }
+
+                        @Override
+                        public void onFailed(String reason) {
+                            Toast.makeText(OrganizerEventsActivity.this, "Delete failed", Toast.LENGTH_SHORT)
+                                    .show();
+                        }
+                    });
                 }
             });
         }
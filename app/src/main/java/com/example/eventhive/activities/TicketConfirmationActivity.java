@@ -2,23 +2,74 @@ package com.example.eventhive.activities;
 
 import android.content.Intent;
 import android.os.Bundle;
+import android.text.TextUtils;
 import android.widget.Button;
 import android.widget.TextView;
+import android.util.Log;
 import androidx.appcompat.app.AppCompatActivity;
 import com.example.eventhive.R;
+import com.example.eventhive.databases.DatabaseHelper;
+import com.example.eventhive.models.PurchaseRequest;
+import com.example.eventhive.utils.PurchasePipeline;
+import com.google.firebase.firestore.FirebaseFirestore;
+import java.util.ArrayList;
 
 public class TicketConfirmationActivity extends AppCompatActivity {
 
+    // Id of the purchase still being committed, if any
+    public static final String EXTRA_PURCHASE_ID = "PURCHASE_ID";
+    // Codes of every ticket in the purchase
+    public static final String EXTRA_TICKET_CODES = "TICKET_CODES";
+
+    private TextView tvTitle, tvMessage;
+    private String purchaseId;
+    private boolean plural;
+    private PurchasePipeline pipeline;
+
+    private final PurchasePipeline.Listener purchaseListener = new PurchasePipeline.Listener() {
+        @Override
+        public void onConfirmed(PurchaseRequest request) {
+            if (request.getId().equals(purchaseId)) {
+                showState(PurchasePipeline.State.CONFIRMED, null);
+            }
+        }
+
+        @Override
+        public void onRejected(PurchaseRequest request, String reason) {
+            if (request.getId().equals(purchaseId)) {
+                showState(PurchasePipeline.State.REJECTED, reason);
+            }
+        }
+
+        @Override
+        public void onQueued(PurchaseRequest request) {
+            if (request.getId().equals(purchaseId)) {
+                showState(PurchasePipeline.State.QUEUED, null);
+            }
+        }
+    };
+
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
         setContentView(R.layout.activity_ticket_confirmation);
 
+        TextView tvCodeLabel = findViewById(R.id.tvTicketCodeLabel);
         TextView tvCode = findViewById(R.id.tvTicketCode);
+        tvTitle = findViewById(R.id.tvConfirmationTitle);
+        tvMessage = findViewById(R.id.tvConfirmationMessage);
         Button btnDone = findViewById(R.id.btnDone);
 
-        String code = getIntent().getStringExtra("TICKET_CODE");
-        tvCode.setText(code != null ? code : "ERROR");
+        ArrayList<String> codes = getIntent().getStringArrayListExtra(EXTRA_TICKET_CODES);
+        if (codes != null && !codes.isEmpty()) {
+            plural = codes.size() > 1;
+            tvCodeLabel.setText(plural ? codes.size() + " Ticket Codes" : "Ticket Code");
+            tvCode.setText(TextUtils.join("\n", codes));
+        } else {
+            tvCode.setText("ERROR");
+        }
+        purchaseId = getIntent().getStringExtra(EXTRA_PURCHASE_ID);
+        pipeline = PurchasePipeline.getInstance(this);
 
         btnDone.setOnClickListener(v -> {
             Intent intent = new Intent(this, UserDashboardActivity.class);
@@ -27,4 +78,80 @@ public class TicketConfirmationActivity extends AppCompatActivity {
             finish();
         });
     }
+
+    @Override
+    protected void onStart() {
+        super.onStart();
+        if (purchaseId != null) {
+            pipeline.addListener(purchaseListener);
+            showState(pipeline.getState(purchaseId), null);
+        }
+    }
+
+    @Override
+    protected void onStop() {
+        super.onStop();
+        pipeline.removeListener(purchaseListener);
+    }
+
+    private void showState(PurchasePipeline.State state, String reason) {
+        // The tickets of one purchase are confirmed or rejected together
+        String tickets = plural ? "Your tickets" : "Your ticket";
+        if (state == null) {
+            // Submitted before this process started
+            tvTitle.setText(plural ? "Checking Your Tickets" : "Checking Your Ticket");
+            tvMessage.setText("Checking whether " + tickets.toLowerCase() + (plural ? " have" : " has")
+                    + " been confirmed");
+            resolveState();
+        } else if (state == PurchasePipeline.State.PENDING) {
+            tvTitle.setText(plural ? "Tickets Reserved" : "Ticket Reserved");
+            tvMessage.setText(tickets + (plural ? " are" : " is") + " reserved and being confirmed");
+        } else if (state == PurchasePipeline.State.QUEUED) {
+            tvTitle.setText(plural ? "Tickets Reserved" : "Ticket Reserved");
+            tvMessage.setText("You're offline. " + tickets + (plural ? " are" : " is")
+                    + " saved and will be confirmed once you're back online");
+        } else if (state == PurchasePipeline.State.REJECTED) {
+            tvTitle.setText("Purchase Failed");
+            tvMessage.setText(reason != null ? tickets + " could not be confirmed: " + reason
+                    : tickets + " could not be confirmed");
+        } else {
+            tvTitle.setText(plural ? "Tickets Confirmed!" : "Ticket Confirmed!");
+            tvMessage.setText(tickets + (plural ? " have" : " has") + " been successfully purchased");
+        }
+    }
+
+    /**
+     * Works out the state of a purchase this process never saw: still in the
+     * outbox means queued, otherwise the first ticket's document
+     * (tickets/{purchaseId}) exists only if the purchase was committed.
+     */
+    private void resolveState() {
+        String id = purchaseId;
+        DatabaseHelper dbHelper = DatabaseHelper.getInstance(this);
+        dbHelper.submitRead(() -> {
+            boolean queued = dbHelper.hasOutboxTicket(id);
+            runOnUiThread(() -> {
+                if (queued) {
+                    showResolvedState(PurchasePipeline.State.QUEUED);
+                    return;
+                }
+                FirebaseFirestore.getInstance().collection("tickets").document(id).get()
+                        .addOnSuccessListener(document -> showResolvedState(document.exists()
+                                ? PurchasePipeline.State.CONFIRMED : PurchasePipeline.State.REJECTED))
+                        .addOnFailureListener(e -> {
+                            Log.e("TicketConfirmation", "Could not check purchase " + id + ": " + e.getMessage());
+                            tvMessage.setText("Couldn't check your purchase right now. Your tickets are listed "
+                                    + "under My Tickets once confirmed");
+                        });
+            });
+            return null;
+        });
+    }
+
+    // Ignored if the pipeline reported a state in the meantime, which is more recent
+    private void showResolvedState(PurchasePipeline.State state) {
+        if (!isFinishing() && pipeline.getState(purchaseId) == null) {
+            showState(state, null);
+        }
+    }
 }
@@ -7,7 +7,9 @@ import android.widget.ImageView;
 import android.widget.ProgressBar;
 import android.widget.TextView;
 
+import androidx.appcompat.app.AlertDialog;
 import androidx.appcompat.app.AppCompatActivity;
+import androidx.lifecycle.Lifecycle;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
@@ -15,7 +17,11 @@ import com.example.eventhive.R;
 import com.example.eventhive.adapters.EventAdapter;
 import com.example.eventhive.auth.AuthManager;
 import com.example.eventhive.databases.DatabaseHelper;
+import com.google.android.material.chip.Chip;
 import com.example.eventhive.models.Event;
+import com.example.eventhive.models.EventFilter;
+import com.example.eventhive.utils.EventDateParser;
+import com.example.eventhive.utils.EventMirrorSync;
 import com.example.eventhive.utils.SessionManager;
 
 import java.util.ArrayList;
@@ -23,16 +29,33 @@ import java.util.List;
 
 public class UserDashboardActivity extends AppCompatActivity {
 
+    // Request the next page this many rows before the end, and keep at most this many pages
+    private static final int PREFETCH_DISTANCE = 8;
+    private static final int MAX_RETAINED_PAGES = 5;
+
+    private static final String[] DATE_OPTIONS = { "Any time", "Today", "This weekend", "Next 7 days", "Next 30 days" };
+    private static final String[] PRICE_OPTIONS = { "Any price", "Free", "Under ৳500", "৳500 - ৳1500", "Over ৳1500" };
+
     private RecyclerView recyclerView;
     private EventAdapter adapter;
     private TextView tvEmptyState;
     private ProgressBar progressBar;
     private ImageView navHome, navTicket, navNotifications, navLogout;
+    private Chip chipType, chipStatus, chipDate, chipPrice;
 
     private DatabaseHelper dbHelper;
     private SessionManager session;
     private AuthManager authManager;
-    private com.google.firebase.firestore.FirebaseFirestore db;
+    private EventMirrorSync eventSync;
+    private boolean mirrorLoaded = false;
+
+    // Chip selections; the same filter drives the mirror query and the listener.
+    // Main thread only: reads get a copy.
+    private final EventFilter filter = new EventFilter();
+    private int dateChoice = 0;
+    private int priceChoice = 0;
+    // Bumped whenever the list is reloaded; a page read for an older list is dropped
+    private int feedGeneration = 0;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -51,11 +74,11 @@ public class UserDashboardActivity extends AppCompatActivity {
                 return;
             }
 
-            // Initialize DatabaseHelper (legacy cleanup if needed), AuthManager, and
-            // Firestore
-            dbHelper = new DatabaseHelper(this); // Kept to avoid breaking potential lingering deps for now
+            // Initialize DatabaseHelper (local event mirror), AuthManager, and the
+            // Firestore sync
+            dbHelper = DatabaseHelper.getInstance(this);
             authManager = new AuthManager();
-            db = com.google.firebase.firestore.FirebaseFirestore.getInstance();
+            eventSync = new EventMirrorSync(this);
 
             // Initialize Views
             recyclerView = findViewById(R.id.recyclerViewEvents);
@@ -65,17 +88,26 @@ public class UserDashboardActivity extends AppCompatActivity {
             navTicket = findViewById(R.id.navTicket);
             navNotifications = findViewById(R.id.navNotifications); // Re-added
             navLogout = findViewById(R.id.navLogout);
+            chipType = findViewById(R.id.chipType);
+            chipStatus = findViewById(R.id.chipStatus);
+            chipDate = findViewById(R.id.chipDate);
+            chipPrice = findViewById(R.id.chipPrice);
 
             // Setup RecyclerView
             recyclerView.setLayoutManager(new LinearLayoutManager(this));
             adapter = new EventAdapter(this, new ArrayList<>());
+            adapter.setPrefetchDistance(PREFETCH_DISTANCE);
+            adapter.setMaxRetainedPages(MAX_RETAINED_PAGES, DatabaseHelper.EVENT_PAGE_SIZE);
+            adapter.setOnLoadMoreListener(this::loadNextPage);
+            adapter.setOnLoadEarlierListener(this::loadPreviousPage);
             recyclerView.setAdapter(adapter);
 
-            // Load events from Firestore
+            // Show mirrored events, then listen for Firestore changes on top of them
             loadEvents();
 
-            // Setup navigation
+            // Setup navigation and filters
             setupClickListeners();
+            setupFilterChips();
 
         } catch (Exception e) {
             android.util.Log.e("UserDashboard", "Critical error in onCreate", e);
@@ -88,73 +120,214 @@ public class UserDashboardActivity extends AppCompatActivity {
         if (progressBar != null) {
             progressBar.setVisibility(View.VISIBLE);
         }
+        int generation = ++feedGeneration;
+        EventFilter query = new EventFilter(filter);
+        // Render the local mirror straight away; the listener then applies only what changed
+        dbHelper.submitRead(() -> {
+            List<Event> events = dbHelper.getMirroredEventsPage(query, null, DatabaseHelper.EVENT_PAGE_SIZE);
+            runOnUiThread(() -> {
+                if (generation == feedGeneration) {
+                    showEvents(events);
+                }
+            });
+            return null;
+        });
+    }
+
+    private void loadNextPage(Event lastEvent) {
+        int generation = feedGeneration;
+        EventFilter query = new EventFilter(filter);
+        dbHelper.submitRead(() -> {
+            List<Event> page = dbHelper.getMirroredEventsPage(query, lastEvent, DatabaseHelper.EVENT_PAGE_SIZE);
+            runOnUiThread(() -> {
+                if (generation == feedGeneration) {
+                    adapter.appendEvents(page, page.size() == DatabaseHelper.EVENT_PAGE_SIZE);
+                }
+            });
+            return null;
+        });
+    }
+
+    private void loadPreviousPage(Event firstEvent) {
+        int generation = feedGeneration;
+        EventFilter query = new EventFilter(filter);
+        dbHelper.submitRead(() -> {
+            List<Event> page = dbHelper.getMirroredEventsPageBefore(query, firstEvent, DatabaseHelper.EVENT_PAGE_SIZE);
+            runOnUiThread(() -> {
+                if (generation == feedGeneration) {
+                    adapter.prependEvents(page, page.size() == DatabaseHelper.EVENT_PAGE_SIZE);
+                }
+            });
+            return null;
+        });
+    }
+
+    private void showEvents(List<Event> events) {
+        if (isFinishing()) {
+            return;
+        }
+        if (progressBar != null) {
+            progressBar.setVisibility(View.GONE);
+        }
+        adapter.updateEvents(events, events.size() == DatabaseHelper.EVENT_PAGE_SIZE);
+        updateEmptyState();
+        mirrorLoaded = true;
+        // Changes are applied on top of the mirror, so listening waits for it
+        if (getLifecycle().getCurrentState().isAtLeast(Lifecycle.State.STARTED)) {
+            listenForChanges();
+        }
+    }
+
+    private void listenForChanges() {
+        eventSync.startListening(new EventMirrorSync.ChangeListener() {
+            @Override
+            public void onEventChanged(Event event) {
+                if (filter.matches(event)) {
+                    adapter.upsertEvent(event);
+                } else {
+                    // Covers an event edited out of the current filter
+                    adapter.removeEvent(event.getFirestoreId());
+                }
+                updateEmptyState();
+            }
 
-        // Fetch from Firestore "events" collection
-        db.collection("events")
-                .get()
-                .addOnCompleteListener(task -> {
-                    if (progressBar != null) {
-                        progressBar.setVisibility(View.GONE);
-                    }
-
-                    if (task.isSuccessful()) {
-                        List<Event> events = new ArrayList<>();
-                        for (com.google.firebase.firestore.QueryDocumentSnapshot document : task.getResult()) {
-                            try {
-                                // Manual mapping to ensure safety
-                                String title = document.getString("title");
-                                String date = document.getString("date");
-                                String location = document.getString("location");
-                                String description = document.getString("description");
-                                String status = document.getString("status");
-                                Double price = document.getDouble("ticketPrice");
-                                Long quantity = document.getLong("ticketQuantity");
-                                String coverImg = document.getString("coverImagePath");
-                                String galleryImgs = document.getString("galleryImagePaths");
-                                String type = document.getString("eventType");
-
-                                // Handle potential nulls for primitive wrappers
-                                double p = price != null ? price : 0.0;
-                                int q = quantity != null ? quantity.intValue() : 0;
-                                // status default
-                                if (status == null)
-                                    status = Event.STATUS_ACTIVE;
-
-                                // Note: Event model might need a no-arg constructor for automatic toObject()
-                                // using manual construction for now based on what I saw in CreateEventActivity
-                                Event e = new Event(title, date, location, description, status, p, q, coverImg,
-                                        galleryImgs, type);
-                                // Set document ID as the ID? Event model uses int ID likely.
-                                // We might need to store Firestore ID inside Event if we want to update it.
-                                // For now, just for display.
-                                // If Event model has setFirestoreId method, use it.
-                                e.setFirestoreId(document.getId());
-
-                                events.add(e);
-                            } catch (Exception ex) {
-                                android.util.Log.e("UserDashboard", "Error parsing event: " + ex.getMessage());
-                            }
-                        }
-
-                        if (!events.isEmpty()) {
-                            adapter.updateEvents(events);
-                            if (tvEmptyState != null)
-                                tvEmptyState.setVisibility(View.GONE);
-                            if (recyclerView != null)
-                                recyclerView.setVisibility(View.VISIBLE);
-                        } else {
-                            if (tvEmptyState != null)
-                                tvEmptyState.setVisibility(View.VISIBLE);
-                            if (recyclerView != null)
-                                recyclerView.setVisibility(View.GONE);
-                        }
-
-                    } else {
-                        android.util.Log.e("UserDashboard", "Error getting documents: ", task.getException());
-                        if (tvEmptyState != null)
-                            tvEmptyState.setVisibility(View.VISIBLE);
-                    }
-                });
+            @Override
+            public void onEventRemoved(String firestoreId) {
+                adapter.removeEvent(firestoreId);
+                updateEmptyState();
+            }
+
+            @Override
+            public void onMirrorPageStored() {
+                if (adapter.getItemCount() < DatabaseHelper.EVENT_PAGE_SIZE) {
+                    // Still short of a screen: show the first page as soon as it is stored
+                    loadEvents();
+                } else {
+                    adapter.setHasMore(true);
+                }
+            }
+        });
+    }
+
+    private void setupFilterChips() {
+        chipType.setOnClickListener(v -> {
+            Event.EventType[] types = Event.EventType.values();
+            String[] options = new String[types.length + 1];
+            options[0] = "Any type";
+            for (int i = 0; i < types.length; i++) {
+                options[i + 1] = types[i].label;
+            }
+            int checked = filter.getType() == null ? 0 : filter.getType().ordinal() + 1;
+            showFilterDialog("Event type", options, checked, which -> {
+                filter.setType(which == 0 ? null : types[which - 1]);
+                updateChip(chipType, "Type", which == 0 ? null : options[which]);
+            });
+        });
+
+        chipStatus.setOnClickListener(v -> {
+            Event.Status[] statuses = Event.Status.values();
+            String[] options = new String[statuses.length + 1];
+            options[0] = "Any status";
+            for (int i = 0; i < statuses.length; i++) {
+                options[i + 1] = statuses[i].label;
+            }
+            int checked = filter.getStatus() == null ? 0 : filter.getStatus().ordinal() + 1;
+            showFilterDialog("Status", options, checked, which -> {
+                filter.setStatus(which == 0 ? null : statuses[which - 1]);
+                updateChip(chipStatus, "Status", which == 0 ? null : options[which]);
+            });
+        });
+
+        chipDate.setOnClickListener(v -> showFilterDialog("Date", DATE_OPTIONS, dateChoice, which -> {
+            dateChoice = which;
+            long now = System.currentTimeMillis();
+            long today = EventDateParser.startOfDay(now);
+            switch (which) {
+                case 1:
+                    filter.setDateWindow(today, EventDateParser.startOfNextDay(now));
+                    break;
+                case 2:
+                    long[] weekend = EventDateParser.weekendWindow(now);
+                    filter.setDateWindow(weekend[0], weekend[1]);
+                    break;
+                case 3:
+                    filter.setDateWindow(today, startOfDayAfter(today, 7));
+                    break;
+                case 4:
+                    filter.setDateWindow(today, startOfDayAfter(today, 30));
+                    break;
+                default:
+                    filter.clearDateWindow();
+            }
+            updateChip(chipDate, "Date", which == 0 ? null : DATE_OPTIONS[which]);
+        }));
+
+        chipPrice.setOnClickListener(v -> showFilterDialog("Price", PRICE_OPTIONS, priceChoice, which -> {
+            priceChoice = which;
+            switch (which) {
+                case 1:
+                    filter.setPriceRange(0, 0);
+                    break;
+                case 2:
+                    filter.setPriceRange(EventFilter.NO_PRICE_LIMIT, 499.99);
+                    break;
+                case 3:
+                    filter.setPriceRange(500, 1500);
+                    break;
+                case 4:
+                    filter.setPriceRange(1500.01, EventFilter.NO_PRICE_LIMIT);
+                    break;
+                default:
+                    filter.clearPriceRange();
+            }
+            updateChip(chipPrice, "Price", which == 0 ? null : PRICE_OPTIONS[which]);
+        }));
+    }
+
+    private interface FilterChoice {
+        void onChosen(int which);
+    }
+
+    private void showFilterDialog(String title, String[] options, int checked, FilterChoice choice) {
+        new AlertDialog.Builder(this)
+                .setTitle(title)
+                .setSingleChoiceItems(options, checked, (dialog, which) -> {
+                    dialog.dismiss();
+                    choice.onChosen(which);
+                    onFilterChanged();
+                })
+                .show();
+    }
+
+    private void updateChip(Chip chip, String name, String selection) {
+        chip.setText(selection == null ? name : selection);
+        chip.setChecked(selection != null);
+    }
+
+    private void onFilterChanged() {
+        recyclerView.scrollToPosition(0);
+        loadEvents();
+        // Until the first download finishes the mirror may not hold the matches
+        // yet, so fetch the first filtered page from Firestore directly
+        if (eventSync.isSeeding() && !filter.isEmpty()) {
+            eventSync.fetchFiltered(filter, DatabaseHelper.EVENT_PAGE_SIZE, this::loadEvents);
+        }
+    }
+
+    private static long startOfDayAfter(long dayStart, int days) {
+        long time = dayStart;
+        for (int i = 0; i < days; i++) {
+            time = EventDateParser.startOfNextDay(time);
+        }
+        return time;
+    }
+
+    private void updateEmptyState() {
+        boolean empty = adapter.getItemCount() == 0;
+        if (tvEmptyState != null)
+            tvEmptyState.setVisibility(empty ? View.VISIBLE : View.GONE);
+        if (recyclerView != null)
+            recyclerView.setVisibility(empty ? View.GONE : View.VISIBLE);
     }
 
     private void setupClickListeners() {
@@ -170,8 +343,9 @@ public class UserDashboardActivity extends AppCompatActivity {
         // But I updated layout ID to btnSettings.
 
         navHome.setOnClickListener(v -> {
-            // Already on home, maybe refresh?
+            // Already on home; the list is kept live, so just go back to the first page
             loadEvents();
+            recyclerView.scrollToPosition(0);
         });
 
         navTicket.setOnClickListener(v -> {
@@ -200,9 +374,18 @@ public class UserDashboardActivity extends AppCompatActivity {
     }
 
     @Override
-    protected void onResume() {
-        super.onResume();
-        // Reload events when returning to dashboard
-        loadEvents();
+    protected void onStart() {
+        super.onStart();
+        if (mirrorLoaded) {
+            listenForChanges();
+        }
+    }
+
+    @Override
+    protected void onStop() {
+        super.onStop();
+        if (eventSync != null) {
+            eventSync.stopListening();
+        }
     }
 }
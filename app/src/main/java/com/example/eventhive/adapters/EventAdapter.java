@@ -16,16 +16,82 @@ import com.example.eventhive.activities.EventDetailsActivity;
 import com.example.eventhive.models.Event;
 
 import java.util.ArrayList;
+import java.util.Calendar;
 import java.util.List;
 
 public class EventAdapter extends RecyclerView.Adapter<EventAdapter.EventViewHolder> {
 
+    // Default distance, in rows from either end, at which the adjacent page is requested
+    private static final int LOAD_MORE_THRESHOLD = 5;
+
+    private static final String[] MONTHS = { "Jan", "Feb", "Mar", "Apr", "May", "Jun", "Jul", "Aug", "Sep", "Oct",
+            "Nov", "Dec" };
+
     private Context context;
     private List<Event> eventList;
+    private final EventChangeApplier changeApplier;
+    private final Calendar badgeCalendar = Calendar.getInstance();
+
+    private OnLoadMoreListener loadMoreListener;
+    private boolean loadingMore = false;
+    private boolean hasMore = true;
+
+    private OnLoadEarlierListener loadEarlierListener;
+    private boolean loadingEarlier = false;
+    private boolean hasEarlier = false;
+
+    private int prefetchDistance = LOAD_MORE_THRESHOLD;
+    private int maxRetainedRows = 0; // 0 keeps every loaded row
+
+    /**
+     * Callback used to request the page that follows the given event.
+     */
+    public interface OnLoadMoreListener {
+        void onLoadMore(Event lastEvent);
+    }
+
+    /**
+     * Callback used to request the page before the given event, after
+     * leading pages were dropped to stay within the retained-page cap.
+     */
+    public interface OnLoadEarlierListener {
+        void onLoadEarlier(Event firstEvent);
+    }
 
     public EventAdapter(Context context, List<Event> list) {
         this.context = context;
         this.eventList = new ArrayList<>(list);
+        this.changeApplier = new EventChangeApplier(eventList, new EventChangeApplier.Rows() {
+            @Override
+            public void notifyItemInserted(int position) {
+                EventAdapter.this.notifyItemInserted(position);
+            }
+
+            @Override
+            public void notifyItemMoved(int fromPosition, int toPosition) {
+                EventAdapter.this.notifyItemMoved(fromPosition, toPosition);
+            }
+
+            @Override
+            public void notifyItemChanged(int position) {
+                EventAdapter.this.notifyItemChanged(position);
+            }
+
+            @Override
+            public void notifyItemRemoved(int position) {
+                EventAdapter.this.notifyItemRemoved(position);
+            }
+
+            @Override
+            public boolean hasUnloadedAfter() {
+                return hasMore;
+            }
+
+            @Override
+            public boolean hasUnloadedBefore() {
+                return hasEarlier;
+            }
+        });
     }
 
     /**
@@ -40,6 +106,139 @@ public class EventAdapter extends RecyclerView.Adapter<EventAdapter.EventViewHol
         diffResult.dispatchUpdatesTo(this);
     }
 
+    /**
+     * Replaces the list with the first page of a paged feed.
+     *
+     * @param firstPage events of the first page, in feed order
+     * @param hasMore   false if there are no further pages
+     */
+    public void updateEvents(List<Event> firstPage, boolean hasMore) {
+        updateEvents(firstPage);
+        this.hasMore = hasMore;
+        this.hasEarlier = false;
+        this.loadingMore = false;
+        this.loadingEarlier = false;
+    }
+
+    /**
+     * Applies one realtime change keyed by Firestore id; see
+     * EventChangeApplier.
+     */
+    public void upsertEvent(Event event) {
+        changeApplier.upsert(event);
+    }
+
+    /**
+     * Removes the event with this Firestore id, if it is shown.
+     */
+    public void removeEvent(String firestoreId) {
+        changeApplier.remove(firestoreId);
+    }
+
+    /**
+     * Enables on-demand paging. The listener is called (at most once at a time)
+     * when a row near the end of the list is bound.
+     */
+    public void setOnLoadMoreListener(OnLoadMoreListener listener) {
+        this.loadMoreListener = listener;
+    }
+
+    /**
+     * Enables paging back towards the top once leading pages have been
+     * dropped by setMaxRetainedPages().
+     */
+    public void setOnLoadEarlierListener(OnLoadEarlierListener listener) {
+        this.loadEarlierListener = listener;
+    }
+
+    /**
+     * Sets how close to either end of the list, in rows, the user may scroll
+     * before the adjacent page is requested.
+     */
+    public void setPrefetchDistance(int rows) {
+        this.prefetchDistance = rows;
+    }
+
+    /**
+     * Caps how many pages are held at once. Loading past the cap drops pages
+     * from the opposite end; they are requested again if the user scrolls
+     * back to them.
+     */
+    public void setMaxRetainedPages(int pages, int pageSize) {
+        this.maxRetainedRows = pages * pageSize;
+    }
+
+    /**
+     * Marks the end of the list as not final, e.g. after new events were
+     * stored, so scrolling to it requests another page.
+     */
+    public void setHasMore(boolean hasMore) {
+        this.hasMore = hasMore;
+    }
+
+    /**
+     * Appends a page loaded by the OnLoadMoreListener.
+     *
+     * @param page    events of the page, in feed order
+     * @param hasMore false if this was the last page
+     */
+    public void appendEvents(List<Event> page, boolean hasMore) {
+        this.loadingMore = false;
+        this.hasMore = hasMore;
+        if (page.isEmpty()) {
+            return;
+        }
+        int start = eventList.size();
+        eventList.addAll(page);
+        notifyItemRangeInserted(start, page.size());
+
+        int excess = maxRetainedRows > 0 ? eventList.size() - maxRetainedRows : 0;
+        if (excess > 0) {
+            eventList.subList(0, excess).clear();
+            notifyItemRangeRemoved(0, excess);
+            hasEarlier = true;
+        }
+    }
+
+    /**
+     * Prepends a page loaded by the OnLoadEarlierListener, dropping rows from
+     * the end if that exceeds the retained-page cap.
+     *
+     * @param page       events of the page, in feed order
+     * @param hasEarlier false if this was the first page of the feed
+     */
+    public void prependEvents(List<Event> page, boolean hasEarlier) {
+        this.loadingEarlier = false;
+        this.hasEarlier = hasEarlier;
+        if (page.isEmpty()) {
+            return;
+        }
+        eventList.addAll(0, page);
+        notifyItemRangeInserted(0, page.size());
+
+        int excess = maxRetainedRows > 0 ? eventList.size() - maxRetainedRows : 0;
+        if (excess > 0) {
+            int keep = eventList.size() - excess;
+            eventList.subList(keep, eventList.size()).clear();
+            notifyItemRangeRemoved(keep, excess);
+            hasMore = true;
+        }
+    }
+
+    private void maybeLoadMore(int position) {
+        // One page request at a time, so a trim at one end cannot invalidate the other's anchor
+        if (eventList.isEmpty() || loadingMore || loadingEarlier) {
+            return;
+        }
+        if (loadMoreListener != null && hasMore && position >= eventList.size() - prefetchDistance) {
+            loadingMore = true;
+            loadMoreListener.onLoadMore(eventList.get(eventList.size() - 1));
+        } else if (loadEarlierListener != null && hasEarlier && position < prefetchDistance) {
+            loadingEarlier = true;
+            loadEarlierListener.onLoadEarlier(eventList.get(0));
+        }
+    }
+
     @NonNull
     @Override
     public EventViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
@@ -50,10 +249,15 @@ public class EventAdapter extends RecyclerView.Adapter<EventAdapter.EventViewHol
     @Override
     public void onBindViewHolder(@NonNull EventViewHolder holder, int position) {
         Event e = eventList.get(position);
+        maybeLoadMore(position);
 
-        // ===== NULL-SAFE Date Parsing for Badge =====
+        // ===== Date Badge: structured start time, legacy text as fallback =====
         String rawDate = e.getDate();
-        if (rawDate != null && !rawDate.isEmpty()) {
+        if (e.getStartAt() > 0) {
+            badgeCalendar.setTimeInMillis(e.getStartAt());
+            holder.tvDate.setText(String.valueOf(badgeCalendar.get(Calendar.DAY_OF_MONTH)));
+            holder.tvMonth.setText(MONTHS[badgeCalendar.get(Calendar.MONTH)]);
+        } else if (rawDate != null && !rawDate.isEmpty()) {
             String[] parts = rawDate.split(" ");
             if (parts.length >= 2) {
                 holder.tvDate.setText(parts[0]); // "12"
@@ -89,28 +293,25 @@ public class EventAdapter extends RecyclerView.Adapter<EventAdapter.EventViewHol
         // Placeholder organizer (would come from Event model if added)
         holder.tvOrganizer.setText("Prime Wave Communication");
 
-        // ===== NULL-SAFE Status =====
-        String status = e.getStatus();
-        if (status == null || status.isEmpty()) {
-            status = Event.STATUS_ACTIVE; // Default fallback
-        }
-        holder.tvStatus.setText(status);
+        Event.Status status = e.getEventStatus();
+        holder.tvStatus.setText(status.label);
 
-        // Set status badge color based on status
         // Set status badge color based on status
         int statusBgColor;
-        if (Event.STATUS_ACTIVE.equals(status)) {
-            statusBgColor = context.getResources().getColor(R.color.brand_primary, null);
-            holder.itemView.setAlpha(1.0f); // Full opacity
-        } else if (Event.STATUS_HOLD.equals(status)) {
-            statusBgColor = context.getResources().getColor(android.R.color.holo_orange_dark, null);
-            holder.itemView.setAlpha(1.0f); // Full opacity
-        } else if (Event.STATUS_CANCELLED.equals(status)) {
-            statusBgColor = context.getResources().getColor(R.color.destructive, null);
-            holder.itemView.setAlpha(0.6f); // Dimmed for cancelled
-        } else {
-            statusBgColor = context.getResources().getColor(R.color.brand_primary, null);
-            holder.itemView.setAlpha(1.0f);
+        switch (status) {
+            case HOLD:
+                statusBgColor = context.getResources().getColor(android.R.color.holo_orange_dark, null);
+                holder.itemView.setAlpha(1.0f); // Full opacity
+                break;
+            case CANCELLED:
+                statusBgColor = context.getResources().getColor(R.color.destructive, null);
+                holder.itemView.setAlpha(0.6f); // Dimmed for cancelled
+                break;
+            case ACTIVE:
+            default:
+                statusBgColor = context.getResources().getColor(R.color.brand_primary, null);
+                holder.itemView.setAlpha(1.0f); // Full opacity
+                break;
         }
         holder.tvStatus.setBackgroundColor(statusBgColor);
 
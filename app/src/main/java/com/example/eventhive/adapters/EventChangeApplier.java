@@ -0,0 +1,114 @@
+package com.example.eventhive.adapters;
+
+import com.example.eventhive.models.Event;
+
+import java.util.List;
+
+/**
+ * Applies realtime changes, keyed by Firestore id, to a list of events kept
+ * in feed order (start time, undated last). Only the row a change touches is
+ * reported, through Rows, so unchanged rows are not rebound.
+ *
+ * Rows is an interface so the logic can run without a RecyclerView.
+ */
+public class EventChangeApplier {
+
+    /**
+     * The view of the list. EventAdapter forwards the notify calls to
+     * RecyclerView.
+     */
+    public interface Rows {
+        void notifyItemInserted(int position);
+
+        void notifyItemMoved(int fromPosition, int toPosition);
+
+        void notifyItemChanged(int position);
+
+        void notifyItemRemoved(int position);
+
+        /** True if events after the last row exist but are not loaded */
+        boolean hasUnloadedAfter();
+
+        /** True if events before the first row exist but are not loaded */
+        boolean hasUnloadedBefore();
+    }
+
+    private final List<Event> events;
+    private final Rows rows;
+
+    /**
+     * @param events the list the rows show; changed in place
+     */
+    public EventChangeApplier(List<Event> events, Rows rows) {
+        this.events = events;
+        this.rows = rows;
+    }
+
+    /**
+     * Applies an added or modified event.
+     */
+    public void upsert(Event event) {
+        int oldPosition = indexOf(event.getFirestoreId());
+        if (oldPosition != -1) {
+            events.remove(oldPosition);
+        }
+        int position = feedPosition(event);
+        if ((position == events.size() && rows.hasUnloadedAfter())
+                || (position == 0 && rows.hasUnloadedBefore())) {
+            // Sorts into a page that is not loaded; it is read from the mirror when that page is
+            if (oldPosition != -1) {
+                rows.notifyItemRemoved(oldPosition);
+            }
+            return;
+        }
+        events.add(position, event);
+        if (oldPosition == -1) {
+            rows.notifyItemInserted(position);
+        } else {
+            if (oldPosition != position) {
+                rows.notifyItemMoved(oldPosition, position);
+            }
+            rows.notifyItemChanged(position);
+        }
+    }
+
+    /**
+     * Applies a removed event, if it is shown.
+     */
+    public void remove(String firestoreId) {
+        int position = indexOf(firestoreId);
+        if (position != -1) {
+            events.remove(position);
+            rows.notifyItemRemoved(position);
+        }
+    }
+
+    private int indexOf(String firestoreId) {
+        for (int i = 0; i < events.size(); i++) {
+            if (firestoreId.equals(events.get(i).getFirestoreId())) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    // Index after the last event that sorts at or before this one
+    private int feedPosition(Event event) {
+        int position = events.size();
+        while (position > 0 && compareFeedOrder(events.get(position - 1), event) > 0) {
+            position--;
+        }
+        return position;
+    }
+
+    // Same order as DatabaseHelper.getMirroredEventsPage()
+    private static int compareFeedOrder(Event a, Event b) {
+        boolean aUndated = a.getStartAt() <= 0;
+        boolean bUndated = b.getStartAt() <= 0;
+        if (aUndated != bUndated) {
+            return aUndated ? 1 : -1;
+        }
+        int byStart = Long.compare(a.getStartAt(), b.getStartAt());
+        return byStart != 0 ? byStart : a.getFirestoreId().compareTo(b.getFirestoreId());
+    }
+}
@@ -45,7 +45,7 @@ public class EventDiffCallback extends DiffUtil.Callback {
         return oldEvent.getTitle().equals(newEvent.getTitle()) &&
                 oldEvent.getDate().equals(newEvent.getDate()) &&
                 oldEvent.getLocation().equals(newEvent.getLocation()) &&
-                oldEvent.getStatus().equals(newEvent.getStatus()) &&
+                oldEvent.getEventStatus() == newEvent.getEventStatus() &&
                 oldEvent.getDescription().equals(newEvent.getDescription());
     }
 }
@@ -0,0 +1,31 @@
+package com.example.eventhive.databases;
+
+/**
+ * Progress callback for cascading deletes of an event or user and everything
+ * that references it. Local deletes report on the database writer thread,
+ * Firestore deletes on the main thread.
+ */
+public interface CascadeDeleteListener {
+    /**
+     * Called after each chunk of dependents is removed
+     *
+     * @param table   Table or collection the chunk was removed from
+     * @param deleted Rows or documents removed so far, across all tables
+     */
+    void onProgress(String table, int deleted);
+
+    /**
+     * Called once the parent row or document itself has been removed
+     *
+     * @param deleted Total rows or documents removed, including the parent
+     */
+    void onComplete(int deleted);
+
+    /**
+     * Called when a chunk fails. The delete stays pending and is resumed on
+     * the next start.
+     *
+     * @param reason What went wrong
+     */
+    void onFailed(String reason);
+}
@@ -3,19 +3,43 @@ package com.example.eventhive.databases;
 import android.content.ContentValues;
 import android.content.Context;
 import android.database.Cursor;
+import android.database.SQLException;
 import android.database.sqlite.SQLiteDatabase;
 import android.database.sqlite.SQLiteOpenHelper;
+import android.database.sqlite.SQLiteStatement;
 import com.example.eventhive.models.User;
 import com.example.eventhive.models.Event;
+import com.example.eventhive.models.EventFilter;
+import com.example.eventhive.models.EventImage;
+import com.example.eventhive.models.OutboxEntry;
 import com.example.eventhive.models.Ticket;
+import com.example.eventhive.utils.EventDateParser;
+import com.example.eventhive.utils.ImageStorageHelper;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 public class DatabaseHelper extends SQLiteOpenHelper {
 
     private static final String DATABASE_NAME = "EventHive.db";
-    private static final int DATABASE_VERSION = 6; // Incremented for user_uid support
+    private static final int DATABASE_VERSION = 21; // Incremented for the ticket sort and notification cascade indexes
+
+    // Number of events returned by one getEventsPage() call
+    public static final int EVENT_PAGE_SIZE = 20;
+
+    // Default age after an event ends at which its tickets move to tickets_archive
+    public static final long DEFAULT_ARCHIVE_HORIZON_MS = 30L * 24 * 60 * 60 * 1000;
 
     // Users Table
     private static final String TABLE_USERS = "users";
@@ -35,13 +59,20 @@ public class DatabaseHelper extends SQLiteOpenHelper {
     private static final String COL_EVENT_LOCATION = "location";
     private static final String COL_EVENT_DESC = "description";
     private static final String COL_EVENT_IMAGE = "image_res_id"; // Legacy field
-    private static final String COL_EVENT_STATUS = "status"; // Active, Hold, Cancelled
+    private static final String COL_EVENT_STATUS = "status"; // Legacy text, ignored since v12
+    private static final String COL_EVENT_STATUS_CODE = "status_code"; // Event.Status code
     // New event columns
     private static final String COL_EVENT_TICKET_PRICE = "ticket_price";
     private static final String COL_EVENT_TICKET_QUANTITY = "ticket_quantity";
     private static final String COL_EVENT_COVER_IMAGE_PATH = "cover_image_path";
     private static final String COL_EVENT_GALLERY_PATHS = "gallery_image_paths";
     private static final String COL_EVENT_TYPE = "event_type";
+    private static final String COL_EVENT_START_AT = "start_at"; // Epoch millis, 0 if date could not be parsed
+    private static final String COL_EVENT_END_AT = "end_at"; // Epoch millis, 0 if unknown
+    private static final String COL_EVENT_TYPE_CODE = "type_code"; // Event.EventType code
+    private static final String COL_EVENT_SOLD_COUNT = "sold_count"; // Maintained by ticket triggers
+    private static final String COL_EVENT_FIRESTORE_ID = "firestore_id"; // NULL for events created locally
+    private static final String COL_EVENT_ORGANIZER_ID = "organizer_id"; // Firebase UID, mirrored events only
 
     // Tickets Table
     private static final String TABLE_TICKETS = "tickets";
@@ -52,6 +83,45 @@ public class DatabaseHelper extends SQLiteOpenHelper {
     private static final String COL_TICKET_CODE = "unique_code";
     private static final String COL_TICKET_TIMESTAMP = "purchase_timestamp";
 
+    // Tickets of long-finished events, moved out of the hot tickets table.
+    // Same columns as tickets (ids are kept) plus when the row was moved.
+    private static final String TABLE_TICKETS_ARCHIVE = "tickets_archive";
+    private static final String COL_TICKET_ARCHIVED_AT = "archived_at";
+
+    // Cascading deletes still in progress, so they can resume after process death
+    private static final String TABLE_PENDING_DELETES = "pending_deletes";
+    private static final String COL_PENDING_ID = "id";
+    private static final String COL_PENDING_KIND = "kind"; // CASCADE_EVENT or CASCADE_USER
+    private static final String COL_PENDING_TARGET_ID = "target_id";
+    private static final String COL_PENDING_DELETED = "rows_deleted";
+    private static final String COL_PENDING_CREATED_AT = "created_at";
+    private static final String CASCADE_EVENT = "event";
+    private static final String CASCADE_USER = "user";
+
+    // Firestore mirror watermarks: newest updatedAt applied, one row per synced collection
+    private static final String TABLE_SYNC_STATE = "sync_state";
+    private static final String COL_SYNC_KEY = "sync_key";
+    private static final String COL_SYNC_WATERMARK = "watermark";
+
+    // Firestore writes waiting to be sent, oldest first
+    private static final String TABLE_OUTBOX = "outbox";
+    private static final String COL_OUTBOX_ID = "id";
+    private static final String COL_OUTBOX_USER_ID = "user_id";
+    private static final String COL_OUTBOX_KIND = "kind";
+    private static final String COL_OUTBOX_DOC_ID = "doc_id";
+    private static final String COL_OUTBOX_PAYLOAD = "payload";
+    private static final String COL_OUTBOX_CREATED_AT = "created_at";
+
+    // Event Images Table (one row per gallery image)
+    private static final String TABLE_EVENT_IMAGES = "event_images";
+    private static final String COL_IMAGE_ID = "id";
+    private static final String COL_IMAGE_EVENT_ID = "event_id";
+    private static final String COL_IMAGE_ORDINAL = "ordinal";
+    private static final String COL_IMAGE_PATH = "path";
+    private static final String COL_IMAGE_WIDTH = "width";
+    private static final String COL_IMAGE_HEIGHT = "height";
+    private static final String COL_IMAGE_BYTE_SIZE = "byte_size";
+
     // Notifications Table
     private static final String TABLE_NOTIFICATIONS = "notifications";
     private static final String COL_NOTIF_ID = "id";
@@ -63,8 +133,216 @@ public class DatabaseHelper extends SQLiteOpenHelper {
     private static final String COL_NOTIF_USER_UID = "user_uid"; // Firebase UID
     private static final String COL_NOTIF_RELATED_EVENT_ID = "related_event_id";
 
-    public DatabaseHelper(Context context) {
-        super(context, DATABASE_NAME, null, DATABASE_VERSION);
+    // Indexes
+    private static final String IDX_TICKETS_USER_UID = "idx_tickets_user_uid_ts"; // Replaced in v21
+    private static final String IDX_TICKETS_USER_UID_CODE = "idx_tickets_user_uid_ts_code";
+    private static final String IDX_TICKETS_USER_ID = "idx_tickets_user_id_ts";
+    private static final String IDX_TICKETS_EVENT_ID = "idx_tickets_event_id";
+    private static final String IDX_EVENTS_STATUS = "idx_events_status"; // Dropped in v12
+    private static final String IDX_EVENTS_ACTIVE_FEED = "idx_events_active_feed";
+    private static final String IDX_EVENTS_DATE_ID = "idx_events_date_id";
+    private static final String IDX_EVENTS_START_AT = "idx_events_start_at";
+    private static final String IDX_EVENTS_FIRESTORE_ID = "idx_events_firestore_id";
+    private static final String IDX_EVENTS_MIRROR_FEED = "idx_events_mirror_feed";
+    private static final String IDX_EVENTS_MIRROR_TYPE = "idx_events_mirror_type";
+    private static final String IDX_EVENTS_MIRROR_STATUS = "idx_events_mirror_status";
+    private static final String IDX_ARCHIVE_USER_UID = "idx_tickets_archive_user_uid_ts"; // Replaced in v21
+    private static final String IDX_ARCHIVE_USER_UID_CODE = "idx_tickets_archive_user_uid_ts_code";
+    private static final String IDX_ARCHIVE_USER_ID = "idx_tickets_archive_user_id_ts";
+    private static final String IDX_ARCHIVE_EVENT_ID = "idx_tickets_archive_event_id";
+    private static final String IDX_NOTIF_USER_UID = "idx_notifications_user_uid_ts";
+    private static final String IDX_NOTIF_USER_ID = "idx_notifications_user_id";
+    private static final String IDX_NOTIF_RELATED_EVENT = "idx_notifications_related_event_id";
+    private static final String IDX_EVENT_IMAGES_EVENT = "idx_event_images_event_ordinal";
+    private static final String IDX_OUTBOX_TICKET = "idx_outbox_ticket";
+
+    // Full-text search over events (FTS5 where available, FTS4 otherwise)
+    private static final String TABLE_EVENTS_FTS = "events_fts";
+    private static final String TRIGGER_EVENTS_FTS_INSERT = "events_fts_ai";
+    private static final String TRIGGER_EVENTS_FTS_DELETE = "events_fts_bd";
+    private static final String TRIGGER_EVENTS_FTS_UPDATE_OLD = "events_fts_bu";
+    private static final String TRIGGER_EVENTS_FTS_UPDATE_NEW = "events_fts_au";
+
+    // Triggers keeping events.sold_count equal to the event's ticket rows
+    private static final String TRIGGER_TICKETS_SOLD_INSERT = "tickets_sold_ai";
+    private static final String TRIGGER_TICKETS_SOLD_DELETE = "tickets_sold_ad";
+    private static final String TRIGGER_TICKETS_SOLD_UPDATE = "tickets_sold_au";
+
+    // Write statements kept compiled in statementPool
+    // Local events keep their gallery in event_images only, so these two leave the CSV column alone
+    private static final String SQL_INSERT_EVENT = "INSERT INTO " + TABLE_EVENTS + " (" +
+            COL_EVENT_TITLE + ", " + COL_EVENT_DATE + ", " + COL_EVENT_LOCATION + ", " + COL_EVENT_DESC + ", " +
+            COL_EVENT_IMAGE + ", " + COL_EVENT_STATUS_CODE + ", " + COL_EVENT_TICKET_PRICE + ", " +
+            COL_EVENT_TICKET_QUANTITY + ", " + COL_EVENT_COVER_IMAGE_PATH + ", " + COL_EVENT_TYPE + ", " +
+            COL_EVENT_START_AT + ", " + COL_EVENT_END_AT + ", " + COL_EVENT_TYPE_CODE +
+            ") VALUES (?, ?, ?, ?, 0, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String SQL_UPDATE_EVENT = "UPDATE " + TABLE_EVENTS + " SET " +
+            COL_EVENT_TITLE + " = ?, " + COL_EVENT_DATE + " = ?, " + COL_EVENT_LOCATION + " = ?, " +
+            COL_EVENT_DESC + " = ?, " + COL_EVENT_STATUS_CODE + " = ?, " + COL_EVENT_TICKET_PRICE + " = ?, " +
+            COL_EVENT_TICKET_QUANTITY + " = ?, " + COL_EVENT_COVER_IMAGE_PATH + " = ?, " +
+            COL_EVENT_TYPE + " = ?, " + COL_EVENT_START_AT + " = ?, " + COL_EVENT_END_AT + " = ?, " +
+            COL_EVENT_TYPE_CODE + " = ? WHERE " + COL_EVENT_ID + " = ?";
+    // Mirrored events have no event_images rows and keep the CSV from Firestore
+    private static final String SQL_INSERT_MIRRORED_EVENT = "INSERT INTO " + TABLE_EVENTS + " (" +
+            COL_EVENT_TITLE + ", " + COL_EVENT_DATE + ", " + COL_EVENT_LOCATION + ", " + COL_EVENT_DESC + ", " +
+            COL_EVENT_IMAGE + ", " + COL_EVENT_STATUS_CODE + ", " + COL_EVENT_TICKET_PRICE + ", " +
+            COL_EVENT_TICKET_QUANTITY + ", " + COL_EVENT_COVER_IMAGE_PATH + ", " + COL_EVENT_TYPE + ", " +
+            COL_EVENT_START_AT + ", " + COL_EVENT_END_AT + ", " + COL_EVENT_TYPE_CODE + ", " +
+            COL_EVENT_GALLERY_PATHS + ", " + COL_EVENT_ORGANIZER_ID + ", " + COL_EVENT_FIRESTORE_ID +
+            ") VALUES (?, ?, ?, ?, 0, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String SQL_UPDATE_MIRRORED_EVENT = "UPDATE " + TABLE_EVENTS + " SET " +
+            COL_EVENT_TITLE + " = ?, " + COL_EVENT_DATE + " = ?, " + COL_EVENT_LOCATION + " = ?, " +
+            COL_EVENT_DESC + " = ?, " + COL_EVENT_STATUS_CODE + " = ?, " + COL_EVENT_TICKET_PRICE + " = ?, " +
+            COL_EVENT_TICKET_QUANTITY + " = ?, " + COL_EVENT_COVER_IMAGE_PATH + " = ?, " +
+            COL_EVENT_TYPE + " = ?, " + COL_EVENT_START_AT + " = ?, " + COL_EVENT_END_AT + " = ?, " +
+            COL_EVENT_TYPE_CODE + " = ?, " + COL_EVENT_GALLERY_PATHS + " = ?, " + COL_EVENT_ORGANIZER_ID +
+            " = ? WHERE " + COL_EVENT_FIRESTORE_ID + " = ?";
+    private static final String SQL_EVENT_EXISTS = "SELECT COUNT(*) FROM " + TABLE_EVENTS + " WHERE " +
+            COL_EVENT_ID + " = ?";
+    private static final String SQL_INSERT_EVENT_IMAGE = "INSERT INTO " + TABLE_EVENT_IMAGES + " (" +
+            COL_IMAGE_EVENT_ID + ", " + COL_IMAGE_ORDINAL + ", " + COL_IMAGE_PATH + ", " + COL_IMAGE_WIDTH + ", " +
+            COL_IMAGE_HEIGHT + ", " + COL_IMAGE_BYTE_SIZE + ") VALUES (?, ?, ?, ?, ?, ?)";
+    private static final String SQL_INSERT_TICKET_USER_ID = "INSERT INTO " + TABLE_TICKETS + " (" +
+            COL_TICKET_USER_ID + ", " + COL_TICKET_EVENT_ID + ", " + COL_TICKET_CODE + ", " +
+            COL_TICKET_TIMESTAMP + ") VALUES (?, ?, ?, ?)";
+    private static final String SQL_INSERT_TICKET_USER_UID = "INSERT INTO " + TABLE_TICKETS + " (" +
+            COL_TICKET_USER_UID + ", " + COL_TICKET_EVENT_ID + ", " + COL_TICKET_CODE + ", " +
+            COL_TICKET_TIMESTAMP + ") VALUES (?, ?, ?, ?)";
+
+    // Background readers; WAL lets these run alongside the writer
+    private static final int READER_THREADS = 4;
+
+    private static DatabaseHelper instance;
+    private static StorageProfile storageProfile = StorageProfile.BALANCED;
+
+    private final StatementPool statementPool = new StatementPool();
+    private final ExecutorService writeExecutor = Executors.newSingleThreadExecutor();
+    private final ExecutorService readExecutor = Executors.newFixedThreadPool(READER_THREADS);
+    private final MigrationRunner migrations = buildMigrations();
+    private final AtomicBoolean backfillsStarted = new AtomicBoolean();
+    // pending_deletes rows whose cascade was already queued by deleteEvent()/deleteUser(); guarded by itself
+    private final Set<Long> queuedCascades = new HashSet<>();
+    private final StorageProfile profile;
+
+    /**
+     * Private so that getInstance() is the only way in: each helper owns a
+     * writer thread and a reader pool, and two helpers on one file would
+     * mean two writers.
+     */
+    private DatabaseHelper(Context context, String name, StorageProfile profile) {
+        super(context, name, null, DATABASE_VERSION);
+        this.profile = profile;
+    }
+
+    /**
+     * Opens a helper over its own database file, for instrumented tests and
+     * benchmarks that must not touch EventHive.db. Release it with
+     * closeForTest().
+     */
+    static DatabaseHelper openForTest(Context context, String name, StorageProfile profile) {
+        context.deleteDatabase(name);
+        return new DatabaseHelper(context.getApplicationContext(), name, profile);
+    }
+
+    /**
+     * Stops the threads of a helper from openForTest(), closes it and deletes
+     * its file.
+     */
+    void closeForTest(Context context) {
+        writeExecutor.shutdownNow();
+        readExecutor.shutdownNow();
+        close();
+        context.deleteDatabase(getDatabaseName());
+    }
+
+    /**
+     * Returns the process-wide helper.
+     */
+    public static synchronized DatabaseHelper getInstance(Context context) {
+        if (instance == null) {
+            instance = new DatabaseHelper(context.getApplicationContext(), DATABASE_NAME, storageProfile);
+        }
+        return instance;
+    }
+
+    /**
+     * Chooses the storage profile for helpers created after this call. Set it
+     * from Application.onCreate, before anything calls getInstance().
+     */
+    public static synchronized void setStorageProfile(StorageProfile profile) {
+        storageProfile = profile;
+    }
+
+    @Override
+    public void onConfigure(SQLiteDatabase db) {
+        super.onConfigure(db);
+        // page_size and auto_vacuum are ignored once the file is in WAL mode,
+        // so WAL is switched on here rather than in the constructor
+        if (db.getVersion() == 0) {
+            profile.applyToNewDatabase(db);
+        }
+        db.enableWriteAheadLogging();
+        // WAL is crash-safe with NORMAL sync; only the checkpoint needs fsync
+        db.execSQL("PRAGMA synchronous = NORMAL");
+        // onConfigure runs once per open, on the primary connection; the profile
+        // registers its per-connection PRAGMAs for the WAL readers where it can
+        profile.applyToConnections(db);
+        android.util.Log.d("DatabaseHelper", "Storage profile " + profile);
+    }
+
+    /**
+     * Reclaims free pages in bounded incremental_vacuum slices and refreshes
+     * planner statistics (ANALYZE on first run, PRAGMA optimize after), then
+     * records the run in maintenance_runs. Databases created before
+     * incremental auto_vacuum are converted with one full VACUUM if the
+     * storage profile asks for it.
+     *
+     * Slow on large files: call from the writer thread, normally through
+     * DatabaseMaintenanceService. Interrupting the thread stops it between
+     * slices.
+     */
+    public MaintenanceReport runMaintenance() {
+        return DatabaseMaintenance.run(this.getWritableDatabase(), profile.incrementalVacuum);
+    }
+
+    /**
+     * Runs a write on the single writer thread so writes never contend with
+     * each other for the database lock.
+     */
+    public Future<?> submitWrite(Runnable task) {
+        return writeExecutor.submit(task);
+    }
+
+    /**
+     * Blocks until a write from submitWrite() has finished and rethrows its
+     * failure. Must not be called on the writer thread.
+     */
+    private static void awaitWrite(Future<?> write) {
+        try {
+            write.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new SQLException("Write failed: " + e.getCause(), e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted waiting for a write", e);
+        }
+    }
+
+    /**
+     * Runs a read on the reader pool. With WAL enabled reads see the last
+     * committed state and are not blocked by an in-flight write.
+     */
+    public <T> Future<T> submitRead(Callable<T> task) {
+        return readExecutor.submit(task);
+    }
+
+    @Override
+    public synchronized void close() {
+        statementPool.releaseAll();
+        super.close();
     }
 
     @Override
@@ -79,6 +357,12 @@ public class DatabaseHelper extends SQLiteOpenHelper {
                 COL_USER_PHONE + " TEXT)";
         db.execSQL(createUsers);
 
+        // No legacy status text column here. Upgraded databases keep theirs
+        // because dropping a column needs SQLite 3.35 (API 34) or a table
+        // rebuild. Nothing writes it, so rows added since v12 carry only its
+        // 'Active' default. The row mapper falls back to it only while
+        // status_code is NULL, which no row is once the v12 backfill
+        // finishes, so both schemas read the same.
         String createEvents = "CREATE TABLE " + TABLE_EVENTS + " (" +
                 COL_EVENT_ID + " INTEGER PRIMARY KEY AUTOINCREMENT, " +
                 COL_EVENT_TITLE + " TEXT, " +
@@ -86,12 +370,18 @@ public class DatabaseHelper extends SQLiteOpenHelper {
                 COL_EVENT_LOCATION + " TEXT, " +
                 COL_EVENT_DESC + " TEXT, " +
                 COL_EVENT_IMAGE + " INTEGER, " +
-                COL_EVENT_STATUS + " TEXT DEFAULT 'Active', " +
+                COL_EVENT_STATUS_CODE + " INTEGER DEFAULT 0, " +
                 COL_EVENT_TICKET_PRICE + " REAL DEFAULT 0.0, " +
                 COL_EVENT_TICKET_QUANTITY + " INTEGER DEFAULT 0, " +
                 COL_EVENT_COVER_IMAGE_PATH + " TEXT, " +
                 COL_EVENT_GALLERY_PATHS + " TEXT, " +
-                COL_EVENT_TYPE + " TEXT DEFAULT 'Other')";
+                COL_EVENT_TYPE + " TEXT DEFAULT 'Other', " +
+                COL_EVENT_START_AT + " INTEGER, " +
+                COL_EVENT_END_AT + " INTEGER, " +
+                COL_EVENT_TYPE_CODE + " INTEGER DEFAULT 6, " +
+                COL_EVENT_SOLD_COUNT + " INTEGER DEFAULT 0, " +
+                COL_EVENT_FIRESTORE_ID + " TEXT, " +
+                COL_EVENT_ORGANIZER_ID + " TEXT)";
         db.execSQL(createEvents);
 
         String createTickets = "CREATE TABLE " + TABLE_TICKETS + " (" +
@@ -114,12 +404,217 @@ public class DatabaseHelper extends SQLiteOpenHelper {
                 COL_NOTIF_RELATED_EVENT_ID + " INTEGER DEFAULT 0)";
         db.execSQL(createNotifications);
 
+        createEventImagesTable(db);
+        createIndexes(db);
+        createEventSearchIndex(db);
+        createTicketsArchive(db);
+        createPendingDeletesTable(db);
+        createEventMirrorTables(db);
+        createMirrorFeedIndex(db);
+        createMirrorFilterIndexes(db);
+        createOutboxTable(db);
+        createSoldCountTriggers(db);
+        MigrationRunner.createTables(db);
+        DatabaseMaintenance.createTable(db);
+
         // Pre-populate some events
         insertDummyEvents(db);
+        backfillEventTimes(db, 0, BACKFILL_BATCH_SIZE);
         // Pre-populate default admin user
         insertDefaultUser(db);
     }
 
+    /**
+     * Creates every index for a fresh install. Upgrades build the same set
+     * version by version in buildMigrations().
+     */
+    private void createIndexes(SQLiteDatabase db) {
+        createLookupIndexes(db);
+        db.execSQL("CREATE INDEX IF NOT EXISTS " + IDX_EVENTS_DATE_ID + " ON " + TABLE_EVENTS + " (" +
+                COL_EVENT_DATE + ", " + COL_EVENT_ID + ")");
+        db.execSQL("CREATE INDEX IF NOT EXISTS " + IDX_EVENTS_START_AT + " ON " + TABLE_EVENTS + " (" +
+                COL_EVENT_START_AT + ", " + COL_EVENT_ID + ")");
+        db.execSQL("CREATE INDEX IF NOT EXISTS " + IDX_EVENT_IMAGES_EVENT + " ON " + TABLE_EVENT_IMAGES + " (" +
+                COL_IMAGE_EVENT_ID + ", " + COL_IMAGE_ORDINAL + ")");
+        createActiveFeedIndex(db);
+    }
+
+    /**
+     * Indexes backing the hot lookups: tickets by user (sorted by purchase
+     * time), tickets by event and notifications by user. The ticket indexes
+     * carry event_id and unique_code so the My Tickets query filters, sorts
+     * and joins from the index. The user_uid index holds the full
+     * getTicketsPage() order, sort code included, so the page is never
+     * sorted; it does not hold user_id, so SQLite still reads the table row
+     * for each matching ticket. The two notification indexes serve the
+     * cascade deletes. Added in v7, the sort code and notification indexes in
+     * v21.
+     */
+    private void createLookupIndexes(SQLiteDatabase db) {
+        db.execSQL("CREATE INDEX IF NOT EXISTS " + IDX_TICKETS_USER_UID_CODE + " ON " + TABLE_TICKETS + " (" +
+                COL_TICKET_USER_UID + ", " + COL_TICKET_TIMESTAMP + " DESC, " + TICKET_SORT_CODE + " DESC, " +
+                COL_TICKET_EVENT_ID + ", " + COL_TICKET_CODE + ")");
+        db.execSQL("CREATE INDEX IF NOT EXISTS " + IDX_TICKETS_USER_ID + " ON " + TABLE_TICKETS + " (" +
+                COL_TICKET_USER_ID + ", " + COL_TICKET_TIMESTAMP + " DESC, " +
+                COL_TICKET_EVENT_ID + ", " + COL_TICKET_CODE + ")");
+        db.execSQL("CREATE INDEX IF NOT EXISTS " + IDX_TICKETS_EVENT_ID + " ON " + TABLE_TICKETS + " (" +
+                COL_TICKET_EVENT_ID + ")");
+        db.execSQL("CREATE INDEX IF NOT EXISTS " + IDX_NOTIF_USER_UID + " ON " + TABLE_NOTIFICATIONS + " (" +
+                COL_NOTIF_USER_UID + ", " + COL_NOTIF_TIMESTAMP + " DESC, " + COL_NOTIF_IS_READ + ")");
+        db.execSQL("CREATE INDEX IF NOT EXISTS " + IDX_NOTIF_USER_ID + " ON " + TABLE_NOTIFICATIONS + " (" +
+                COL_NOTIF_USER_ID + ")");
+        db.execSQL("CREATE INDEX IF NOT EXISTS " + IDX_NOTIF_RELATED_EVENT + " ON " + TABLE_NOTIFICATIONS + " (" +
+                COL_NOTIF_RELATED_EVENT_ID + ")");
+    }
+
+    /**
+     * Partial index holding only Active events, keyed by start time and
+     * carrying every ACTIVE_FEED_COLUMNS column so the buyable-events feed is
+     * answered from the index alone.
+     */
+    private void createActiveFeedIndex(SQLiteDatabase db) {
+        db.execSQL("CREATE INDEX IF NOT EXISTS " + IDX_EVENTS_ACTIVE_FEED + " ON " + TABLE_EVENTS + " (" +
+                COL_EVENT_START_AT + ", " + COL_EVENT_ID + ", " + COL_EVENT_TITLE + ", " + COL_EVENT_DATE + ", " +
+                COL_EVENT_LOCATION + ", " + COL_EVENT_TICKET_PRICE + ", " + COL_EVENT_TICKET_QUANTITY + ", " +
+                COL_EVENT_COVER_IMAGE_PATH + ", " + COL_EVENT_TYPE + ", " + COL_EVENT_END_AT + ", " +
+                COL_EVENT_SOLD_COUNT + ")" +
+                " WHERE " + COL_EVENT_STATUS_CODE + " = " + Event.Status.ACTIVE.code);
+    }
+
+    private void createTicketsArchive(SQLiteDatabase db) {
+        db.execSQL("CREATE TABLE IF NOT EXISTS " + TABLE_TICKETS_ARCHIVE + " (" +
+                COL_TICKET_ID + " INTEGER PRIMARY KEY, " +
+                COL_TICKET_USER_ID + " INTEGER, " +
+                COL_TICKET_USER_UID + " TEXT, " +
+                COL_TICKET_EVENT_ID + " INTEGER, " +
+                COL_TICKET_CODE + " TEXT, " +
+                COL_TICKET_TIMESTAMP + " INTEGER DEFAULT 0, " +
+                COL_TICKET_ARCHIVED_AT + " INTEGER)");
+        db.execSQL("CREATE INDEX IF NOT EXISTS " + IDX_ARCHIVE_USER_UID_CODE + " ON " + TABLE_TICKETS_ARCHIVE + " (" +
+                COL_TICKET_USER_UID + ", " + COL_TICKET_TIMESTAMP + " DESC, " + TICKET_SORT_CODE + " DESC, " +
+                COL_TICKET_EVENT_ID + ", " + COL_TICKET_CODE + ")");
+        db.execSQL("CREATE INDEX IF NOT EXISTS " + IDX_ARCHIVE_USER_ID + " ON " + TABLE_TICKETS_ARCHIVE + " (" +
+                COL_TICKET_USER_ID + ", " + COL_TICKET_TIMESTAMP + " DESC, " +
+                COL_TICKET_EVENT_ID + ", " + COL_TICKET_CODE + ")");
+        db.execSQL("CREATE INDEX IF NOT EXISTS " + IDX_ARCHIVE_EVENT_ID + " ON " + TABLE_TICKETS_ARCHIVE + " (" +
+                COL_TICKET_EVENT_ID + ")");
+    }
+
+    private void createPendingDeletesTable(SQLiteDatabase db) {
+        db.execSQL("CREATE TABLE IF NOT EXISTS " + TABLE_PENDING_DELETES + " (" +
+                COL_PENDING_ID + " INTEGER PRIMARY KEY AUTOINCREMENT, " +
+                COL_PENDING_KIND + " TEXT NOT NULL, " +
+                COL_PENDING_TARGET_ID + " INTEGER NOT NULL, " +
+                COL_PENDING_DELETED + " INTEGER DEFAULT 0, " +
+                COL_PENDING_CREATED_AT + " INTEGER)");
+    }
+
+    // Unique so a document can only be mirrored once; local rows (NULL) are exempt
+    private void createEventMirrorTables(SQLiteDatabase db) {
+        db.execSQL("CREATE UNIQUE INDEX IF NOT EXISTS " + IDX_EVENTS_FIRESTORE_ID + " ON " + TABLE_EVENTS + " (" +
+                COL_EVENT_FIRESTORE_ID + ")");
+        db.execSQL("CREATE TABLE IF NOT EXISTS " + TABLE_SYNC_STATE + " (" +
+                COL_SYNC_KEY + " TEXT PRIMARY KEY, " +
+                COL_SYNC_WATERMARK + " INTEGER NOT NULL DEFAULT 0)");
+    }
+
+    // Keyset order of the mirrored feed; partial so local-only events are not indexed twice
+    private void createMirrorFeedIndex(SQLiteDatabase db) {
+        db.execSQL("CREATE INDEX IF NOT EXISTS " + IDX_EVENTS_MIRROR_FEED + " ON " + TABLE_EVENTS + " (" +
+                COL_EVENT_START_AT + ", " + COL_EVENT_FIRESTORE_ID + ") WHERE " + COL_EVENT_FIRESTORE_ID +
+                " IS NOT NULL");
+    }
+
+    // The feed order behind a type or status equality, for filtered mirror pages
+    private void createMirrorFilterIndexes(SQLiteDatabase db) {
+        db.execSQL("CREATE INDEX IF NOT EXISTS " + IDX_EVENTS_MIRROR_TYPE + " ON " + TABLE_EVENTS + " (" +
+                COL_EVENT_TYPE_CODE + ", " + COL_EVENT_START_AT + ", " + COL_EVENT_FIRESTORE_ID + ") WHERE " +
+                COL_EVENT_FIRESTORE_ID + " IS NOT NULL");
+        db.execSQL("CREATE INDEX IF NOT EXISTS " + IDX_EVENTS_MIRROR_STATUS + " ON " + TABLE_EVENTS + " (" +
+                COL_EVENT_STATUS_CODE + ", " + COL_EVENT_START_AT + ", " + COL_EVENT_FIRESTORE_ID + ") WHERE " +
+                COL_EVENT_FIRESTORE_ID + " IS NOT NULL");
+    }
+
+    // A ticket is queued at most once however often its purchase is retried
+    private void createOutboxTable(SQLiteDatabase db) {
+        db.execSQL("CREATE TABLE IF NOT EXISTS " + TABLE_OUTBOX + " (" +
+                COL_OUTBOX_ID + " INTEGER PRIMARY KEY AUTOINCREMENT, " +
+                COL_OUTBOX_USER_ID + " TEXT NOT NULL, " +
+                COL_OUTBOX_KIND + " TEXT NOT NULL, " +
+                COL_OUTBOX_DOC_ID + " TEXT NOT NULL, " +
+                COL_OUTBOX_PAYLOAD + " TEXT NOT NULL, " +
+                COL_OUTBOX_CREATED_AT + " INTEGER NOT NULL)");
+        db.execSQL("CREATE UNIQUE INDEX IF NOT EXISTS " + IDX_OUTBOX_TICKET + " ON " + TABLE_OUTBOX + " (" +
+                COL_OUTBOX_DOC_ID + ") WHERE " + COL_OUTBOX_KIND + " = '" + OutboxEntry.KIND_TICKET + "'");
+    }
+
+    /**
+     * Triggers that keep events.sold_count in step with the tickets table, so
+     * remaining capacity is a column read instead of a COUNT per event.
+     */
+    private void createSoldCountTriggers(SQLiteDatabase db) {
+        String increment = "UPDATE " + TABLE_EVENTS + " SET " + COL_EVENT_SOLD_COUNT + " = " + COL_EVENT_SOLD_COUNT
+                + " + 1 WHERE " + COL_EVENT_ID + " = new." + COL_TICKET_EVENT_ID + ";";
+        String decrement = "UPDATE " + TABLE_EVENTS + " SET " + COL_EVENT_SOLD_COUNT + " = " + COL_EVENT_SOLD_COUNT
+                + " - 1 WHERE " + COL_EVENT_ID + " = old." + COL_TICKET_EVENT_ID + ";";
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS " + TRIGGER_TICKETS_SOLD_INSERT + " AFTER INSERT ON " + TABLE_TICKETS
+                + " BEGIN " + increment + " END");
+        // Archiving deletes from tickets too, but an archived ticket is still sold
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS " + TRIGGER_TICKETS_SOLD_DELETE + " AFTER DELETE ON " + TABLE_TICKETS
+                + " WHEN NOT EXISTS (SELECT 1 FROM " + TABLE_TICKETS_ARCHIVE + " WHERE " + COL_TICKET_ID + " = old."
+                + COL_TICKET_ID + ") BEGIN " + decrement + " END");
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS " + TRIGGER_TICKETS_SOLD_UPDATE + " AFTER UPDATE OF "
+                + COL_TICKET_EVENT_ID + " ON " + TABLE_TICKETS + " WHEN old." + COL_TICKET_EVENT_ID
+                + " IS NOT new." + COL_TICKET_EVENT_ID + " BEGIN " + decrement + " " + increment + " END");
+    }
+
+    /**
+     * Creates the events_fts external-content index over title, location,
+     * description and event type, plus the triggers that keep it in sync with
+     * the events table. FTS5 is used when the platform SQLite has it, with
+     * FTS4 as the fallback.
+     */
+    private void createEventSearchIndex(SQLiteDatabase db) {
+        String columns = COL_EVENT_TITLE + ", " + COL_EVENT_LOCATION + ", " + COL_EVENT_DESC + ", " + COL_EVENT_TYPE;
+        String oldValues = "old." + COL_EVENT_TITLE + ", old." + COL_EVENT_LOCATION + ", old." + COL_EVENT_DESC
+                + ", old." + COL_EVENT_TYPE;
+        String newValues = "new." + COL_EVENT_TITLE + ", new." + COL_EVENT_LOCATION + ", new." + COL_EVENT_DESC
+                + ", new." + COL_EVENT_TYPE;
+
+        Boolean existingFts5 = readFts5Flag(db);
+        boolean fts5;
+        if (existingFts5 != null) {
+            fts5 = existingFts5;
+        } else {
+            try {
+                db.execSQL("CREATE VIRTUAL TABLE " + TABLE_EVENTS_FTS + " USING fts5(" + columns +
+                        ", content='" + TABLE_EVENTS + "', content_rowid='" + COL_EVENT_ID + "', prefix='2 3')");
+                fts5 = true;
+            } catch (SQLException e) {
+                db.execSQL("CREATE VIRTUAL TABLE " + TABLE_EVENTS_FTS + " USING fts4(" + columns +
+                        ", content=\"" + TABLE_EVENTS + "\", prefix=\"2,3\")");
+                fts5 = false;
+            }
+        }
+
+        // Removing a row from an external-content index needs the old column values
+        String deleteOld = fts5
+                ? "INSERT INTO " + TABLE_EVENTS_FTS + "(" + TABLE_EVENTS_FTS + ", rowid, " + columns +
+                        ") VALUES ('delete', old." + COL_EVENT_ID + ", " + oldValues + ");"
+                : "DELETE FROM " + TABLE_EVENTS_FTS + " WHERE docid = old." + COL_EVENT_ID + ";";
+        String insertNew = "INSERT INTO " + TABLE_EVENTS_FTS + "(rowid, " + columns + ") VALUES (new."
+                + COL_EVENT_ID + ", " + newValues + ");";
+
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS " + TRIGGER_EVENTS_FTS_INSERT + " AFTER INSERT ON " + TABLE_EVENTS +
+                " BEGIN " + insertNew + " END");
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS " + TRIGGER_EVENTS_FTS_DELETE + " BEFORE DELETE ON " + TABLE_EVENTS +
+                " BEGIN " + deleteOld + " END");
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS " + TRIGGER_EVENTS_FTS_UPDATE_OLD + " BEFORE UPDATE OF "
+                + columns + " ON " + TABLE_EVENTS + " BEGIN " + deleteOld + " END");
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS " + TRIGGER_EVENTS_FTS_UPDATE_NEW + " AFTER UPDATE OF "
+                + columns + " ON " + TABLE_EVENTS + " BEGIN " + insertNew + " END");
+    }
+
     private void insertDefaultUser(SQLiteDatabase db) {
         ContentValues values = new ContentValues();
         values.put(COL_USER_FNAME, "Admin");
@@ -131,6 +626,167 @@ public class DatabaseHelper extends SQLiteOpenHelper {
         db.insert(TABLE_USERS, null, values);
     }
 
+    private void createEventImagesTable(SQLiteDatabase db) {
+        db.execSQL("CREATE TABLE IF NOT EXISTS " + TABLE_EVENT_IMAGES + " (" +
+                COL_IMAGE_ID + " INTEGER PRIMARY KEY AUTOINCREMENT, " +
+                COL_IMAGE_EVENT_ID + " INTEGER NOT NULL, " +
+                COL_IMAGE_ORDINAL + " INTEGER NOT NULL, " +
+                COL_IMAGE_PATH + " TEXT NOT NULL, " +
+                COL_IMAGE_WIDTH + " INTEGER DEFAULT 0, " +
+                COL_IMAGE_HEIGHT + " INTEGER DEFAULT 0, " +
+                COL_IMAGE_BYTE_SIZE + " INTEGER DEFAULT 0)");
+    }
+
+    // Names of the resumable backfills scheduled by migration steps
+    private static final String BACKFILL_EVENT_TIMES = "event_times";
+    private static final String BACKFILL_GALLERY_PATHS = "gallery_paths";
+    private static final String BACKFILL_STATUS_CODES = "status_codes";
+    private static final String BACKFILL_SOLD_COUNTS = "sold_counts";
+
+    // Rows rewritten per backfill transaction
+    private static final int BACKFILL_BATCH_SIZE = 500;
+
+    /**
+     * Copies the comma-separated gallery_image_paths of the next batch of
+     * events into event_images. Width and height are left unknown (0) so the
+     * backfill does not decode any image files. Events that already have
+     * event_images rows were written after v11 and are skipped.
+     */
+    private long migrateGalleryPaths(SQLiteDatabase db, long lastId, int limit) {
+        SQLiteStatement insert = db.compileStatement(SQL_INSERT_EVENT_IMAGE);
+        Cursor cursor = db.rawQuery("SELECT " + COL_EVENT_ID + ", " + COL_EVENT_GALLERY_PATHS + " FROM "
+                + TABLE_EVENTS + " WHERE " + COL_EVENT_ID + " > ? AND " + COL_EVENT_GALLERY_PATHS
+                + " IS NOT NULL AND " + COL_EVENT_GALLERY_PATHS + " != '' AND NOT EXISTS (SELECT 1 FROM "
+                + TABLE_EVENT_IMAGES + " WHERE " + COL_IMAGE_EVENT_ID + " = " + TABLE_EVENTS + "."
+                + COL_EVENT_ID + ") ORDER BY " + COL_EVENT_ID
+                + " LIMIT " + limit, new String[] { String.valueOf(lastId) });
+        try {
+            while (cursor.moveToNext()) {
+                lastId = cursor.getLong(0);
+                int ordinal = 0;
+                for (String path : cursor.getString(1).split(",")) {
+                    path = path.trim();
+                    if (path.isEmpty()) {
+                        continue;
+                    }
+                    bindEventImage(insert, (int) lastId, ordinal++, path, 0, 0,
+                            ImageStorageHelper.getImageFileSize(path));
+                    insert.executeInsert();
+                }
+            }
+        } finally {
+            cursor.close();
+            insert.close();
+        }
+        return lastId;
+    }
+
+    /**
+     * Parses the legacy date text of the next batch of events whose start_at
+     * is still NULL. Unparseable dates are stored as 0 so each row is visited
+     * once.
+     */
+    private long backfillEventTimes(SQLiteDatabase db, long lastId, int limit) {
+        long now = System.currentTimeMillis();
+        SQLiteStatement update = db.compileStatement("UPDATE " + TABLE_EVENTS + " SET " + COL_EVENT_START_AT
+                + " = ?, " + COL_EVENT_END_AT + " = ? WHERE " + COL_EVENT_ID + " = ?");
+        Cursor cursor = db.rawQuery("SELECT " + COL_EVENT_ID + ", " + COL_EVENT_DATE + " FROM " + TABLE_EVENTS
+                + " WHERE " + COL_EVENT_ID + " > ? AND " + COL_EVENT_START_AT + " IS NULL ORDER BY "
+                + COL_EVENT_ID + " LIMIT " + limit, new String[] { String.valueOf(lastId) });
+        try {
+            while (cursor.moveToNext()) {
+                lastId = cursor.getLong(0);
+                long startAt = EventDateParser.parse(cursor.getString(1), now);
+                update.bindLong(1, startAt);
+                update.bindLong(2, endTimeFor(startAt));
+                update.bindLong(3, lastId);
+                update.executeUpdateDelete();
+            }
+        } finally {
+            cursor.close();
+            update.close();
+        }
+        return lastId;
+    }
+
+    /**
+     * Converts the legacy status/event_type text of the next batch of events
+     * into status_code/type_code and clears the status text. Every row gets
+     * a type_code. Only rows without a status_code take it from the text:
+     * rows written since v12 always bind status_code, while the legacy column
+     * hands them its 'Active' default, so their text says nothing.
+     */
+    private long backfillStatusCodes(SQLiteDatabase db, long lastId, int limit) {
+        long batchEnd = nextEventBatchEnd(db, lastId, limit);
+        if (batchEnd == lastId) {
+            return lastId;
+        }
+
+        StringBuilder statusCase = new StringBuilder("CASE WHEN " + COL_EVENT_STATUS_CODE + " IS NOT NULL THEN "
+                + COL_EVENT_STATUS_CODE);
+        for (Event.Status status : Event.Status.values()) {
+            statusCase.append(" WHEN " + COL_EVENT_STATUS + " = '").append(status.label).append("' THEN ").append(status.code);
+        }
+        statusCase.append(" ELSE ").append(Event.Status.ACTIVE.code).append(" END");
+        StringBuilder typeCase = new StringBuilder("CASE " + COL_EVENT_TYPE);
+        for (Event.EventType type : Event.EventType.values()) {
+            typeCase.append(" WHEN '").append(type.label).append("' THEN ").append(type.code);
+        }
+        typeCase.append(" ELSE ").append(Event.EventType.OTHER.code).append(" END");
+        db.execSQL("UPDATE " + TABLE_EVENTS + " SET " + COL_EVENT_STATUS_CODE + " = " + statusCase + ", "
+                + COL_EVENT_TYPE_CODE + " = " + typeCase + ", " + COL_EVENT_STATUS + " = NULL WHERE "
+                + COL_EVENT_ID + " > ? AND " + COL_EVENT_ID + " <= ?",
+                new Object[] { lastId, batchEnd });
+        return batchEnd;
+    }
+
+    /**
+     * Recounts sold_count for the next batch of events from their ticket
+     * rows.
+     */
+    private long reconcileSoldCounts(SQLiteDatabase db, long lastId, int limit) {
+        long batchEnd = nextEventBatchEnd(db, lastId, limit);
+        if (batchEnd != lastId) {
+            recountSoldCounts(db, lastId, batchEnd);
+        }
+        return batchEnd;
+    }
+
+    // Rewrites sold_count for events in (fromId, toId] where it has drifted; returns rows fixed
+    private static int recountSoldCounts(SQLiteDatabase db, long fromId, long toId) {
+        String count = "((SELECT COUNT(*) FROM " + TABLE_TICKETS + " WHERE " + TABLE_TICKETS + "."
+                + COL_TICKET_EVENT_ID + " = " + TABLE_EVENTS + "." + COL_EVENT_ID + ") + (SELECT COUNT(*) FROM "
+                + TABLE_TICKETS_ARCHIVE + " WHERE " + TABLE_TICKETS_ARCHIVE + "." + COL_TICKET_EVENT_ID + " = "
+                + TABLE_EVENTS + "." + COL_EVENT_ID + "))";
+        SQLiteStatement update = db.compileStatement("UPDATE " + TABLE_EVENTS + " SET " + COL_EVENT_SOLD_COUNT
+                + " = " + count + " WHERE " + COL_EVENT_ID + " > ? AND " + COL_EVENT_ID + " <= ? AND "
+                + COL_EVENT_SOLD_COUNT + " IS NOT " + count);
+        try {
+            update.bindLong(1, fromId);
+            update.bindLong(2, toId);
+            return update.executeUpdateDelete();
+        } finally {
+            update.close();
+        }
+    }
+
+    // Highest event id among the next limit ids after lastId, or lastId if there are none
+    private static long nextEventBatchEnd(SQLiteDatabase db, long lastId, int limit) {
+        Cursor cursor = db.rawQuery("SELECT MAX(" + COL_EVENT_ID + ") FROM (SELECT " + COL_EVENT_ID + " FROM "
+                + TABLE_EVENTS + " WHERE " + COL_EVENT_ID + " > ? ORDER BY " + COL_EVENT_ID + " LIMIT " + limit
+                + ")", new String[] { String.valueOf(lastId) });
+        try {
+            return cursor.moveToFirst() && !cursor.isNull(0) ? cursor.getLong(0) : lastId;
+        } finally {
+            cursor.close();
+        }
+    }
+
+    private static long endTimeFor(long startAt) {
+        return startAt != EventDateParser.UNKNOWN ? startAt + EventDateParser.DEFAULT_DURATION_MS
+                : EventDateParser.UNKNOWN;
+    }
+
     private void insertDummyEvents(SQLiteDatabase db) {
         db.execSQL("INSERT INTO " + TABLE_EVENTS + " (title, date, location, description, image_res_id) VALUES " +
                 "('WaveFest - Feel The Winter', '12 Dec - 10 PM', 'Bashundhara R/A, Dhaka', 'A music event bringing people together with electric energy.', 0)");
@@ -140,48 +796,285 @@ public class DatabaseHelper extends SQLiteOpenHelper {
 
     @Override
     public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
-        if (oldVersion < 4) {
-            try {
-                db.execSQL(
-                        "ALTER TABLE " + TABLE_EVENTS + " ADD COLUMN " + COL_EVENT_TICKET_PRICE + " REAL DEFAULT 0.0");
-                db.execSQL("ALTER TABLE " + TABLE_EVENTS + " ADD COLUMN " + COL_EVENT_TICKET_QUANTITY
-                        + " INTEGER DEFAULT 0");
-                db.execSQL("ALTER TABLE " + TABLE_EVENTS + " ADD COLUMN " + COL_EVENT_COVER_IMAGE_PATH + " TEXT");
-                db.execSQL("ALTER TABLE " + TABLE_EVENTS + " ADD COLUMN " + COL_EVENT_GALLERY_PATHS + " TEXT");
-                db.execSQL("ALTER TABLE " + TABLE_EVENTS + " ADD COLUMN " + COL_EVENT_TYPE + " TEXT DEFAULT 'Other'");
-                db.execSQL(
-                        "ALTER TABLE " + TABLE_TICKETS + " ADD COLUMN " + COL_TICKET_TIMESTAMP + " INTEGER DEFAULT 0");
-            } catch (Exception e) {
-                android.util.Log.e("DatabaseHelper", "Error during v3->v4 migration: " + e.getMessage());
-            }
+        migrations.migrate(db, oldVersion, newVersion);
+    }
+
+    @Override
+    public void onOpen(SQLiteDatabase db) {
+        super.onOpen(db);
+        if (!db.isReadOnly() && backfillsStarted.compareAndSet(false, true)) {
+            writeExecutor.execute(() -> {
+                try {
+                    migrations.runBackfills(getWritableDatabase(), BACKFILL_BATCH_SIZE);
+                } catch (RuntimeException e) {
+                    // Progress is saved per chunk; the next launch picks up from here
+                    android.util.Log.e("DatabaseHelper", "Backfill interrupted: " + e.getMessage());
+                }
+                try {
+                    resumePendingDeletes();
+                } catch (RuntimeException e) {
+                    android.util.Log.e("DatabaseHelper", "Cascade delete interrupted: " + e.getMessage());
+                }
+            });
         }
+    }
 
-        if (oldVersion < 5) {
-            try {
-                String createNotifications = "CREATE TABLE " + TABLE_NOTIFICATIONS + " (" +
+    /**
+     * Schema history. Every step is transactional and must be safe to re-run
+     * over a schema an older release only partly applied. Per-row data
+     * rewrites go in a backfill so they run after open instead of blocking it.
+     *
+     * Each step spells out the DDL of its own version instead of calling the
+     * create helpers onCreate() uses, so changing today's schema never changes
+     * what an old upgrade does. Later changes get a new step.
+     */
+    private MigrationRunner buildMigrations() {
+        return new MigrationRunner()
+                .step(4, "Ticket pricing, media and event type", db -> {
+                    MigrationRunner.addColumnIfMissing(db, TABLE_EVENTS, COL_EVENT_TICKET_PRICE, "REAL DEFAULT 0.0");
+                    MigrationRunner.addColumnIfMissing(db, TABLE_EVENTS, COL_EVENT_TICKET_QUANTITY,
+                            "INTEGER DEFAULT 0");
+                    MigrationRunner.addColumnIfMissing(db, TABLE_EVENTS, COL_EVENT_COVER_IMAGE_PATH, "TEXT");
+                    MigrationRunner.addColumnIfMissing(db, TABLE_EVENTS, COL_EVENT_GALLERY_PATHS, "TEXT");
+                    MigrationRunner.addColumnIfMissing(db, TABLE_EVENTS, COL_EVENT_TYPE, "TEXT DEFAULT 'Other'");
+                    MigrationRunner.addColumnIfMissing(db, TABLE_TICKETS, COL_TICKET_TIMESTAMP, "INTEGER DEFAULT 0");
+                })
+                .step(5, "Notifications table", db -> db.execSQL("CREATE TABLE IF NOT EXISTS " +
+                        TABLE_NOTIFICATIONS + " (" +
                         COL_NOTIF_ID + " INTEGER PRIMARY KEY AUTOINCREMENT, " +
                         COL_NOTIF_TITLE + " TEXT, " +
                         COL_NOTIF_MESSAGE + " TEXT, " +
                         COL_NOTIF_TIMESTAMP + " INTEGER, " +
                         COL_NOTIF_IS_READ + " INTEGER DEFAULT 0, " +
                         COL_NOTIF_USER_ID + " INTEGER, " +
-                        COL_NOTIF_RELATED_EVENT_ID + " INTEGER DEFAULT 0)";
-                db.execSQL(createNotifications);
-            } catch (Exception e) {
-                android.util.Log.e("DatabaseHelper", "Error during v4->v5 migration: " + e.getMessage());
-            }
-        }
+                        COL_NOTIF_RELATED_EVENT_ID + " INTEGER DEFAULT 0)"))
+                .step(6, "Firebase user uids", db -> {
+                    MigrationRunner.addColumnIfMissing(db, TABLE_TICKETS, COL_TICKET_USER_UID, "TEXT");
+                    MigrationRunner.addColumnIfMissing(db, TABLE_NOTIFICATIONS, COL_NOTIF_USER_UID, "TEXT");
+                })
+                .step(7, "Ticket and notification lookup indexes", db -> {
+                    db.execSQL("CREATE INDEX IF NOT EXISTS " + IDX_TICKETS_USER_UID + " ON " + TABLE_TICKETS + " ("
+                            + COL_TICKET_USER_UID + ", " + COL_TICKET_TIMESTAMP + " DESC, " + COL_TICKET_EVENT_ID
+                            + ", " + COL_TICKET_CODE + ")");
+                    db.execSQL("CREATE INDEX IF NOT EXISTS " + IDX_TICKETS_USER_ID + " ON " + TABLE_TICKETS + " ("
+                            + COL_TICKET_USER_ID + ", " + COL_TICKET_TIMESTAMP + " DESC, " + COL_TICKET_EVENT_ID
+                            + ", " + COL_TICKET_CODE + ")");
+                    db.execSQL("CREATE INDEX IF NOT EXISTS " + IDX_TICKETS_EVENT_ID + " ON " + TABLE_TICKETS + " ("
+                            + COL_TICKET_EVENT_ID + ")");
+                    db.execSQL("CREATE INDEX IF NOT EXISTS " + IDX_NOTIF_USER_UID + " ON " + TABLE_NOTIFICATIONS
+                            + " (" + COL_NOTIF_USER_UID + ", " + COL_NOTIF_TIMESTAMP + " DESC, " + COL_NOTIF_IS_READ
+                            + ")");
+                })
+                .step(8, "Event date keyset index", db -> db.execSQL("CREATE INDEX IF NOT EXISTS " +
+                        IDX_EVENTS_DATE_ID + " ON " + TABLE_EVENTS + " (" + COL_EVENT_DATE + ", " + COL_EVENT_ID + ")"))
+                .step(9, "Event full-text index", db -> {
+                    boolean fts5 = createV9SearchTable(db);
+                    String[] sync = v9SearchSyncStatements(fts5);
+                    db.execSQL("CREATE TRIGGER IF NOT EXISTS " + TRIGGER_EVENTS_FTS_INSERT + " AFTER INSERT ON "
+                            + TABLE_EVENTS + " BEGIN " + sync[1] + " END");
+                    db.execSQL("CREATE TRIGGER IF NOT EXISTS " + TRIGGER_EVENTS_FTS_DELETE + " BEFORE DELETE ON "
+                            + TABLE_EVENTS + " BEGIN " + sync[0] + " END");
+                    db.execSQL("CREATE TRIGGER IF NOT EXISTS " + TRIGGER_EVENTS_FTS_UPDATE_OLD + " BEFORE UPDATE ON "
+                            + TABLE_EVENTS + " BEGIN " + sync[0] + " END");
+                    db.execSQL("CREATE TRIGGER IF NOT EXISTS " + TRIGGER_EVENTS_FTS_UPDATE_NEW + " AFTER UPDATE ON "
+                            + TABLE_EVENTS + " BEGIN " + sync[1] + " END");
+                    // A single statement; FTS cannot rebuild part of an index
+                    db.execSQL("INSERT INTO " + TABLE_EVENTS_FTS + "(" + TABLE_EVENTS_FTS + ") VALUES ('rebuild')");
+                })
+                .step(10, "Epoch start/end times", db -> {
+                    MigrationRunner.addColumnIfMissing(db, TABLE_EVENTS, COL_EVENT_START_AT, "INTEGER");
+                    MigrationRunner.addColumnIfMissing(db, TABLE_EVENTS, COL_EVENT_END_AT, "INTEGER");
+                    db.execSQL("CREATE INDEX IF NOT EXISTS " + IDX_EVENTS_START_AT + " ON " + TABLE_EVENTS + " (" +
+                            COL_EVENT_START_AT + ", " + COL_EVENT_ID + ")");
+                    // Narrow the v9 FTS update triggers so non-text updates skip reindexing
+                    String[] sync = v9SearchSyncStatements(Boolean.TRUE.equals(readFts5Flag(db)));
+                    String columns = COL_EVENT_TITLE + ", " + COL_EVENT_LOCATION + ", " + COL_EVENT_DESC + ", "
+                            + COL_EVENT_TYPE;
+                    db.execSQL("DROP TRIGGER IF EXISTS " + TRIGGER_EVENTS_FTS_UPDATE_OLD);
+                    db.execSQL("DROP TRIGGER IF EXISTS " + TRIGGER_EVENTS_FTS_UPDATE_NEW);
+                    db.execSQL("CREATE TRIGGER " + TRIGGER_EVENTS_FTS_UPDATE_OLD + " BEFORE UPDATE OF " + columns
+                            + " ON " + TABLE_EVENTS + " BEGIN " + sync[0] + " END");
+                    db.execSQL("CREATE TRIGGER " + TRIGGER_EVENTS_FTS_UPDATE_NEW + " AFTER UPDATE OF " + columns
+                            + " ON " + TABLE_EVENTS + " BEGIN " + sync[1] + " END");
+                    MigrationRunner.schedule(db, BACKFILL_EVENT_TIMES);
+                })
+                .step(11, "Normalized event images", db -> {
+                    db.execSQL("CREATE TABLE IF NOT EXISTS " + TABLE_EVENT_IMAGES + " (" +
+                            COL_IMAGE_ID + " INTEGER PRIMARY KEY AUTOINCREMENT, " +
+                            COL_IMAGE_EVENT_ID + " INTEGER NOT NULL, " +
+                            COL_IMAGE_ORDINAL + " INTEGER NOT NULL, " +
+                            COL_IMAGE_PATH + " TEXT NOT NULL, " +
+                            COL_IMAGE_WIDTH + " INTEGER DEFAULT 0, " +
+                            COL_IMAGE_HEIGHT + " INTEGER DEFAULT 0, " +
+                            COL_IMAGE_BYTE_SIZE + " INTEGER DEFAULT 0)");
+                    db.execSQL("CREATE INDEX IF NOT EXISTS " + IDX_EVENT_IMAGES_EVENT + " ON " + TABLE_EVENT_IMAGES
+                            + " (" + COL_IMAGE_EVENT_ID + ", " + COL_IMAGE_ORDINAL + ")");
+                    MigrationRunner.schedule(db, BACKFILL_GALLERY_PATHS);
+                })
+                .step(12, "Integer status and type codes", db -> {
+                    // No default: rows stay out of the Active index until their code is backfilled
+                    MigrationRunner.addColumnIfMissing(db, TABLE_EVENTS, COL_EVENT_STATUS_CODE, "INTEGER");
+                    MigrationRunner.addColumnIfMissing(db, TABLE_EVENTS, COL_EVENT_TYPE_CODE, "INTEGER DEFAULT 6");
+                    db.execSQL("DROP INDEX IF EXISTS " + IDX_EVENTS_STATUS);
+                    // v12 shape of the index; v13 rebuilds it with sold_count
+                    db.execSQL("CREATE INDEX IF NOT EXISTS " + IDX_EVENTS_ACTIVE_FEED + " ON " + TABLE_EVENTS + " ("
+                            + COL_EVENT_START_AT + ", " + COL_EVENT_ID + ", " + COL_EVENT_TITLE + ", "
+                            + COL_EVENT_DATE + ", " + COL_EVENT_LOCATION + ", " + COL_EVENT_TICKET_PRICE + ", "
+                            + COL_EVENT_TICKET_QUANTITY + ", " + COL_EVENT_COVER_IMAGE_PATH + ", " + COL_EVENT_TYPE
+                            + ", " + COL_EVENT_END_AT + ") WHERE " + COL_EVENT_STATUS_CODE + " = "
+                            + Event.Status.ACTIVE.code);
+                    MigrationRunner.schedule(db, BACKFILL_STATUS_CODES);
+                })
+                .step(13, "Trigger-maintained sold counts", db -> {
+                    MigrationRunner.addColumnIfMissing(db, TABLE_EVENTS, COL_EVENT_SOLD_COUNT, "INTEGER DEFAULT 0");
+                    String increment = "UPDATE " + TABLE_EVENTS + " SET " + COL_EVENT_SOLD_COUNT + " = "
+                            + COL_EVENT_SOLD_COUNT + " + 1 WHERE " + COL_EVENT_ID + " = new." + COL_TICKET_EVENT_ID
+                            + ";";
+                    String decrement = "UPDATE " + TABLE_EVENTS + " SET " + COL_EVENT_SOLD_COUNT + " = "
+                            + COL_EVENT_SOLD_COUNT + " - 1 WHERE " + COL_EVENT_ID + " = old." + COL_TICKET_EVENT_ID
+                            + ";";
+                    db.execSQL("CREATE TRIGGER IF NOT EXISTS " + TRIGGER_TICKETS_SOLD_INSERT + " AFTER INSERT ON "
+                            + TABLE_TICKETS + " BEGIN " + increment + " END");
+                    db.execSQL("CREATE TRIGGER IF NOT EXISTS " + TRIGGER_TICKETS_SOLD_DELETE + " AFTER DELETE ON "
+                            + TABLE_TICKETS + " BEGIN " + decrement + " END");
+                    db.execSQL("CREATE TRIGGER IF NOT EXISTS " + TRIGGER_TICKETS_SOLD_UPDATE + " AFTER UPDATE OF "
+                            + COL_TICKET_EVENT_ID + " ON " + TABLE_TICKETS + " WHEN old." + COL_TICKET_EVENT_ID
+                            + " IS NOT new." + COL_TICKET_EVENT_ID + " BEGIN " + decrement + " " + increment + " END");
+                    db.execSQL("DROP INDEX IF EXISTS " + IDX_EVENTS_ACTIVE_FEED);
+                    db.execSQL("CREATE INDEX " + IDX_EVENTS_ACTIVE_FEED + " ON " + TABLE_EVENTS + " ("
+                            + COL_EVENT_START_AT + ", " + COL_EVENT_ID + ", " + COL_EVENT_TITLE + ", "
+                            + COL_EVENT_DATE + ", " + COL_EVENT_LOCATION + ", " + COL_EVENT_TICKET_PRICE + ", "
+                            + COL_EVENT_TICKET_QUANTITY + ", " + COL_EVENT_COVER_IMAGE_PATH + ", " + COL_EVENT_TYPE
+                            + ", " + COL_EVENT_END_AT + ", " + COL_EVENT_SOLD_COUNT + ") WHERE "
+                            + COL_EVENT_STATUS_CODE + " = 0");
+                    MigrationRunner.schedule(db, BACKFILL_SOLD_COUNTS);
+                })
+                .step(14, "Maintenance run log", db -> db.execSQL("CREATE TABLE IF NOT EXISTS "
+                        + DatabaseMaintenance.TABLE_RUNS + " (" +
+                        "id INTEGER PRIMARY KEY AUTOINCREMENT, " +
+                        "ran_at INTEGER, " +
+                        "reclaimed_bytes INTEGER, " +
+                        "free_pages_left INTEGER, " +
+                        "vacuum_ms INTEGER, " +
+                        "analyze_ms INTEGER, " +
+                        "converted INTEGER DEFAULT 0, " +
+                        "interrupted INTEGER DEFAULT 0)"))
+                .step(15, "Ticket archive", db -> {
+                    db.execSQL("CREATE TABLE IF NOT EXISTS " + TABLE_TICKETS_ARCHIVE + " (" +
+                            COL_TICKET_ID + " INTEGER PRIMARY KEY, " +
+                            COL_TICKET_USER_ID + " INTEGER, " +
+                            COL_TICKET_USER_UID + " TEXT, " +
+                            COL_TICKET_EVENT_ID + " INTEGER, " +
+                            COL_TICKET_CODE + " TEXT, " +
+                            COL_TICKET_TIMESTAMP + " INTEGER DEFAULT 0, " +
+                            COL_TICKET_ARCHIVED_AT + " INTEGER)");
+                    db.execSQL("CREATE INDEX IF NOT EXISTS " + IDX_ARCHIVE_USER_UID + " ON " + TABLE_TICKETS_ARCHIVE
+                            + " (" + COL_TICKET_USER_UID + ", " + COL_TICKET_TIMESTAMP + " DESC, "
+                            + COL_TICKET_EVENT_ID + ", " + COL_TICKET_CODE + ")");
+                    db.execSQL("CREATE INDEX IF NOT EXISTS " + IDX_ARCHIVE_USER_ID + " ON " + TABLE_TICKETS_ARCHIVE
+                            + " (" + COL_TICKET_USER_ID + ", " + COL_TICKET_TIMESTAMP + " DESC, "
+                            + COL_TICKET_EVENT_ID + ", " + COL_TICKET_CODE + ")");
+                    db.execSQL("CREATE INDEX IF NOT EXISTS " + IDX_ARCHIVE_EVENT_ID + " ON " + TABLE_TICKETS_ARCHIVE
+                            + " (" + COL_TICKET_EVENT_ID + ")");
+                    // Recreate the delete trigger so archiving does not count as a refund
+                    db.execSQL("DROP TRIGGER IF EXISTS " + TRIGGER_TICKETS_SOLD_DELETE);
+                    db.execSQL("CREATE TRIGGER " + TRIGGER_TICKETS_SOLD_DELETE + " AFTER DELETE ON " + TABLE_TICKETS
+                            + " WHEN NOT EXISTS (SELECT 1 FROM " + TABLE_TICKETS_ARCHIVE + " WHERE " + COL_TICKET_ID
+                            + " = old." + COL_TICKET_ID + ") BEGIN UPDATE " + TABLE_EVENTS + " SET "
+                            + COL_EVENT_SOLD_COUNT + " = " + COL_EVENT_SOLD_COUNT + " - 1 WHERE " + COL_EVENT_ID
+                            + " = old." + COL_TICKET_EVENT_ID + "; END");
+                })
+                .step(16, "Pending cascade deletes", db -> db.execSQL("CREATE TABLE IF NOT EXISTS "
+                        + TABLE_PENDING_DELETES + " (" +
+                        COL_PENDING_ID + " INTEGER PRIMARY KEY AUTOINCREMENT, " +
+                        COL_PENDING_KIND + " TEXT NOT NULL, " +
+                        COL_PENDING_TARGET_ID + " INTEGER NOT NULL, " +
+                        COL_PENDING_DELETED + " INTEGER DEFAULT 0, " +
+                        COL_PENDING_CREATED_AT + " INTEGER)"))
+                .step(17, "Firestore event mirror", db -> {
+                    MigrationRunner.addColumnIfMissing(db, TABLE_EVENTS, COL_EVENT_FIRESTORE_ID, "TEXT");
+                    MigrationRunner.addColumnIfMissing(db, TABLE_EVENTS, COL_EVENT_ORGANIZER_ID, "TEXT");
+                    db.execSQL("CREATE UNIQUE INDEX IF NOT EXISTS " + IDX_EVENTS_FIRESTORE_ID + " ON " + TABLE_EVENTS
+                            + " (" + COL_EVENT_FIRESTORE_ID + ")");
+                    db.execSQL("CREATE TABLE IF NOT EXISTS " + TABLE_SYNC_STATE + " (" +
+                            COL_SYNC_KEY + " TEXT PRIMARY KEY, " +
+                            COL_SYNC_WATERMARK + " INTEGER NOT NULL DEFAULT 0)");
+                })
+                .step(18, "Mirror feed index", db -> db.execSQL("CREATE INDEX IF NOT EXISTS "
+                        + IDX_EVENTS_MIRROR_FEED + " ON " + TABLE_EVENTS + " (" + COL_EVENT_START_AT + ", "
+                        + COL_EVENT_FIRESTORE_ID + ") WHERE " + COL_EVENT_FIRESTORE_ID + " IS NOT NULL"))
+                .step(19, "Mirror filter indexes", db -> {
+                    db.execSQL("CREATE INDEX IF NOT EXISTS " + IDX_EVENTS_MIRROR_TYPE + " ON " + TABLE_EVENTS + " ("
+                            + COL_EVENT_TYPE_CODE + ", " + COL_EVENT_START_AT + ", " + COL_EVENT_FIRESTORE_ID
+                            + ") WHERE " + COL_EVENT_FIRESTORE_ID + " IS NOT NULL");
+                    db.execSQL("CREATE INDEX IF NOT EXISTS " + IDX_EVENTS_MIRROR_STATUS + " ON " + TABLE_EVENTS
+                            + " (" + COL_EVENT_STATUS_CODE + ", " + COL_EVENT_START_AT + ", "
+                            + COL_EVENT_FIRESTORE_ID + ") WHERE " + COL_EVENT_FIRESTORE_ID + " IS NOT NULL");
+                })
+                .step(20, "Firestore write outbox", db -> {
+                    db.execSQL("CREATE TABLE IF NOT EXISTS " + TABLE_OUTBOX + " (" +
+                            COL_OUTBOX_ID + " INTEGER PRIMARY KEY AUTOINCREMENT, " +
+                            COL_OUTBOX_USER_ID + " TEXT NOT NULL, " +
+                            COL_OUTBOX_KIND + " TEXT NOT NULL, " +
+                            COL_OUTBOX_DOC_ID + " TEXT NOT NULL, " +
+                            COL_OUTBOX_PAYLOAD + " TEXT NOT NULL, " +
+                            COL_OUTBOX_CREATED_AT + " INTEGER NOT NULL)");
+                    db.execSQL("CREATE UNIQUE INDEX IF NOT EXISTS " + IDX_OUTBOX_TICKET + " ON " + TABLE_OUTBOX
+                            + " (" + COL_OUTBOX_DOC_ID + ") WHERE " + COL_OUTBOX_KIND + " = 'ticket'");
+                })
+                .step(21, "Ticket sort code and notification cascade indexes", db -> {
+                    db.execSQL("DROP INDEX IF EXISTS " + IDX_TICKETS_USER_UID);
+                    db.execSQL("CREATE INDEX IF NOT EXISTS " + IDX_TICKETS_USER_UID_CODE + " ON " + TABLE_TICKETS
+                            + " (" + COL_TICKET_USER_UID + ", " + COL_TICKET_TIMESTAMP + " DESC, IFNULL("
+                            + COL_TICKET_CODE + ", '') DESC, " + COL_TICKET_EVENT_ID + ", " + COL_TICKET_CODE + ")");
+                    db.execSQL("DROP INDEX IF EXISTS " + IDX_ARCHIVE_USER_UID);
+                    db.execSQL("CREATE INDEX IF NOT EXISTS " + IDX_ARCHIVE_USER_UID_CODE + " ON "
+                            + TABLE_TICKETS_ARCHIVE + " (" + COL_TICKET_USER_UID + ", " + COL_TICKET_TIMESTAMP
+                            + " DESC, IFNULL(" + COL_TICKET_CODE + ", '') DESC, " + COL_TICKET_EVENT_ID + ", "
+                            + COL_TICKET_CODE + ")");
+                    db.execSQL("CREATE INDEX IF NOT EXISTS " + IDX_NOTIF_USER_ID + " ON " + TABLE_NOTIFICATIONS
+                            + " (" + COL_NOTIF_USER_ID + ")");
+                    db.execSQL("CREATE INDEX IF NOT EXISTS " + IDX_NOTIF_RELATED_EVENT + " ON " + TABLE_NOTIFICATIONS
+                            + " (" + COL_NOTIF_RELATED_EVENT_ID + ")");
+                })
+                .backfill(BACKFILL_EVENT_TIMES, this::backfillEventTimes)
+                .backfill(BACKFILL_GALLERY_PATHS, this::migrateGalleryPaths)
+                .backfill(BACKFILL_STATUS_CODES, this::backfillStatusCodes)
+                .backfill(BACKFILL_SOLD_COUNTS, this::reconcileSoldCounts);
+    }
 
-        if (oldVersion < 6) {
-            try {
-                db.execSQL("ALTER TABLE " + TABLE_TICKETS + " ADD COLUMN " + COL_TICKET_USER_UID + " TEXT");
-                db.execSQL("ALTER TABLE " + TABLE_NOTIFICATIONS + " ADD COLUMN " + COL_NOTIF_USER_UID + " TEXT");
-            } catch (Exception e) {
-                android.util.Log.e("DatabaseHelper", "Error during v5->v6 migration: " + e.getMessage());
-            }
+    // v9 events_fts table: FTS5 if the platform has it, FTS4 otherwise. Returns whether it is FTS5.
+    private static boolean createV9SearchTable(SQLiteDatabase db) {
+        String columns = COL_EVENT_TITLE + ", " + COL_EVENT_LOCATION + ", " + COL_EVENT_DESC + ", " + COL_EVENT_TYPE;
+        Boolean existingFts5 = readFts5Flag(db);
+        if (existingFts5 != null) {
+            return existingFts5;
+        }
+        try {
+            db.execSQL("CREATE VIRTUAL TABLE " + TABLE_EVENTS_FTS + " USING fts5(" + columns + ", content='"
+                    + TABLE_EVENTS + "', content_rowid='" + COL_EVENT_ID + "', prefix='2 3')");
+            return true;
+        } catch (SQLException e) {
+            db.execSQL("CREATE VIRTUAL TABLE " + TABLE_EVENTS_FTS + " USING fts4(" + columns + ", content=\""
+                    + TABLE_EVENTS + "\", prefix=\"2,3\")");
+            return false;
         }
     }
 
+    // v9 trigger bodies: { remove the old row from events_fts, add the new row }
+    private static String[] v9SearchSyncStatements(boolean fts5) {
+        String columns = COL_EVENT_TITLE + ", " + COL_EVENT_LOCATION + ", " + COL_EVENT_DESC + ", " + COL_EVENT_TYPE;
+        String deleteOld = fts5
+                ? "INSERT INTO " + TABLE_EVENTS_FTS + "(" + TABLE_EVENTS_FTS + ", rowid, " + columns
+                        + ") VALUES ('delete', old." + COL_EVENT_ID + ", old." + COL_EVENT_TITLE + ", old."
+                        + COL_EVENT_LOCATION + ", old." + COL_EVENT_DESC + ", old." + COL_EVENT_TYPE + ");"
+                : "DELETE FROM " + TABLE_EVENTS_FTS + " WHERE docid = old." + COL_EVENT_ID + ";";
+        String insertNew = "INSERT INTO " + TABLE_EVENTS_FTS + "(rowid, " + columns + ") VALUES (new." + COL_EVENT_ID
+                + ", new." + COL_EVENT_TITLE + ", new." + COL_EVENT_LOCATION + ", new." + COL_EVENT_DESC + ", new."
+                + COL_EVENT_TYPE + ");";
+        return new String[] { deleteOld, insertNew };
+    }
+
     // --- User Operations ---
     public boolean registerUser(User user) {
         SQLiteDatabase db = this.getWritableDatabase();
@@ -201,142 +1094,985 @@ public class DatabaseHelper extends SQLiteOpenHelper {
         Cursor cursor = db.query(TABLE_USERS, null,
                 COL_USER_EMAIL + "=? AND " + COL_USER_PASS + "=?",
                 new String[] { email, password }, null, null, null);
-        if (cursor != null && cursor.moveToFirst()) {
-            User user = new User(
-                    cursor.getInt(cursor.getColumnIndexOrThrow(COL_USER_ID)),
-                    cursor.getString(cursor.getColumnIndexOrThrow(COL_USER_FNAME)),
-                    cursor.getString(cursor.getColumnIndexOrThrow(COL_USER_LNAME)),
-                    cursor.getString(cursor.getColumnIndexOrThrow(COL_USER_EMAIL)),
-                    cursor.getString(cursor.getColumnIndexOrThrow(COL_USER_PASS)),
-                    cursor.getString(cursor.getColumnIndexOrThrow(COL_USER_ROLE)),
-                    cursor.getString(cursor.getColumnIndexOrThrow(COL_USER_PHONE)));
-            cursor.close();
-            return user;
+        User user = null;
+        if (cursor.moveToFirst()) {
+            user = new UserRowMapper(cursor).map(cursor);
         }
-        return null;
+        cursor.close();
+        return user;
     }
 
     public List<User> getAllUsers() {
-        List<User> list = new ArrayList<>();
         SQLiteDatabase db = this.getReadableDatabase();
         Cursor cursor = db.rawQuery("SELECT * FROM " + TABLE_USERS, null);
-        if (cursor.moveToFirst()) {
-            do {
-                list.add(new User(
-                        cursor.getInt(cursor.getColumnIndexOrThrow(COL_USER_ID)),
-                        cursor.getString(cursor.getColumnIndexOrThrow(COL_USER_FNAME)),
-                        cursor.getString(cursor.getColumnIndexOrThrow(COL_USER_LNAME)),
-                        cursor.getString(cursor.getColumnIndexOrThrow(COL_USER_EMAIL)),
-                        cursor.getString(cursor.getColumnIndexOrThrow(COL_USER_PASS)),
-                        cursor.getString(cursor.getColumnIndexOrThrow(COL_USER_ROLE)),
-                        cursor.getString(cursor.getColumnIndexOrThrow(COL_USER_PHONE))));
-            } while (cursor.moveToNext());
-        }
-        cursor.close();
-        return list;
+        return mapAll(cursor, new UserRowMapper(cursor));
     }
 
+    /**
+     * Deletes a user and everything that belongs to them, returning once the
+     * cascade has finished. Must not be called on the writer thread.
+     */
     public void deleteUser(int userId) {
-        SQLiteDatabase db = this.getWritableDatabase();
-        db.delete(TABLE_USERS, COL_USER_ID + "=?", new String[] { String.valueOf(userId) });
+        awaitWrite(deleteUser(userId, null));
+    }
+
+    /**
+     * Deletes a user together with their tickets (live and archived) and
+     * notifications, in chunks on the writer thread. The delete is recorded
+     * first, so if the process dies part-way it is finished on the next open.
+     */
+    public Future<?> deleteUser(int userId, CascadeDeleteListener listener) {
+        long jobId = recordPendingDelete(CASCADE_USER, userId);
+        return submitWrite(() -> runCascadeDelete(jobId, CASCADE_USER, userId, listener));
     }
 
     // --- Event Operations ---
     public boolean createEvent(Event event) {
         SQLiteDatabase db = this.getWritableDatabase();
-        ContentValues values = new ContentValues();
-        values.put(COL_EVENT_TITLE, event.getTitle());
-        values.put(COL_EVENT_DATE, event.getDate());
-        values.put(COL_EVENT_LOCATION, event.getLocation());
-        values.put(COL_EVENT_DESC, event.getDescription());
-        values.put(COL_EVENT_IMAGE, 0);
-        values.put(COL_EVENT_STATUS, event.getStatus());
-        values.put(COL_EVENT_TICKET_PRICE, event.getTicketPrice());
-        values.put(COL_EVENT_TICKET_QUANTITY, event.getTicketQuantity());
-        values.put(COL_EVENT_COVER_IMAGE_PATH, event.getCoverImagePath());
-        values.put(COL_EVENT_GALLERY_PATHS, event.getGalleryImagePaths());
-        values.put(COL_EVENT_TYPE, event.getEventType());
-        long res = db.insert(TABLE_EVENTS, null, values);
-        return res != -1;
+        SQLiteStatement statement = statementPool.acquire(db, SQL_INSERT_EVENT);
+        db.beginTransaction();
+        try {
+            long eventId;
+            synchronized (statement) {
+                statement.clearBindings();
+                bindEventColumns(statement, event);
+                eventId = statement.executeInsert();
+            }
+            if (eventId == -1) {
+                return false;
+            }
+            insertGalleryImages(db, (int) eventId, event.getGalleryImagePaths());
+            db.setTransactionSuccessful();
+            return true;
+        } catch (SQLException e) {
+            android.util.Log.e("DatabaseHelper", "Error inserting event: " + e.getMessage());
+            return false;
+        } finally {
+            db.endTransaction();
+        }
     }
 
+    /**
+     * Updates a local event. If the event carries gallery paths, its
+     * event_images rows are replaced with them in the same transaction (an
+     * empty string clears the gallery); null leaves the gallery as it is.
+     */
     public boolean updateEvent(Event event) {
         SQLiteDatabase db = this.getWritableDatabase();
-        ContentValues values = new ContentValues();
-        values.put(COL_EVENT_TITLE, event.getTitle());
-        values.put(COL_EVENT_DATE, event.getDate());
-        values.put(COL_EVENT_LOCATION, event.getLocation());
-        values.put(COL_EVENT_DESC, event.getDescription());
-        values.put(COL_EVENT_STATUS, event.getStatus());
-        values.put(COL_EVENT_TICKET_PRICE, event.getTicketPrice());
-        values.put(COL_EVENT_TICKET_QUANTITY, event.getTicketQuantity());
-        values.put(COL_EVENT_COVER_IMAGE_PATH, event.getCoverImagePath());
-        values.put(COL_EVENT_GALLERY_PATHS, event.getGalleryImagePaths());
-        values.put(COL_EVENT_TYPE, event.getEventType());
-        int rows = db.update(TABLE_EVENTS, values, COL_EVENT_ID + "=?", new String[] { String.valueOf(event.getId()) });
-        return rows > 0;
+        SQLiteStatement statement = statementPool.acquire(db, SQL_UPDATE_EVENT);
+        db.beginTransaction();
+        try {
+            synchronized (statement) {
+                statement.clearBindings();
+                bindEventColumns(statement, event);
+                statement.bindLong(13, event.getId());
+                if (statement.executeUpdateDelete() == 0) {
+                    return false;
+                }
+            }
+            if (event.getGalleryImagePaths() != null) {
+                db.delete(TABLE_EVENT_IMAGES, COL_IMAGE_EVENT_ID + "=?",
+                        new String[] { String.valueOf(event.getId()) });
+                insertGalleryImages(db, event.getId(), event.getGalleryImagePaths());
+            }
+            db.setTransactionSuccessful();
+            return true;
+        } catch (SQLException e) {
+            android.util.Log.e("DatabaseHelper", "Error updating event: " + e.getMessage());
+            return false;
+        } finally {
+            db.endTransaction();
+        }
     }
 
+    // Gallery images arrive as the legacy CSV; store one row per image, in order
+    private void insertGalleryImages(SQLiteDatabase db, int eventId, String galleryPaths) {
+        if (galleryPaths == null || galleryPaths.isEmpty()) {
+            return;
+        }
+        int ordinal = 0;
+        for (String path : galleryPaths.split(",")) {
+            if (!path.trim().isEmpty()) {
+                insertEventImage(db, eventId, ordinal++, path.trim());
+            }
+        }
+    }
+
+    // Binds parameters 1-12 shared by the local and mirrored event INSERT and UPDATE statements
+    private static void bindEventColumns(SQLiteStatement statement, Event event) {
+        StatementPool.bindStringOrNull(statement, 1, event.getTitle());
+        StatementPool.bindStringOrNull(statement, 2, event.getDate());
+        StatementPool.bindStringOrNull(statement, 3, event.getLocation());
+        StatementPool.bindStringOrNull(statement, 4, event.getDescription());
+        statement.bindLong(5, event.getEventStatus().code);
+        statement.bindDouble(6, event.getTicketPrice());
+        statement.bindLong(7, event.getTicketQuantity());
+        StatementPool.bindStringOrNull(statement, 8, event.getCoverImagePath());
+        StatementPool.bindStringOrNull(statement, 9, event.getEventType());
+        long startAt = event.getStartAt() > 0 ? event.getStartAt()
+                : EventDateParser.parse(event.getDate(), System.currentTimeMillis());
+        statement.bindLong(10, startAt);
+        statement.bindLong(11, event.getEndAt() > 0 ? event.getEndAt() : endTimeFor(startAt));
+        statement.bindLong(12, Event.EventType.fromLabel(event.getEventType()).code);
+    }
+
+    /**
+     * Deletes an event and everything that belongs to it, returning once the
+     * cascade has finished. Must not be called on the writer thread.
+     */
     public void deleteEvent(int eventId) {
+        awaitWrite(deleteEvent(eventId, null));
+    }
+
+    /**
+     * Deletes an event together with its gallery rows and image files,
+     * tickets (live and archived) and notifications, in chunks on the writer
+     * thread. The delete is recorded first, so if the process dies part-way
+     * it is finished on the next open.
+     */
+    public Future<?> deleteEvent(int eventId, CascadeDeleteListener listener) {
+        long jobId = recordPendingDelete(CASCADE_EVENT, eventId);
+        return submitWrite(() -> runCascadeDelete(jobId, CASCADE_EVENT, eventId, listener));
+    }
+
+    // --- Cascading deletes ---
+
+    // Rows removed per cascade transaction
+    private static final int CASCADE_CHUNK_SIZE = 500;
+
+    /**
+     * Records a cascade and marks it as queued, so resumePendingDeletes()
+     * leaves it to the caller's own task. The first getWritableDatabase()
+     * can queue the resume from onOpen(); the lock keeps the resume from
+     * reading the new row before it is marked.
+     */
+    private long recordPendingDelete(String kind, long targetId) {
+        SQLiteDatabase db = this.getWritableDatabase();
+        ContentValues values = new ContentValues();
+        values.put(COL_PENDING_KIND, kind);
+        values.put(COL_PENDING_TARGET_ID, targetId);
+        values.put(COL_PENDING_CREATED_AT, System.currentTimeMillis());
+        synchronized (queuedCascades) {
+            long jobId = db.insert(TABLE_PENDING_DELETES, null, values);
+            queuedCascades.add(jobId);
+            return jobId;
+        }
+    }
+
+    /**
+     * Finishes cascades interrupted by process death. Runs on the writer
+     * thread after open and skips cascades this process has already queued.
+     */
+    private void resumePendingDeletes() {
         SQLiteDatabase db = this.getWritableDatabase();
-        db.delete(TABLE_EVENTS, COL_EVENT_ID + "=?", new String[] { String.valueOf(eventId) });
+        List<Object[]> pending = new ArrayList<>();
+        synchronized (queuedCascades) {
+            Cursor cursor = db.rawQuery("SELECT " + COL_PENDING_ID + ", " + COL_PENDING_KIND + ", "
+                    + COL_PENDING_TARGET_ID + " FROM " + TABLE_PENDING_DELETES + " ORDER BY " + COL_PENDING_ID,
+                    null);
+            try {
+                while (cursor.moveToNext()) {
+                    if (!queuedCascades.contains(cursor.getLong(0))) {
+                        pending.add(new Object[] { cursor.getLong(0), cursor.getString(1), cursor.getLong(2) });
+                    }
+                }
+            } finally {
+                cursor.close();
+            }
+        }
+        for (Object[] job : pending) {
+            runCascadeDelete((Long) job[0], (String) job[1], (Long) job[2], null);
+        }
+    }
+
+    private void runCascadeDelete(long jobId, String kind, long targetId, CascadeDeleteListener listener) {
+        SQLiteDatabase db = this.getWritableDatabase();
+        String[] args = { String.valueOf(targetId) };
+        int deleted = 0;
+        try {
+            if (CASCADE_EVENT.equals(kind)) {
+                deleted = deleteInChunks(db, jobId, TABLE_EVENT_IMAGES, COL_IMAGE_EVENT_ID + " = ?", args,
+                        COL_IMAGE_PATH, deleted, listener);
+                deleted = deleteInChunks(db, jobId, TABLE_TICKETS, COL_TICKET_EVENT_ID + " = ?", args, null,
+                        deleted, listener);
+                deleted = deleteInChunks(db, jobId, TABLE_TICKETS_ARCHIVE, COL_TICKET_EVENT_ID + " = ?", args, null,
+                        deleted, listener);
+                deleted = deleteInChunks(db, jobId, TABLE_NOTIFICATIONS, COL_NOTIF_RELATED_EVENT_ID + " = ?", args,
+                        null, deleted, listener);
+                deleted = deleteInChunks(db, jobId, TABLE_EVENTS, COL_EVENT_ID + " = ?", args,
+                        COL_EVENT_COVER_IMAGE_PATH, deleted, listener);
+            } else {
+                deleted = deleteInChunks(db, jobId, TABLE_TICKETS, COL_TICKET_USER_ID + " = ?", args, null,
+                        deleted, listener);
+                deleted = deleteInChunks(db, jobId, TABLE_TICKETS_ARCHIVE, COL_TICKET_USER_ID + " = ?", args, null,
+                        deleted, listener);
+                deleted = deleteInChunks(db, jobId, TABLE_NOTIFICATIONS, COL_NOTIF_USER_ID + " = ?", args, null,
+                        deleted, listener);
+                deleted = deleteInChunks(db, jobId, TABLE_USERS, COL_USER_ID + " = ?", args, null, deleted,
+                        listener);
+            }
+            db.delete(TABLE_PENDING_DELETES, COL_PENDING_ID + " = ?", new String[] { String.valueOf(jobId) });
+        } catch (SQLException e) {
+            if (listener != null) {
+                listener.onFailed(e.getMessage());
+            }
+            throw e;
+        } finally {
+            synchronized (queuedCascades) {
+                queuedCascades.remove(jobId);
+            }
+        }
+        if (listener != null) {
+            listener.onComplete(deleted);
+        }
+    }
+
+    /**
+     * Deletes matching rows CASCADE_CHUNK_SIZE at a time, one transaction per
+     * chunk, adding each chunk to the job's rows_deleted. If fileColumn is
+     * set, the files it names are removed once the chunk has committed, so a
+     * rolled-back chunk never loses the files its rows still point at.
+     *
+     * @return deletedSoFar plus the rows removed here
+     */
+    private static int deleteInChunks(SQLiteDatabase db, long jobId, String table, String where, String[] args,
+            String fileColumn, int deletedSoFar, CascadeDeleteListener listener) {
+        String chunk = cascadeChunkSql(table, where);
+        while (true) {
+            int removed;
+            List<String> files = new ArrayList<>();
+            db.beginTransactionNonExclusive();
+            try {
+                if (fileColumn != null) {
+                    Cursor cursor = db.rawQuery("SELECT " + fileColumn + " FROM " + table + " WHERE rowid IN ("
+                            + chunk + ")", args);
+                    try {
+                        while (cursor.moveToNext()) {
+                            if (!cursor.isNull(0)) {
+                                files.add(cursor.getString(0));
+                            }
+                        }
+                    } finally {
+                        cursor.close();
+                    }
+                }
+                SQLiteStatement delete = db.compileStatement("DELETE FROM " + table + " WHERE rowid IN (" + chunk
+                        + ")");
+                try {
+                    for (int i = 0; i < args.length; i++) {
+                        delete.bindString(i + 1, args[i]);
+                    }
+                    removed = delete.executeUpdateDelete();
+                } finally {
+                    delete.close();
+                }
+                db.execSQL("UPDATE " + TABLE_PENDING_DELETES + " SET " + COL_PENDING_DELETED + " = "
+                        + COL_PENDING_DELETED + " + ? WHERE " + COL_PENDING_ID + " = ?",
+                        new Object[] { removed, jobId });
+                db.setTransactionSuccessful();
+            } finally {
+                db.endTransaction();
+            }
+            for (String file : files) {
+                ImageStorageHelper.deleteImage(file);
+            }
+            deletedSoFar += removed;
+            if (listener != null && removed > 0) {
+                listener.onProgress(table, deletedSoFar);
+            }
+            if (removed < CASCADE_CHUNK_SIZE) {
+                return deletedSoFar;
+            }
+        }
+    }
+
+    // Rowids of the next chunk deleteInChunks() removes
+    static String cascadeChunkSql(String table, String where) {
+        return "SELECT rowid FROM " + table + " WHERE " + where + " LIMIT " + CASCADE_CHUNK_SIZE;
     }
 
     public List<Event> getAllEvents() {
-        List<Event> eventList = new ArrayList<>();
         SQLiteDatabase db = this.getReadableDatabase();
         Cursor cursor = db.rawQuery("SELECT * FROM " + TABLE_EVENTS, null);
-        if (cursor.moveToFirst()) {
-            do {
-                int id = cursor.getInt(cursor.getColumnIndexOrThrow(COL_EVENT_ID));
-                String title = cursor.getString(cursor.getColumnIndexOrThrow(COL_EVENT_TITLE));
-                String date = cursor.getString(cursor.getColumnIndexOrThrow(COL_EVENT_DATE));
-                String location = cursor.getString(cursor.getColumnIndexOrThrow(COL_EVENT_LOCATION));
-                String description = cursor.getString(cursor.getColumnIndexOrThrow(COL_EVENT_DESC));
-
-                String status = "Active";
-                int statusIndex = cursor.getColumnIndex(COL_EVENT_STATUS);
-                if (statusIndex != -1 && cursor.getString(statusIndex) != null)
-                    status = cursor.getString(statusIndex);
-
-                double ticketPrice = 0.0;
-                int priceIndex = cursor.getColumnIndex(COL_EVENT_TICKET_PRICE);
-                if (priceIndex != -1)
-                    ticketPrice = cursor.getDouble(priceIndex);
-
-                int ticketQuantity = 0;
-                int quantityIndex = cursor.getColumnIndex(COL_EVENT_TICKET_QUANTITY);
-                if (quantityIndex != -1)
-                    ticketQuantity = cursor.getInt(quantityIndex);
-
-                String coverImagePath = "";
-                int coverPathIndex = cursor.getColumnIndex(COL_EVENT_COVER_IMAGE_PATH);
-                if (coverPathIndex != -1) {
-                    coverImagePath = cursor.getString(coverPathIndex);
-                    if (coverImagePath == null)
-                        coverImagePath = "";
-                }
+        return mapAll(cursor, new EventRowMapper(cursor));
+    }
 
-                String galleryPaths = "";
-                int galleryIndex = cursor.getColumnIndex(COL_EVENT_GALLERY_PATHS);
-                if (galleryIndex != -1) {
-                    galleryPaths = cursor.getString(galleryIndex);
-                    if (galleryPaths == null)
-                        galleryPaths = "";
-                }
+    // Columns needed to render an event card
+    private static final String FEED_COLUMNS = COL_EVENT_ID + ", " + COL_EVENT_TITLE + ", " + COL_EVENT_DATE + ", "
+            + COL_EVENT_LOCATION + ", " + COL_EVENT_STATUS_CODE + ", " + COL_EVENT_TICKET_PRICE + ", "
+            + COL_EVENT_TICKET_QUANTITY + ", " + COL_EVENT_COVER_IMAGE_PATH + ", " + COL_EVENT_TYPE + ", "
+            + COL_EVENT_START_AT + ", " + COL_EVENT_END_AT + ", " + COL_EVENT_SOLD_COUNT;
+
+    // Card columns stored in idx_events_active_feed (status is implied Active)
+    private static final String ACTIVE_FEED_COLUMNS = COL_EVENT_ID + ", " + COL_EVENT_TITLE + ", " + COL_EVENT_DATE
+            + ", " + COL_EVENT_LOCATION + ", " + COL_EVENT_TICKET_PRICE + ", " + COL_EVENT_TICKET_QUANTITY + ", "
+            + COL_EVENT_COVER_IMAGE_PATH + ", " + COL_EVENT_TYPE + ", " + COL_EVENT_START_AT + ", "
+            + COL_EVENT_END_AT + ", " + COL_EVENT_SOLD_COUNT;
+
+    /**
+     * Returns one page of the event feed ordered by (date, id), using keyset
+     * pagination so each page is a bounded index range scan regardless of how
+     * deep the user has scrolled.
+     *
+     * Only the columns needed to render an event card are loaded; description
+     * and gallery paths are left empty and can be fetched with getEventById().
+     *
+     * @param afterDate date of the last event of the previous page, or null
+     * @param afterId   id of the last event of the previous page, or 0 for the
+     *                  first page
+     * @return up to EVENT_PAGE_SIZE events
+     */
+    public List<Event> getEventsPage(String afterDate, int afterId) {
+        SQLiteDatabase db = this.getReadableDatabase();
+
+        String[] args;
+        if (afterId <= 0) {
+            args = new String[] { String.valueOf(EVENT_PAGE_SIZE) };
+        } else if (afterDate == null) {
+            args = new String[] { String.valueOf(afterId), String.valueOf(EVENT_PAGE_SIZE) };
+        } else {
+            args = new String[] { afterDate, afterDate, String.valueOf(afterId), String.valueOf(EVENT_PAGE_SIZE) };
+        }
+
+        Cursor cursor = db.rawQuery(eventsPageSql(afterDate, afterId), args);
+        return mapAll(cursor, new EventRowMapper(cursor));
+    }
+
+    // getEventsPage() query for this cursor position
+    static String eventsPageSql(String afterDate, int afterId) {
+        String where;
+        if (afterId <= 0) {
+            where = "";
+        } else if (afterDate == null) {
+            // NULL dates sort first, so the previous page ended inside the NULL run
+            where = " WHERE (" + COL_EVENT_DATE + " IS NULL AND " + COL_EVENT_ID + " > ?) OR "
+                    + COL_EVENT_DATE + " IS NOT NULL";
+        } else {
+            // Written as a range on date so the index is seeked rather than scanned from the top
+            where = " WHERE " + COL_EVENT_DATE + " >= ? AND (" + COL_EVENT_DATE + " > ? OR " + COL_EVENT_ID
+                    + " > ?)";
+        }
+        return "SELECT " + FEED_COLUMNS +
+                " FROM " + TABLE_EVENTS + where +
+                " ORDER BY " + COL_EVENT_DATE + ", " + COL_EVENT_ID +
+                " LIMIT ?";
+    }
+
+    /**
+     * Events starting in [fromMs, toMs), soonest first. Served by the
+     * (start_at, id) index.
+     */
+    public List<Event> getEventsStartingBetween(long fromMs, long toMs, int limit) {
+        SQLiteDatabase db = this.getReadableDatabase();
+        Cursor cursor = db.rawQuery("SELECT " + FEED_COLUMNS + " FROM " + TABLE_EVENTS +
+                " WHERE " + COL_EVENT_START_AT + " >= ? AND " + COL_EVENT_START_AT + " < ?" +
+                " ORDER BY " + COL_EVENT_START_AT + ", " + COL_EVENT_ID + " LIMIT ?",
+                new String[] { String.valueOf(fromMs), String.valueOf(toMs), String.valueOf(limit) });
+        return mapAll(cursor, new EventRowMapper(cursor));
+    }
+
+    /**
+     * The "what can I buy" feed: Active events that have not started yet,
+     * soonest first, paged by (start_at, id). Runs as an index-only scan of
+     * idx_events_active_feed.
+     *
+     * @param afterStartAt start_at of the last event of the previous page, or
+     *                     0 for the first page
+     * @param afterId      id of the last event of the previous page
+     */
+    public List<Event> getActiveEventsPage(long afterStartAt, int afterId) {
+        SQLiteDatabase db = this.getReadableDatabase();
+        long now = System.currentTimeMillis();
+        String[] args;
+        if (afterStartAt <= 0) {
+            args = new String[] { String.valueOf(now), String.valueOf(EVENT_PAGE_SIZE) };
+        } else {
+            args = new String[] { String.valueOf(now), String.valueOf(afterStartAt), String.valueOf(afterStartAt),
+                    String.valueOf(afterId), String.valueOf(EVENT_PAGE_SIZE) };
+        }
+        Cursor cursor = db.rawQuery(activeEventsPageSql(afterStartAt > 0), args);
+        return mapAll(cursor, new EventRowMapper(cursor));
+    }
+
+    // getActiveEventsPage() query, with or without the (start_at, id) cursor
+    static String activeEventsPageSql(boolean afterCursor) {
+        String where = " WHERE " + COL_EVENT_STATUS_CODE + " = " + Event.Status.ACTIVE.code
+                + " AND " + COL_EVENT_START_AT + " >= ?";
+        if (afterCursor) {
+            where += " AND (" + COL_EVENT_START_AT + " > ? OR (" + COL_EVENT_START_AT + " = ? AND "
+                    + COL_EVENT_ID + " > ?))";
+        }
+        return "SELECT " + ACTIVE_FEED_COLUMNS + " FROM " + TABLE_EVENTS + where +
+                " ORDER BY " + COL_EVENT_START_AT + ", " + COL_EVENT_ID + " LIMIT ?";
+    }
+
+    /**
+     * Events that have not started yet, soonest first.
+     */
+    public List<Event> getUpcomingEvents(int limit) {
+        return getEventsStartingBetween(System.currentTimeMillis(), Long.MAX_VALUE, limit);
+    }
+
+    /**
+     * Events starting today (device time zone).
+     */
+    public List<Event> getTodayEvents(int limit) {
+        long dayStart = EventDateParser.startOfDay(System.currentTimeMillis());
+        return getEventsStartingBetween(dayStart, EventDateParser.startOfNextDay(dayStart), limit);
+    }
 
-                String eventType = "Other";
-                int typeIndex = cursor.getColumnIndex(COL_EVENT_TYPE);
-                if (typeIndex != -1 && cursor.getString(typeIndex) != null)
-                    eventType = cursor.getString(typeIndex);
+    /**
+     * Events starting between now and the end of the current or next weekend.
+     */
+    public List<Event> getWeekendEvents(int limit) {
+        long[] window = EventDateParser.weekendWindow(System.currentTimeMillis());
+        return getEventsStartingBetween(window[0], window[1], limit);
+    }
 
-                Event event = new Event(id, title, date, location, description,
-                        status, ticketPrice, ticketQuantity, coverImagePath, galleryPaths, eventType);
-                eventList.add(event);
-            } while (cursor.moveToNext());
+    /**
+     * Loads a single event with all of its columns.
+     *
+     * @return the event, or null if no row has this id
+     */
+    public Event getEventById(int eventId) {
+        SQLiteDatabase db = this.getReadableDatabase();
+        Cursor cursor = db.query(TABLE_EVENTS, null, COL_EVENT_ID + "=?",
+                new String[] { String.valueOf(eventId) }, null, null, null);
+        Event event = null;
+        if (cursor.moveToFirst()) {
+            event = new EventRowMapper(cursor).map(cursor);
         }
         cursor.close();
-        return eventList;
+        return event;
+    }
+
+    // --- Firestore Event Mirror ---
+
+    /**
+     * One page of the events mirrored from Firestore, soonest first with
+     * undated events last, paged by (start_at, firestore_id) so it is an
+     * index range scan at any depth. Card columns only, like getEventsPage().
+     *
+     * @param filter constraints to apply, or null for every event
+     * @param after  last event of the previous page, or null for the first
+     *               page
+     * @param limit  maximum number of events
+     */
+    public List<Event> getMirroredEventsPage(EventFilter filter, Event after, int limit) {
+        SQLiteDatabase db = this.getReadableDatabase();
+        List<Event> page = new ArrayList<>();
+        if (after == null) {
+            page.addAll(queryMirrored(db, filter, MIRROR_DATED, new String[0], false, limit));
+        } else if (after.getStartAt() > 0) {
+            String startAt = String.valueOf(after.getStartAt());
+            page.addAll(queryMirrored(db, filter, MIRROR_DATED_AFTER,
+                    new String[] { startAt, startAt, after.getFirestoreId() }, false, limit));
+        }
+        if (page.size() < limit && (filter == null || !filter.hasDateWindow())) {
+            // Dated events are exhausted; continue into the undated ones
+            String afterId = after != null && after.getStartAt() <= 0 ? after.getFirestoreId() : "";
+            page.addAll(queryMirrored(db, filter, MIRROR_UNDATED_AFTER, new String[] { afterId }, false,
+                    limit - page.size()));
+        }
+        return page;
+    }
+
+    /**
+     * The page of mirrored events just before the given one, in feed order.
+     * Used to scroll back up after leading pages were dropped.
+     *
+     * @param filter constraints to apply, or null for every event
+     * @param before first event currently shown
+     * @param limit  maximum number of events
+     */
+    public List<Event> getMirroredEventsPageBefore(EventFilter filter, Event before, int limit) {
+        SQLiteDatabase db = this.getReadableDatabase();
+        List<Event> page = new ArrayList<>();
+        if (before.getStartAt() <= 0) {
+            page.addAll(queryMirrored(db, filter, MIRROR_UNDATED_BEFORE, new String[] { before.getFirestoreId() },
+                    true, limit));
+            if (page.size() < limit) {
+                page.addAll(queryMirrored(db, filter, MIRROR_DATED, new String[0], true, limit - page.size()));
+            }
+        } else {
+            String startAt = String.valueOf(before.getStartAt());
+            page.addAll(queryMirrored(db, filter, MIRROR_DATED_BEFORE,
+                    new String[] { startAt, startAt, before.getFirestoreId() }, true, limit));
+        }
+        Collections.reverse(page);
+        return page;
+    }
+
+    // Keyset conditions of the mirrored feed. The "after" ones are written as a
+    // range on start_at so the index is seeked rather than scanned.
+    static final String MIRROR_DATED = COL_EVENT_START_AT + " > 0";
+    static final String MIRROR_DATED_AFTER = COL_EVENT_START_AT + " >= ? AND (" + COL_EVENT_START_AT + " > ? OR "
+            + COL_EVENT_FIRESTORE_ID + " > ?)";
+    static final String MIRROR_DATED_BEFORE = COL_EVENT_START_AT + " > 0 AND " + COL_EVENT_START_AT + " <= ? AND ("
+            + COL_EVENT_START_AT + " < ? OR " + COL_EVENT_FIRESTORE_ID + " < ?)";
+    static final String MIRROR_UNDATED_AFTER = COL_EVENT_START_AT + " = 0 AND " + COL_EVENT_FIRESTORE_ID + " > ?";
+    static final String MIRROR_UNDATED_BEFORE = COL_EVENT_START_AT + " = 0 AND " + COL_EVENT_FIRESTORE_ID + " < ?";
+
+    private static List<Event> queryMirrored(SQLiteDatabase db, EventFilter filter, String where, String[] args,
+            boolean descending, int limit) {
+        List<String> allArgs = new ArrayList<>(Arrays.asList(args));
+        Cursor cursor = db.rawQuery(mirroredPageSql(filter, where, descending, limit, allArgs),
+                allArgs.toArray(new String[0]));
+        return mapAll(cursor, new EventRowMapper(cursor));
+    }
+
+    // Mirrored feed query for one keyset condition; adds the filter's values to args
+    static String mirroredPageSql(EventFilter filter, String where, boolean descending, int limit,
+            List<String> args) {
+        String direction = descending ? " DESC" : "";
+        return "SELECT " + FEED_COLUMNS + ", " + COL_EVENT_FIRESTORE_ID + ", " +
+                COL_EVENT_ORGANIZER_ID + " FROM " + TABLE_EVENTS + " WHERE " + COL_EVENT_FIRESTORE_ID +
+                " IS NOT NULL AND (" + where + ")" + filterClause(filter, args) + " ORDER BY " +
+                COL_EVENT_START_AT + direction + ", " + COL_EVENT_FIRESTORE_ID + direction + " LIMIT " + limit;
+    }
+
+    // " AND ..." conditions for the filter, adding their values to args; type and
+    // status equality lead the mirror type/status indexes, price is checked per row
+    private static String filterClause(EventFilter filter, List<String> args) {
+        if (filter == null || filter.isEmpty()) {
+            return "";
+        }
+        StringBuilder clause = new StringBuilder();
+        if (filter.getType() != null) {
+            clause.append(" AND ").append(COL_EVENT_TYPE_CODE).append(" = ?");
+            args.add(String.valueOf(filter.getType().code));
+        }
+        if (filter.getStatus() != null) {
+            clause.append(" AND ").append(COL_EVENT_STATUS_CODE).append(" = ?");
+            args.add(String.valueOf(filter.getStatus().code));
+        }
+        if (filter.getStartFrom() > 0) {
+            clause.append(" AND ").append(COL_EVENT_START_AT).append(" >= ?");
+            args.add(String.valueOf(filter.getStartFrom()));
+        }
+        if (filter.getStartUntil() > 0) {
+            clause.append(" AND ").append(COL_EVENT_START_AT).append(" < ?");
+            args.add(String.valueOf(filter.getStartUntil()));
+        }
+        if (filter.getMinPrice() != EventFilter.NO_PRICE_LIMIT) {
+            clause.append(" AND ").append(COL_EVENT_TICKET_PRICE).append(" >= ?");
+            args.add(String.valueOf(filter.getMinPrice()));
+        }
+        if (filter.getMaxPrice() != EventFilter.NO_PRICE_LIMIT) {
+            clause.append(" AND ").append(COL_EVENT_TICKET_PRICE).append(" <= ?");
+            args.add(String.valueOf(filter.getMaxPrice()));
+        }
+        return clause.toString();
+    }
+
+    /**
+     * Newest Firestore updatedAt (epoch millis) already applied for this
+     * collection, or 0 if it has never been synced.
+     */
+    public long getSyncWatermark(String syncKey) {
+        SQLiteDatabase db = this.getReadableDatabase();
+        Cursor cursor = db.rawQuery("SELECT " + COL_SYNC_WATERMARK + " FROM " + TABLE_SYNC_STATE + " WHERE " +
+                COL_SYNC_KEY + " = ?", new String[] { syncKey });
+        try {
+            return cursor.moveToFirst() ? cursor.getLong(0) : 0;
+        } finally {
+            cursor.close();
+        }
+    }
+
+    /**
+     * Applies one page of Firestore changes to the mirror in a single
+     * transaction: changed events are upserted by document id, deleted ids
+     * are removed, and the watermark moves forward (never back). An
+     * interrupted sync therefore resumes after the last page that committed.
+     * Call from the writer thread.
+     *
+     * @param changed    events carrying their Firestore id
+     * @param deletedIds Firestore ids of deleted events
+     * @param syncKey    sync_state row to advance
+     * @param watermark  newest updatedAt in this page, epoch millis
+     * @return mirror rows inserted, updated or removed
+     */
+    public int applyMirrorChanges(List<Event> changed, List<String> deletedIds, String syncKey, long watermark) {
+        SQLiteDatabase db = this.getWritableDatabase();
+        SQLiteStatement update = statementPool.acquire(db, SQL_UPDATE_MIRRORED_EVENT);
+        SQLiteStatement insert = statementPool.acquire(db, SQL_INSERT_MIRRORED_EVENT);
+        int applied = 0;
+        db.beginTransaction();
+        try {
+            for (Event event : changed) {
+                applied += upsertMirroredEvent(update, insert, event);
+            }
+            for (String firestoreId : deletedIds) {
+                applied += db.delete(TABLE_EVENTS, COL_EVENT_FIRESTORE_ID + " = ?", new String[] { firestoreId });
+            }
+            db.execSQL("INSERT OR REPLACE INTO " + TABLE_SYNC_STATE + " (" + COL_SYNC_KEY + ", " +
+                    COL_SYNC_WATERMARK + ") VALUES (?, MAX(?, COALESCE((SELECT " + COL_SYNC_WATERMARK + " FROM " +
+                    TABLE_SYNC_STATE + " WHERE " + COL_SYNC_KEY + " = ?), 0)))",
+                    new Object[] { syncKey, watermark, syncKey });
+            db.setTransactionSuccessful();
+            return applied;
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    // UPDATE first and INSERT only if nothing matched; ON CONFLICT upserts need SQLite 3.24 (API 30)
+    private static int upsertMirroredEvent(SQLiteStatement update, SQLiteStatement insert, Event event) {
+        synchronized (update) {
+            update.clearBindings();
+            bindEventColumns(update, event);
+            StatementPool.bindStringOrNull(update, 13, event.getGalleryImagePaths());
+            StatementPool.bindStringOrNull(update, 14, event.getOrganizerId());
+            update.bindString(15, event.getFirestoreId());
+            if (update.executeUpdateDelete() > 0) {
+                return 1;
+            }
+        }
+        synchronized (insert) {
+            insert.clearBindings();
+            bindEventColumns(insert, event);
+            StatementPool.bindStringOrNull(insert, 13, event.getGalleryImagePaths());
+            StatementPool.bindStringOrNull(insert, 14, event.getOrganizerId());
+            insert.bindString(15, event.getFirestoreId());
+            return insert.executeInsert() != -1 ? 1 : 0;
+        }
+    }
+
+    /**
+     * Full-text search over event title, location, description and type.
+     * Every word of the query must match, and the last word also matches as a
+     * prefix so results update while the user is typing.
+     *
+     * @param query free text typed by the user
+     * @param limit maximum number of ids to return
+     * @return matching event ids, most relevant first
+     */
+    public List<Integer> searchEventIds(String query, int limit) {
+        List<Integer> ids = new ArrayList<>();
+        String match = buildMatchExpression(query);
+        if (match == null) {
+            return ids;
+        }
+
+        SQLiteDatabase db = this.getReadableDatabase();
+        String sql;
+        if (isFts5(db)) {
+            // bm25 weights: title, location, description, event type
+            sql = "SELECT rowid FROM " + TABLE_EVENTS_FTS + " WHERE " + TABLE_EVENTS_FTS + " MATCH ?" +
+                    " ORDER BY bm25(" + TABLE_EVENTS_FTS + ", 10.0, 3.0, 1.0, 5.0) LIMIT ?";
+        } else {
+            // FTS4 has no built-in ranking; offsets() grows with the number of hits
+            sql = "SELECT docid FROM " + TABLE_EVENTS_FTS + " WHERE " + TABLE_EVENTS_FTS + " MATCH ?" +
+                    " ORDER BY length(offsets(" + TABLE_EVENTS_FTS + ")) DESC LIMIT ?";
+        }
+
+        Cursor cursor = db.rawQuery(sql, new String[] { match, String.valueOf(limit) });
+        try {
+            while (cursor.moveToNext()) {
+                ids.add(cursor.getInt(0));
+            }
+        } finally {
+            cursor.close();
+        }
+        return ids;
+    }
+
+    /**
+     * Event cards matching a full-text query, most relevant first. See
+     * searchEventIds() for how the query is matched.
+     */
+    public List<Event> searchEvents(String query, int limit) {
+        List<Integer> ids = searchEventIds(query, limit);
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+        StringBuilder placeholders = new StringBuilder();
+        String[] args = new String[ids.size()];
+        for (int i = 0; i < ids.size(); i++) {
+            placeholders.append(i == 0 ? "?" : ", ?");
+            args[i] = String.valueOf(ids.get(i));
+        }
+        Cursor cursor = this.getReadableDatabase().rawQuery("SELECT " + FEED_COLUMNS + " FROM " + TABLE_EVENTS
+                + " WHERE " + COL_EVENT_ID + " IN (" + placeholders + ")", args);
+        List<Event> events = mapAll(cursor, new EventRowMapper(cursor));
+        // IN () does not keep the ranking, so restore it
+        Collections.sort(events, (a, b) -> Integer.compare(ids.indexOf(a.getId()), ids.indexOf(b.getId())));
+        return events;
+    }
+
+    // Read from reader threads; the worst a race does is read sqlite_master twice
+    private volatile Boolean fts5Enabled;
+
+    private boolean isFts5(SQLiteDatabase db) {
+        if (fts5Enabled == null) {
+            Boolean flag = readFts5Flag(db);
+            fts5Enabled = flag != null && flag;
+        }
+        return fts5Enabled;
+    }
+
+    // Returns whether events_fts is an FTS5 table, or null if it does not exist yet
+    private static Boolean readFts5Flag(SQLiteDatabase db) {
+        Cursor cursor = db.rawQuery("SELECT sql FROM sqlite_master WHERE name = ?",
+                new String[] { TABLE_EVENTS_FTS });
+        try {
+            if (!cursor.moveToFirst() || cursor.getString(0) == null) {
+                return null;
+            }
+            return cursor.getString(0).toLowerCase().contains("fts5");
+        } finally {
+            cursor.close();
+        }
+    }
+
+    // Turns user input into an FTS MATCH expression, or null if nothing is searchable
+    static String buildMatchExpression(String query) {
+        if (query == null) {
+            return null;
+        }
+        String[] words = query.toLowerCase().split("[^\\p{L}\\p{N}]+");
+        StringBuilder match = new StringBuilder();
+        for (String word : words) {
+            if (word.isEmpty()) {
+                continue;
+            }
+            if (match.length() > 0) {
+                match.append(' ');
+            }
+            match.append(word);
+        }
+        if (match.length() == 0) {
+            return null;
+        }
+        return match.append('*').toString();
+    }
+
+    // --- Firestore Write Outbox ---
+
+    /**
+     * Queues a Firestore write. A ticket already in the outbox is not queued
+     * again. Call from the writer thread.
+     *
+     * @return true if the entry was added
+     */
+    public boolean enqueueOutbox(OutboxEntry entry) {
+        ContentValues values = new ContentValues();
+        values.put(COL_OUTBOX_USER_ID, entry.getUserId());
+        values.put(COL_OUTBOX_KIND, entry.getKind());
+        values.put(COL_OUTBOX_DOC_ID, entry.getDocId());
+        values.put(COL_OUTBOX_PAYLOAD, entry.getPayload());
+        values.put(COL_OUTBOX_CREATED_AT, entry.getCreatedAt());
+        long id = this.getWritableDatabase().insertWithOnConflict(TABLE_OUTBOX, null, values,
+                SQLiteDatabase.CONFLICT_IGNORE);
+        entry.setId(id);
+        return id != -1;
+    }
+
+    /**
+     * The oldest queued writes, in the order they were queued.
+     */
+    public List<OutboxEntry> getOutboxHead(int limit) {
+        SQLiteDatabase db = this.getReadableDatabase();
+        Cursor cursor = db.query(TABLE_OUTBOX, null, null, null, null, null, COL_OUTBOX_ID,
+                String.valueOf(limit));
+        return mapAll(cursor, new OutboxEntryRowMapper(cursor));
+    }
+
+    /**
+     * Removes entries once Firestore has accepted or permanently rejected
+     * them. Call from the writer thread.
+     */
+    public int deleteOutboxEntries(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        StringBuilder placeholders = new StringBuilder();
+        String[] args = new String[ids.size()];
+        for (int i = 0; i < ids.size(); i++) {
+            placeholders.append(i == 0 ? "?" : ", ?");
+            args[i] = String.valueOf(ids.get(i));
+        }
+        return this.getWritableDatabase().delete(TABLE_OUTBOX,
+                COL_OUTBOX_ID + " IN (" + placeholders + ")", args);
+    }
+
+    /**
+     * Removes a queued ticket that was delivered some other way. Call from
+     * the writer thread.
+     */
+    public boolean deleteOutboxTicket(String ticketId) {
+        return this.getWritableDatabase().delete(TABLE_OUTBOX, COL_OUTBOX_KIND + " = ? AND " +
+                COL_OUTBOX_DOC_ID + " = ?", new String[] { OutboxEntry.KIND_TICKET, ticketId }) > 0;
+    }
+
+    /**
+     * True if the ticket is still queued for delivery.
+     */
+    public boolean hasOutboxTicket(String ticketId) {
+        Cursor cursor = this.getReadableDatabase().rawQuery("SELECT 1 FROM " + TABLE_OUTBOX + " WHERE "
+                + COL_OUTBOX_KIND + " = ? AND " + COL_OUTBOX_DOC_ID + " = ?",
+                new String[] { OutboxEntry.KIND_TICKET, ticketId });
+        try {
+            return cursor.moveToFirst();
+        } finally {
+            cursor.close();
+        }
+    }
+
+    public OutboxStats getOutboxStats() {
+        SQLiteDatabase db = this.getReadableDatabase();
+        Cursor cursor = db.rawQuery("SELECT COUNT(*), MIN(" + COL_OUTBOX_CREATED_AT + ") FROM " + TABLE_OUTBOX,
+                null);
+        OutboxStats stats = new OutboxStats();
+        try {
+            if (cursor.moveToFirst()) {
+                stats.depth = cursor.getInt(0);
+                stats.oldestCreatedAt = cursor.isNull(1) ? 0 : cursor.getLong(1);
+            }
+        } finally {
+            cursor.close();
+        }
+        return stats;
+    }
+
+    // --- Event Image Operations ---
+
+    /**
+     * Loads the first gallery images of an event in gallery order, without
+     * reading the rest.
+     *
+     * @param limit maximum number of images to return
+     */
+    public List<EventImage> getEventImages(int eventId, int limit) {
+        SQLiteDatabase db = this.getReadableDatabase();
+        Cursor cursor = db.query(TABLE_EVENT_IMAGES, null, COL_IMAGE_EVENT_ID + "=?",
+                new String[] { String.valueOf(eventId) }, null, null, COL_IMAGE_ORDINAL, String.valueOf(limit));
+        return mapAll(cursor, new EventImageRowMapper(cursor));
+    }
+
+    /**
+     * Appends an image to the end of an event's gallery.
+     *
+     * @return the new image id, or -1 on failure
+     */
+    public long addEventImage(int eventId, String path) {
+        SQLiteDatabase db = this.getWritableDatabase();
+        db.beginTransaction();
+        try {
+            SQLiteStatement nextOrdinal = statementPool.acquire(db, "SELECT COALESCE(MAX(" + COL_IMAGE_ORDINAL
+                    + ") + 1, 0) FROM " + TABLE_EVENT_IMAGES + " WHERE " + COL_IMAGE_EVENT_ID + " = ?");
+            int ordinal;
+            synchronized (nextOrdinal) {
+                nextOrdinal.bindLong(1, eventId);
+                ordinal = (int) nextOrdinal.simpleQueryForLong();
+            }
+            long imageId = insertEventImage(db, eventId, ordinal, path);
+            db.setTransactionSuccessful();
+            return imageId;
+        } catch (SQLException e) {
+            android.util.Log.e("DatabaseHelper", "Error adding event image: " + e.getMessage());
+            return -1;
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    /**
+     * Replaces the file of a single gallery image, keeping its position.
+     */
+    public boolean updateEventImagePath(int imageId, String path) {
+        SQLiteDatabase db = this.getWritableDatabase();
+        int[] size = ImageStorageHelper.readImageSize(path);
+        ContentValues values = new ContentValues();
+        values.put(COL_IMAGE_PATH, path);
+        values.put(COL_IMAGE_WIDTH, size[0]);
+        values.put(COL_IMAGE_HEIGHT, size[1]);
+        values.put(COL_IMAGE_BYTE_SIZE, ImageStorageHelper.getImageFileSize(path));
+        return db.update(TABLE_EVENT_IMAGES, values, COL_IMAGE_ID + "=?",
+                new String[] { String.valueOf(imageId) }) > 0;
+    }
+
+    /**
+     * Removes a single gallery image. Ordinals of the remaining images are
+     * left as they are; only their relative order matters.
+     */
+    public boolean deleteEventImage(int imageId) {
+        SQLiteDatabase db = this.getWritableDatabase();
+        return db.delete(TABLE_EVENT_IMAGES, COL_IMAGE_ID + "=?", new String[] { String.valueOf(imageId) }) > 0;
+    }
+
+    private long insertEventImage(SQLiteDatabase db, int eventId, int ordinal, String path) {
+        int[] size = ImageStorageHelper.readImageSize(path);
+        SQLiteStatement insert = statementPool.acquire(db, SQL_INSERT_EVENT_IMAGE);
+        synchronized (insert) {
+            bindEventImage(insert, eventId, ordinal, path, size[0], size[1],
+                    ImageStorageHelper.getImageFileSize(path));
+            return insert.executeInsert();
+        }
+    }
+
+    private static void bindEventImage(SQLiteStatement statement, int eventId, int ordinal, String path,
+            int width, int height, long byteSize) {
+        statement.clearBindings();
+        statement.bindLong(1, eventId);
+        statement.bindLong(2, ordinal);
+        statement.bindString(3, path);
+        statement.bindLong(4, width);
+        statement.bindLong(5, height);
+        statement.bindLong(6, byteSize);
+    }
+
+    /**
+     * Tickets still available for an event: ticket_quantity minus the
+     * trigger-maintained sold_count, never below zero.
+     *
+     * @return remaining tickets, or -1 if no event has this id
+     */
+    public int getRemainingTickets(int eventId) {
+        SQLiteDatabase db = this.getReadableDatabase();
+        Cursor cursor = db.rawQuery("SELECT MAX(0, " + COL_EVENT_TICKET_QUANTITY + " - " + COL_EVENT_SOLD_COUNT
+                + ") FROM " + TABLE_EVENTS + " WHERE " + COL_EVENT_ID + " = ?",
+                new String[] { String.valueOf(eventId) });
+        try {
+            return cursor.moveToFirst() ? cursor.getInt(0) : -1;
+        } finally {
+            cursor.close();
+        }
+    }
+
+    /**
+     * Recounts every event's sold_count from the tickets table and fixes any
+     * drift, BACKFILL_BATCH_SIZE events per transaction so ticket writes can
+     * interleave. Call from the writer thread (submitWrite).
+     *
+     * @return number of events whose count was corrected
+     */
+    public int reconcileSoldCounts() {
+        SQLiteDatabase db = this.getWritableDatabase();
+        int fixed = 0;
+        long lastId = 0;
+        while (true) {
+            long batchEnd;
+            db.beginTransactionNonExclusive();
+            try {
+                batchEnd = nextEventBatchEnd(db, lastId, BACKFILL_BATCH_SIZE);
+                if (batchEnd != lastId) {
+                    fixed += recountSoldCounts(db, lastId, batchEnd);
+                }
+                db.setTransactionSuccessful();
+            } finally {
+                db.endTransaction();
+            }
+            if (batchEnd == lastId) {
+                break;
+            }
+            lastId = batchEnd;
+        }
+        if (fixed > 0) {
+            android.util.Log.w("DatabaseHelper", "Corrected sold_count drift on " + fixed + " events");
+        }
+        return fixed;
     }
 
     // --- Ticket Operations ---
@@ -346,13 +2082,12 @@ public class DatabaseHelper extends SQLiteOpenHelper {
 
     public boolean registerTicket(int userId, int eventId, String uniqueCode, long timestamp) {
         SQLiteDatabase db = this.getWritableDatabase();
-        ContentValues values = new ContentValues();
-        values.put(COL_TICKET_USER_ID, userId);
-        values.put(COL_TICKET_EVENT_ID, eventId);
-        values.put(COL_TICKET_CODE, uniqueCode);
-        values.put(COL_TICKET_TIMESTAMP, timestamp);
-        long res = db.insert(TABLE_TICKETS, null, values);
-        return res != -1;
+        SQLiteStatement statement = statementPool.acquire(db, SQL_INSERT_TICKET_USER_ID);
+        synchronized (statement) {
+            statement.clearBindings();
+            statement.bindLong(1, userId);
+            return executeTicketInsert(statement, eventId, uniqueCode, timestamp);
+        }
     }
 
     public boolean registerTicket(String userUid, int eventId, String uniqueCode) {
@@ -361,79 +2096,482 @@ public class DatabaseHelper extends SQLiteOpenHelper {
 
     public boolean registerTicket(String userUid, int eventId, String uniqueCode, long timestamp) {
         SQLiteDatabase db = this.getWritableDatabase();
-        ContentValues values = new ContentValues();
-        values.put(COL_TICKET_USER_UID, userUid);
-        values.put(COL_TICKET_EVENT_ID, eventId);
-        values.put(COL_TICKET_CODE, uniqueCode);
-        values.put(COL_TICKET_TIMESTAMP, timestamp);
-        long res = db.insert(TABLE_TICKETS, null, values);
-        return res != -1;
+        SQLiteStatement statement = statementPool.acquire(db, SQL_INSERT_TICKET_USER_UID);
+        synchronized (statement) {
+            statement.clearBindings();
+            StatementPool.bindStringOrNull(statement, 1, userUid);
+            return executeTicketInsert(statement, eventId, uniqueCode, timestamp);
+        }
     }
 
+    /**
+     * Imports tickets in chunked transactions, with the same semantics as
+     * registerTicket(String userUid, ...) for each row. A row that fails
+     * (empty user id, event id that is not a number or not in the events
+     * table, constraint violation) is reported and skipped without rolling
+     * back the rest of its chunk. User ids are Firebase UIDs, which have no
+     * local table, so only their presence is checked.
+     *
+     * @param tickets   records to import; userId holds the Firebase UID and
+     *                  eventId the local event id. A purchaseTimestamp of 0 is
+     *                  replaced with the import time
+     * @param chunkSize number of rows committed per transaction
+     * @param listener  notified after each committed chunk and for each failed
+     *                  row; may be null
+     * @return totals for the whole import
+     */
+    public TicketImportResult importTickets(Iterator<Ticket> tickets, int chunkSize,
+            TicketImportListener listener) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("chunkSize must be positive: " + chunkSize);
+        }
+        SQLiteDatabase db = this.getWritableDatabase();
+        SQLiteStatement statement = statementPool.acquire(db, SQL_INSERT_TICKET_USER_UID);
+        SQLiteStatement eventExists = statementPool.acquire(db, SQL_EVENT_EXISTS);
+        TicketImportResult result = new TicketImportResult();
+        long importTime = System.currentTimeMillis();
+        int rowIndex = 0;
+
+        while (tickets.hasNext()) {
+            db.beginTransaction();
+            try {
+                for (int i = 0; i < chunkSize && tickets.hasNext(); i++, rowIndex++) {
+                    Ticket ticket = tickets.next();
+                    String error = insertImportedTicket(statement, eventExists, ticket, importTime);
+                    if (error == null) {
+                        result.imported++;
+                    } else {
+                        result.failed++;
+                        if (listener != null) {
+                            listener.onRowFailed(rowIndex, ticket, error);
+                        }
+                    }
+                }
+                db.setTransactionSuccessful();
+            } finally {
+                db.endTransaction();
+            }
+            if (listener != null) {
+                listener.onChunkCommitted(result.imported, result.failed);
+            }
+        }
+        return result;
+    }
+
+    // Inserts one imported ticket; returns null on success or the failure reason
+    private static String insertImportedTicket(SQLiteStatement statement, SQLiteStatement eventExists,
+            Ticket ticket, long importTime) {
+        if (ticket == null || ticket.getUserId() == null || ticket.getUserId().isEmpty()) {
+            return "Missing user id";
+        }
+        int eventId;
+        try {
+            eventId = Integer.parseInt(ticket.getEventId());
+        } catch (NumberFormatException e) {
+            return "Invalid event id: " + ticket.getEventId();
+        }
+        synchronized (eventExists) {
+            eventExists.bindLong(1, eventId);
+            if (eventExists.simpleQueryForLong() == 0) {
+                return "Unknown event: " + eventId;
+            }
+        }
+        long timestamp = ticket.getPurchaseTimestamp() > 0 ? ticket.getPurchaseTimestamp() : importTime;
+        synchronized (statement) {
+            statement.clearBindings();
+            statement.bindString(1, ticket.getUserId());
+            return executeTicketInsert(statement, eventId, ticket.getUniqueCode(), timestamp)
+                    ? null
+                    : "Insert failed";
+        }
+    }
+
+    // Binds the event/code/timestamp parameters shared by both ticket inserts and runs it
+    private static boolean executeTicketInsert(SQLiteStatement statement, int eventId, String uniqueCode,
+            long timestamp) {
+        statement.bindLong(2, eventId);
+        StatementPool.bindStringOrNull(statement, 3, uniqueCode);
+        statement.bindLong(4, timestamp);
+        try {
+            return statement.executeInsert() != -1;
+        } catch (SQLException e) {
+            android.util.Log.e("DatabaseHelper", "Error inserting ticket: " + e.getMessage());
+            return false;
+        }
+    }
+
+    static final String SQL_TICKETS_FOR_USER_ID = "SELECT t." + COL_TICKET_ID + ", t." + COL_TICKET_USER_ID
+            + ", t." + COL_TICKET_EVENT_ID + ", t." + COL_TICKET_CODE + ", t." + COL_TICKET_TIMESTAMP +
+            ", e." + COL_EVENT_TITLE + ", e." + COL_EVENT_DATE + ", e." + COL_EVENT_LOCATION +
+            " FROM " + TABLE_TICKETS + " t " +
+            "JOIN " + TABLE_EVENTS + " e ON t." + COL_TICKET_EVENT_ID + " = e." + COL_EVENT_ID +
+            " WHERE t." + COL_TICKET_USER_ID + " = ?" +
+            " ORDER BY t." + COL_TICKET_TIMESTAMP + " DESC";
+
     public List<Ticket> getTicketsForUser(int userId) {
-        List<Ticket> list = new ArrayList<>();
         SQLiteDatabase db = this.getReadableDatabase();
-        String query = "SELECT t." + COL_TICKET_ID + ", t." + COL_TICKET_USER_ID + ", t." + COL_TICKET_EVENT_ID + ", t."
-                + COL_TICKET_CODE + ", t." + COL_TICKET_TIMESTAMP +
-                ", e." + COL_EVENT_TITLE + ", e." + COL_EVENT_DATE + ", e." + COL_EVENT_LOCATION +
-                " FROM " + TABLE_TICKETS + " t " +
-                "JOIN " + TABLE_EVENTS + " e ON t." + COL_TICKET_EVENT_ID + " = e." + COL_EVENT_ID +
-                " WHERE t." + COL_TICKET_USER_ID + " = ?" +
-                " ORDER BY t." + COL_TICKET_TIMESTAMP + " DESC";
-
-        Cursor cursor = db.rawQuery(query, new String[] { String.valueOf(userId) });
-        if (cursor.moveToFirst()) {
-            do {
-                long timestamp = 0;
-                int timestampIndex = cursor.getColumnIndex(COL_TICKET_TIMESTAMP);
-                if (timestampIndex != -1)
-                    timestamp = cursor.getLong(timestampIndex);
-
-                list.add(new Ticket(
-                        String.valueOf(cursor.getInt(1)), // userId
-                        String.valueOf(cursor.getInt(2)), // eventId
-                        cursor.getString(3), // uniqueCode
-                        timestamp,
-                        cursor.getString(5),
-                        cursor.getString(6),
-                        cursor.getString(7)));
-            } while (cursor.moveToNext());
-        }
-        cursor.close();
-        return list;
+        Cursor cursor = db.rawQuery(SQL_TICKETS_FOR_USER_ID, new String[] { String.valueOf(userId) });
+        return mapAll(cursor, new TicketRowMapper(cursor));
     }
 
+    /**
+     * Every ticket of the user, newest purchase first, including tickets
+     * already moved to tickets_archive.
+     */
     public List<Ticket> getTicketsForUser(String userUid) {
-        List<Ticket> list = new ArrayList<>();
+        return getTicketsPage(userUid, Long.MAX_VALUE, null, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Moves tickets of events that ended more than horizonMs ago from tickets
+     * to tickets_archive, BACKFILL_BATCH_SIZE rows per transaction, keeping
+     * the hot table and its indexes small. sold_count is unaffected. Events
+     * with an unknown end time are never archived. Call from the writer
+     * thread.
+     *
+     * @return number of tickets moved
+     */
+    public int archivePastTickets(long horizonMs) {
+        SQLiteDatabase db = this.getWritableDatabase();
+        long cutoff = System.currentTimeMillis() - horizonMs;
+        String columns = COL_TICKET_ID + ", " + COL_TICKET_USER_ID + ", " + COL_TICKET_USER_UID + ", "
+                + COL_TICKET_EVENT_ID + ", " + COL_TICKET_CODE + ", " + COL_TICKET_TIMESTAMP;
+        String batch = "SELECT " + COL_TICKET_ID + " FROM " + TABLE_TICKETS + " WHERE " + COL_TICKET_EVENT_ID
+                + " IN (SELECT " + COL_EVENT_ID + " FROM " + TABLE_EVENTS + " WHERE " + COL_EVENT_END_AT + " > 0 AND "
+                + COL_EVENT_END_AT + " < ?) ORDER BY " + COL_TICKET_ID + " LIMIT " + BACKFILL_BATCH_SIZE;
+        SQLiteStatement copy = db.compileStatement("INSERT INTO " + TABLE_TICKETS_ARCHIVE + " (" + columns + ", "
+                + COL_TICKET_ARCHIVED_AT + ") SELECT " + columns + ", ? FROM " + TABLE_TICKETS + " WHERE "
+                + COL_TICKET_ID + " IN (" + batch + ")");
+        // Same batch: nothing else writes between the copy and the delete
+        SQLiteStatement delete = db.compileStatement("DELETE FROM " + TABLE_TICKETS + " WHERE " + COL_TICKET_ID
+                + " IN (" + batch + ")");
+        int archived = 0;
+        try {
+            while (true) {
+                int moved;
+                db.beginTransactionNonExclusive();
+                try {
+                    copy.bindLong(1, System.currentTimeMillis());
+                    copy.bindLong(2, cutoff);
+                    moved = copy.executeUpdateDelete();
+                    delete.bindLong(1, cutoff);
+                    delete.executeUpdateDelete();
+                    db.setTransactionSuccessful();
+                } finally {
+                    db.endTransaction();
+                }
+                archived += moved;
+                if (moved < BACKFILL_BATCH_SIZE) {
+                    break;
+                }
+            }
+        } finally {
+            copy.close();
+            delete.close();
+        }
+        return archived;
+    }
+
+    /**
+     * One page of a user's tickets, newest purchase first, keyset-paged on
+     * (purchase_timestamp, unique_code). Pass Long.MAX_VALUE and null for the
+     * first page, then the last ticket of the previous page. A NULL
+     * unique_code sorts as the empty string.
+     *
+     * Tickets newer than anything in tickets_archive are read from the hot
+     * table alone; only once the page reaches back into archived history does
+     * the query switch to tickets UNION ALL tickets_archive.
+     */
+    public List<Ticket> getTicketsPage(String userUid, long beforeTimestamp, String beforeCode, int limit) {
         SQLiteDatabase db = this.getReadableDatabase();
-        String query = "SELECT t." + COL_TICKET_ID + ", t." + COL_TICKET_USER_ID + ", t." + COL_TICKET_EVENT_ID + ", t."
-                + COL_TICKET_CODE + ", t." + COL_TICKET_TIMESTAMP +
-                ", e." + COL_EVENT_TITLE + ", e." + COL_EVENT_DATE + ", e." + COL_EVENT_LOCATION +
-                " FROM " + TABLE_TICKETS + " t " +
-                "JOIN " + TABLE_EVENTS + " e ON t." + COL_TICKET_EVENT_ID + " = e." + COL_EVENT_ID +
-                " WHERE t." + COL_TICKET_USER_UID + " = ?" +
-                " ORDER BY t." + COL_TICKET_TIMESTAMP + " DESC";
-
-        Cursor cursor = db.rawQuery(query, new String[] { userUid });
-        if (cursor.moveToFirst()) {
-            do {
-                long timestamp = 0;
-                int timestampIndex = cursor.getColumnIndex(COL_TICKET_TIMESTAMP);
-                if (timestampIndex != -1)
-                    timestamp = cursor.getLong(timestampIndex);
-
-                list.add(new Ticket(
-                        String.valueOf(cursor.getInt(1)), // userId (int -> String)
-                        String.valueOf(cursor.getInt(2)), // eventId (int -> String)
-                        cursor.getString(3), // uniqueCode
-                        timestamp,
-                        cursor.getString(5), // title
-                        cursor.getString(6), // date
-                        cursor.getString(7))); // location
-            } while (cursor.moveToNext());
+        String code = beforeCode != null ? beforeCode : "";
+        long newestArchived = newestArchivedPurchase(db, userUid);
+
+        Cursor cursor = db.rawQuery(ticketsPageSql(false), new String[] { userUid, String.valueOf(beforeTimestamp),
+                String.valueOf(beforeTimestamp), code, String.valueOf(newestArchived), String.valueOf(limit) });
+        List<Ticket> page = mapAll(cursor, new TicketRowMapper(cursor));
+        if (page.size() == limit || newestArchived < 0) {
+            return page;
+        }
+
+        if (!page.isEmpty()) {
+            Ticket last = page.get(page.size() - 1);
+            beforeTimestamp = last.getPurchaseTimestamp();
+            code = last.getUniqueCode() != null ? last.getUniqueCode() : "";
+        }
+        String[] cursorArgs = { userUid, String.valueOf(beforeTimestamp), String.valueOf(beforeTimestamp), code };
+        String[] args = new String[cursorArgs.length * 2 + 1];
+        System.arraycopy(cursorArgs, 0, args, 0, cursorArgs.length);
+        System.arraycopy(cursorArgs, 0, args, cursorArgs.length, cursorArgs.length);
+        args[args.length - 1] = String.valueOf(limit - page.size());
+        cursor = db.rawQuery(ticketsPageSql(true), args);
+        page.addAll(mapAll(cursor, new TicketRowMapper(cursor)));
+        return page;
+    }
+
+    // Result column getTicketsPage() orders by; a compound SELECT can only order by result columns
+    private static final String COL_TICKET_SORT_CODE = "sort_code";
+    // The same expression follows the timestamp in the user_uid indexes, so pages are read in order
+    private static final String TICKET_SORT_CODE = "IFNULL(" + COL_TICKET_CODE + ", '')";
+
+    /**
+     * getTicketsPage() query. The hot-only form binds the user uid, the
+     * (timestamp, code) cursor, the newest archived purchase time and the
+     * limit; the archive form binds the user uid and cursor once per table,
+     * then the limit.
+     */
+    static String ticketsPageSql(boolean withArchive) {
+        String order = " ORDER BY " + COL_TICKET_TIMESTAMP + " DESC, " + COL_TICKET_SORT_CODE + " DESC LIMIT ?";
+        if (withArchive) {
+            return ticketPageSelect(TABLE_TICKETS) + " UNION ALL " + ticketPageSelect(TABLE_TICKETS_ARCHIVE) + order;
+        }
+        return ticketPageSelect(TABLE_TICKETS) + " AND t." + COL_TICKET_TIMESTAMP + " > ?" + order;
+    }
+
+    // Ticket card query over one ticket table; binds user uid, then the (timestamp, code) cursor. The
+    // cursor is written as a range on the timestamp so the index is seeked rather than OR-ed and sorted.
+    private static String ticketPageSelect(String table) {
+        String sortCode = "IFNULL(t." + COL_TICKET_CODE + ", '')";
+        return "SELECT t." + COL_TICKET_ID + ", t." + COL_TICKET_USER_ID + ", t." + COL_TICKET_EVENT_ID + ", t."
+                + COL_TICKET_CODE + ", t." + COL_TICKET_TIMESTAMP + ", " + sortCode + " AS " + COL_TICKET_SORT_CODE
+                + ", e." + COL_EVENT_TITLE + ", e."
+                + COL_EVENT_DATE + ", e." + COL_EVENT_LOCATION + " FROM " + table + " t JOIN " + TABLE_EVENTS
+                + " e ON t." + COL_TICKET_EVENT_ID + " = e." + COL_EVENT_ID + " WHERE t." + COL_TICKET_USER_UID
+                + " = ? AND t." + COL_TICKET_TIMESTAMP + " <= ? AND (t." + COL_TICKET_TIMESTAMP + " < ? OR "
+                + sortCode + " < ?)";
+    }
+
+    // Purchase time of the user's newest archived ticket, or -1 if none are archived
+    private static long newestArchivedPurchase(SQLiteDatabase db, String userUid) {
+        Cursor cursor = db.rawQuery("SELECT MAX(" + COL_TICKET_TIMESTAMP + ") FROM " + TABLE_TICKETS_ARCHIVE
+                + " WHERE " + COL_TICKET_USER_UID + " = ?", new String[] { userUid });
+        try {
+            return cursor.moveToFirst() && !cursor.isNull(0) ? cursor.getLong(0) : -1;
+        } finally {
+            cursor.close();
+        }
+    }
+
+    // --- Row Mapping ---
+
+    /**
+     * Maps the current row of a cursor to a model object. Implementations
+     * resolve their column indexes once, in the constructor, so mapping a row
+     * does no column-name lookups.
+     */
+    interface RowMapper<T> {
+        T map(Cursor cursor);
+    }
+
+    /**
+     * Maps every row of the cursor and closes it.
+     */
+    static <T> List<T> mapAll(Cursor cursor, RowMapper<T> mapper) {
+        List<T> list = new ArrayList<>(Math.max(cursor.getCount(), 0));
+        try {
+            while (cursor.moveToNext()) {
+                list.add(mapper.map(cursor));
+            }
+        } finally {
+            cursor.close();
         }
-        cursor.close();
         return list;
     }
 
+    private static String getStringOrDefault(Cursor cursor, int index, String defaultValue) {
+        if (index == -1 || cursor.isNull(index)) {
+            return defaultValue;
+        }
+        return cursor.getString(index);
+    }
+
+    static class UserRowMapper implements RowMapper<User> {
+        private final int id, firstName, lastName, email, password, role, phone;
+
+        UserRowMapper(Cursor cursor) {
+            id = cursor.getColumnIndexOrThrow(COL_USER_ID);
+            firstName = cursor.getColumnIndexOrThrow(COL_USER_FNAME);
+            lastName = cursor.getColumnIndexOrThrow(COL_USER_LNAME);
+            email = cursor.getColumnIndexOrThrow(COL_USER_EMAIL);
+            password = cursor.getColumnIndexOrThrow(COL_USER_PASS);
+            role = cursor.getColumnIndexOrThrow(COL_USER_ROLE);
+            phone = cursor.getColumnIndexOrThrow(COL_USER_PHONE);
+        }
+
+        @Override
+        public User map(Cursor cursor) {
+            return new User(
+                    cursor.getInt(id),
+                    cursor.getString(firstName),
+                    cursor.getString(lastName),
+                    cursor.getString(email),
+                    cursor.getString(password),
+                    cursor.getString(role),
+                    cursor.getString(phone));
+        }
+    }
+
+    /**
+     * Maps full or partial event projections. Columns missing from the
+     * projection fall back to the same defaults as the table definition.
+     */
+    static class EventRowMapper implements RowMapper<Event> {
+        private final int id, title, date, location, description, status, ticketPrice, ticketQuantity,
+                coverImagePath, galleryPaths, eventType, startAt, endAt, statusCode, typeCode,
+                soldCount, firestoreId, organizerId;
+
+        EventRowMapper(Cursor cursor) {
+            id = cursor.getColumnIndexOrThrow(COL_EVENT_ID);
+            title = cursor.getColumnIndexOrThrow(COL_EVENT_TITLE);
+            date = cursor.getColumnIndexOrThrow(COL_EVENT_DATE);
+            location = cursor.getColumnIndexOrThrow(COL_EVENT_LOCATION);
+            description = cursor.getColumnIndex(COL_EVENT_DESC);
+            status = cursor.getColumnIndex(COL_EVENT_STATUS);
+            ticketPrice = cursor.getColumnIndex(COL_EVENT_TICKET_PRICE);
+            ticketQuantity = cursor.getColumnIndex(COL_EVENT_TICKET_QUANTITY);
+            coverImagePath = cursor.getColumnIndex(COL_EVENT_COVER_IMAGE_PATH);
+            galleryPaths = cursor.getColumnIndex(COL_EVENT_GALLERY_PATHS);
+            eventType = cursor.getColumnIndex(COL_EVENT_TYPE);
+            startAt = cursor.getColumnIndex(COL_EVENT_START_AT);
+            endAt = cursor.getColumnIndex(COL_EVENT_END_AT);
+            statusCode = cursor.getColumnIndex(COL_EVENT_STATUS_CODE);
+            typeCode = cursor.getColumnIndex(COL_EVENT_TYPE_CODE);
+            soldCount = cursor.getColumnIndex(COL_EVENT_SOLD_COUNT);
+            firestoreId = cursor.getColumnIndex(COL_EVENT_FIRESTORE_ID);
+            organizerId = cursor.getColumnIndex(COL_EVENT_ORGANIZER_ID);
+        }
+
+        // status_code is NULL only on upgraded rows the v12 backfill has not reached yet
+        private Event.Status readStatus(Cursor cursor) {
+            if (statusCode != -1 && !cursor.isNull(statusCode)) {
+                return Event.Status.fromCode(cursor.getInt(statusCode));
+            }
+            return Event.Status.fromLabel(getStringOrDefault(cursor, status, null));
+        }
+
+        // Local events keep their gallery in event_images; a CSV left on their row predates v11.
+        // null (not "") so that passing the event back to updateEvent() keeps the gallery.
+        private String readGalleryPaths(Cursor cursor) {
+            if (firestoreId != -1 && cursor.isNull(firestoreId)) {
+                return null;
+            }
+            return getStringOrDefault(cursor, galleryPaths, "");
+        }
+
+        private String readEventType(Cursor cursor) {
+            if (eventType != -1 && !cursor.isNull(eventType)) {
+                return cursor.getString(eventType);
+            }
+            if (typeCode != -1 && !cursor.isNull(typeCode)) {
+                return Event.EventType.fromCode(cursor.getInt(typeCode)).label;
+            }
+            return Event.EventType.OTHER.label;
+        }
+
+        @Override
+        public Event map(Cursor cursor) {
+            Event event = new Event(
+                    cursor.getInt(id),
+                    cursor.getString(title),
+                    cursor.getString(date),
+                    cursor.getString(location),
+                    getStringOrDefault(cursor, description, null),
+                    null,
+                    ticketPrice != -1 ? cursor.getDouble(ticketPrice) : 0.0,
+                    ticketQuantity != -1 ? cursor.getInt(ticketQuantity) : 0,
+                    getStringOrDefault(cursor, coverImagePath, ""),
+                    readGalleryPaths(cursor),
+                    readEventType(cursor));
+            event.setEventStatus(readStatus(cursor));
+            if (startAt != -1) {
+                event.setStartAt(cursor.getLong(startAt));
+            }
+            if (endAt != -1) {
+                event.setEndAt(cursor.getLong(endAt));
+            }
+            if (soldCount != -1) {
+                event.setSoldCount(cursor.getInt(soldCount));
+            }
+            event.setFirestoreId(getStringOrDefault(cursor, firestoreId, null));
+            event.setOrganizerId(getStringOrDefault(cursor, organizerId, null));
+            return event;
+        }
+    }
+
+    static class EventImageRowMapper implements RowMapper<EventImage> {
+        private final int id, eventId, ordinal, path, width, height, byteSize;
+
+        EventImageRowMapper(Cursor cursor) {
+            id = cursor.getColumnIndexOrThrow(COL_IMAGE_ID);
+            eventId = cursor.getColumnIndexOrThrow(COL_IMAGE_EVENT_ID);
+            ordinal = cursor.getColumnIndexOrThrow(COL_IMAGE_ORDINAL);
+            path = cursor.getColumnIndexOrThrow(COL_IMAGE_PATH);
+            width = cursor.getColumnIndexOrThrow(COL_IMAGE_WIDTH);
+            height = cursor.getColumnIndexOrThrow(COL_IMAGE_HEIGHT);
+            byteSize = cursor.getColumnIndexOrThrow(COL_IMAGE_BYTE_SIZE);
+        }
+
+        @Override
+        public EventImage map(Cursor cursor) {
+            return new EventImage(
+                    cursor.getInt(id),
+                    cursor.getInt(eventId),
+                    cursor.getInt(ordinal),
+                    cursor.getString(path),
+                    cursor.getInt(width),
+                    cursor.getInt(height),
+                    cursor.getLong(byteSize));
+        }
+    }
+
+    static class OutboxEntryRowMapper implements RowMapper<OutboxEntry> {
+        private final int id, userId, kind, docId, payload, createdAt;
+
+        OutboxEntryRowMapper(Cursor cursor) {
+            id = cursor.getColumnIndexOrThrow(COL_OUTBOX_ID);
+            userId = cursor.getColumnIndexOrThrow(COL_OUTBOX_USER_ID);
+            kind = cursor.getColumnIndexOrThrow(COL_OUTBOX_KIND);
+            docId = cursor.getColumnIndexOrThrow(COL_OUTBOX_DOC_ID);
+            payload = cursor.getColumnIndexOrThrow(COL_OUTBOX_PAYLOAD);
+            createdAt = cursor.getColumnIndexOrThrow(COL_OUTBOX_CREATED_AT);
+        }
+
+        @Override
+        public OutboxEntry map(Cursor cursor) {
+            OutboxEntry entry = new OutboxEntry(cursor.getString(userId), cursor.getString(kind),
+                    cursor.getString(docId), cursor.getString(payload), cursor.getLong(createdAt));
+            entry.setId(cursor.getLong(id));
+            return entry;
+        }
+    }
+
+    /**
+     * Maps rows of the tickets JOIN events queries.
+     */
+    static class TicketRowMapper implements RowMapper<Ticket> {
+        private final int userId, eventId, uniqueCode, timestamp, eventTitle, eventDate, eventLocation;
+
+        TicketRowMapper(Cursor cursor) {
+            userId = cursor.getColumnIndexOrThrow(COL_TICKET_USER_ID);
+            eventId = cursor.getColumnIndexOrThrow(COL_TICKET_EVENT_ID);
+            uniqueCode = cursor.getColumnIndexOrThrow(COL_TICKET_CODE);
+            timestamp = cursor.getColumnIndex(COL_TICKET_TIMESTAMP);
+            eventTitle = cursor.getColumnIndexOrThrow(COL_EVENT_TITLE);
+            eventDate = cursor.getColumnIndexOrThrow(COL_EVENT_DATE);
+            eventLocation = cursor.getColumnIndexOrThrow(COL_EVENT_LOCATION);
+        }
+
+        @Override
+        public Ticket map(Cursor cursor) {
+            return new Ticket(
+                    String.valueOf(cursor.getInt(userId)),
+                    String.valueOf(cursor.getInt(eventId)),
+                    cursor.getString(uniqueCode),
+                    timestamp != -1 ? cursor.getLong(timestamp) : 0,
+                    cursor.getString(eventTitle),
+                    cursor.getString(eventDate),
+                    cursor.getString(eventLocation));
+        }
+    }
+
 }
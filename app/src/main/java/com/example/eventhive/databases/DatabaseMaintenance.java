@@ -0,0 +1,121 @@
+package com.example.eventhive.databases;
+
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+
+/**
+ * Housekeeping run while the device is idle: hands free pages left by deletes
+ * back to the file system and keeps the query planner's statistics fresh.
+ *
+ * Vacuuming happens in slices of SLICE_PAGES so the writer lock is released
+ * between slices, and stops early if the calling thread is interrupted.
+ */
+class DatabaseMaintenance {
+
+    static final String TABLE_RUNS = "maintenance_runs";
+
+    // Pages freed per incremental_vacuum call, and the cap per run
+    private static final int SLICE_PAGES = 256;
+    private static final int MAX_SLICES = 64;
+
+    // PRAGMA auto_vacuum value for INCREMENTAL
+    private static final long AUTO_VACUUM_INCREMENTAL = 2;
+
+    // Runs kept in maintenance_runs
+    private static final int HISTORY_SIZE = 30;
+
+    static void createTable(SQLiteDatabase db) {
+        db.execSQL("CREATE TABLE IF NOT EXISTS " + TABLE_RUNS + " (" +
+                "id INTEGER PRIMARY KEY AUTOINCREMENT, " +
+                "ran_at INTEGER, " +
+                "reclaimed_bytes INTEGER, " +
+                "free_pages_left INTEGER, " +
+                "vacuum_ms INTEGER, " +
+                "analyze_ms INTEGER, " +
+                "converted INTEGER DEFAULT 0, " +
+                "interrupted INTEGER DEFAULT 0)");
+    }
+
+    /**
+     * Runs one maintenance pass and records it in maintenance_runs.
+     *
+     * @param convertToIncremental rebuild a database still in auto_vacuum=NONE
+     *                             mode with a full VACUUM so later passes can
+     *                             work in slices
+     */
+    static MaintenanceReport run(SQLiteDatabase db, boolean convertToIncremental) {
+        MaintenanceReport report = new MaintenanceReport();
+        long pageSize = readPragma(db, "page_size");
+        long pagesBefore = readPragma(db, "page_count");
+
+        long started = System.nanoTime();
+        if (readPragma(db, "auto_vacuum") == AUTO_VACUUM_INCREMENTAL) {
+            for (int slice = 0; slice < MAX_SLICES; slice++) {
+                if (Thread.currentThread().isInterrupted()) {
+                    report.interrupted = true;
+                    break;
+                }
+                long free = readPragma(db, "freelist_count");
+                if (free == 0) {
+                    break;
+                }
+                StorageProfile.pragma(db, "incremental_vacuum(" + SLICE_PAGES + ")");
+                if (readPragma(db, "freelist_count") >= free) {
+                    break;
+                }
+            }
+        } else if (convertToIncremental && readPragma(db, "freelist_count") > 0) {
+            // auto_vacuum can only be switched by rebuilding the file once
+            StorageProfile.pragma(db, "auto_vacuum = INCREMENTAL");
+            db.execSQL("VACUUM");
+            report.convertedToIncremental = true;
+        }
+        report.vacuumMs = (System.nanoTime() - started) / 1000000;
+        report.freePagesLeft = readPragma(db, "freelist_count");
+        report.reclaimedBytes = Math.max(0, pagesBefore - readPragma(db, "page_count")) * pageSize;
+
+        if (!report.interrupted) {
+            started = System.nanoTime();
+            if (hasStatistics(db)) {
+                // Re-analyzes only the tables whose statistics have gone stale
+                StorageProfile.pragma(db, "optimize");
+            } else {
+                db.execSQL("ANALYZE");
+            }
+            report.analyzeMs = (System.nanoTime() - started) / 1000000;
+        }
+
+        // In WAL mode the file only shrinks once the WAL is checkpointed
+        StorageProfile.pragma(db, "wal_checkpoint(TRUNCATE)");
+        record(db, report);
+        return report;
+    }
+
+    private static void record(SQLiteDatabase db, MaintenanceReport report) {
+        db.execSQL("INSERT INTO " + TABLE_RUNS + " (ran_at, reclaimed_bytes, free_pages_left, vacuum_ms, " +
+                "analyze_ms, converted, interrupted) VALUES (?, ?, ?, ?, ?, ?, ?)",
+                new Object[] { System.currentTimeMillis(), report.reclaimedBytes, report.freePagesLeft,
+                        report.vacuumMs, report.analyzeMs, report.convertedToIncremental ? 1 : 0,
+                        report.interrupted ? 1 : 0 });
+        db.execSQL("DELETE FROM " + TABLE_RUNS + " WHERE id <= (SELECT MAX(id) FROM " + TABLE_RUNS + ") - "
+                + HISTORY_SIZE);
+    }
+
+    private static boolean hasStatistics(SQLiteDatabase db) {
+        Cursor cursor = db.rawQuery("SELECT 1 FROM sqlite_master WHERE name = 'sqlite_stat1'", null);
+        try {
+            return cursor.moveToFirst();
+        } finally {
+            cursor.close();
+        }
+    }
+
+    private static long readPragma(SQLiteDatabase db, String name) {
+        Cursor cursor = db.rawQuery("PRAGMA " + name, null);
+        try {
+            return cursor.moveToFirst() ? cursor.getLong(0) : 0;
+        } finally {
+            cursor.close();
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.eventhive.databases;
+
+import android.app.job.JobInfo;
+import android.app.job.JobParameters;
+import android.app.job.JobScheduler;
+import android.app.job.JobService;
+import android.content.ComponentName;
+import android.content.Context;
+import android.database.SQLException;
+import android.util.Log;
+
+import java.util.concurrent.Future;
+
+/**
+ * Daily job that runs DatabaseHelper.runMaintenance() while the device is
+ * idle and charging. The pass runs on the database writer thread; if the
+ * system stops the job early the pass is interrupted between vacuum slices
+ * and the job is retried.
+ */
+public class DatabaseMaintenanceService extends JobService {
+
+    private static final String TAG = "DbMaintenance";
+    private static final int JOB_ID = 1014;
+    private static final long INTERVAL_MS = 24L * 60 * 60 * 1000;
+
+    private Future<?> running;
+
+    /**
+     * Schedules the job if it is not already pending. Safe to call on every
+     * app start.
+     */
+    public static void schedule(Context context) {
+        JobScheduler scheduler = context.getSystemService(JobScheduler.class);
+        if (scheduler == null || scheduler.getPendingJob(JOB_ID) != null) {
+            return;
+        }
+        JobInfo job = new JobInfo.Builder(JOB_ID, new ComponentName(context, DatabaseMaintenanceService.class))
+                .setRequiresDeviceIdle(true)
+                .setRequiresCharging(true)
+                .setPeriodic(INTERVAL_MS)
+                .build();
+        scheduler.schedule(job);
+    }
+
+    @Override
+    public boolean onStartJob(JobParameters params) {
+        DatabaseHelper dbHelper = DatabaseHelper.getInstance(this);
+        running = dbHelper.submitWrite(() -> {
+            try {
+                int archived = dbHelper.archivePastTickets(DatabaseHelper.DEFAULT_ARCHIVE_HORIZON_MS);
+                MaintenanceReport report = dbHelper.runMaintenance();
+                Log.i(TAG, "Maintenance finished: archived " + archived + " tickets, " + report);
+            } catch (SQLException e) {
+                Log.e(TAG, "Maintenance failed: " + e.getMessage());
+            } finally {
+                jobFinished(params, false);
+            }
+        });
+        return true;
+    }
+
+    @Override
+    public boolean onStopJob(JobParameters params) {
+        if (running != null) {
+            running.cancel(true);
+        }
+        return true;
+    }
+}
@@ -0,0 +1,44 @@
+package com.example.eventhive.databases;
+
+/**
+ * Outcome of one DatabaseHelper.runMaintenance() pass.
+ */
+public class MaintenanceReport {
+    long reclaimedBytes;
+    long freePagesLeft;
+    long vacuumMs;
+    long analyzeMs;
+    boolean convertedToIncremental;
+    boolean interrupted;
+
+    public long getReclaimedBytes() {
+        return reclaimedBytes;
+    }
+
+    public long getFreePagesLeft() {
+        return freePagesLeft;
+    }
+
+    public long getVacuumMs() {
+        return vacuumMs;
+    }
+
+    public long getAnalyzeMs() {
+        return analyzeMs;
+    }
+
+    public boolean isConvertedToIncremental() {
+        return convertedToIncremental;
+    }
+
+    public boolean isInterrupted() {
+        return interrupted;
+    }
+
+    @Override
+    public String toString() {
+        return "reclaimed=" + reclaimedBytes + "B, freePagesLeft=" + freePagesLeft + ", vacuumMs=" + vacuumMs
+                + ", analyzeMs=" + analyzeMs + ", converted=" + convertedToIncremental
+                + ", interrupted=" + interrupted;
+    }
+}
@@ -0,0 +1,231 @@
+package com.example.eventhive.databases;
+
+import android.database.Cursor;
+import android.database.SQLException;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
+import android.util.Log;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Registry of numbered schema steps and the data backfills they leave behind.
+ *
+ * Each step runs in its own transaction and is recorded in schema_migrations
+ * together with how long it took. A failing step is rethrown rather than
+ * logged, so SQLiteOpenHelper rolls the whole upgrade back and keeps the old
+ * version; the next open retries from a clean schema.
+ *
+ * Row-by-row rewrites do not belong in a step. A step schedules a named
+ * backfill instead, which runBackfills() works through in chunks after the
+ * database is open, saving its position in schema_backfills after every chunk
+ * so it resumes where it stopped if the process dies.
+ */
+class MigrationRunner {
+
+    private static final String TAG = "MigrationRunner";
+
+    static final String TABLE_MIGRATIONS = "schema_migrations";
+    static final String TABLE_BACKFILLS = "schema_backfills";
+
+    /**
+     * One schema change. Runs inside a transaction owned by the runner.
+     */
+    interface Step {
+        void apply(SQLiteDatabase db);
+    }
+
+    /**
+     * One resumable data rewrite, walked in primary key order.
+     */
+    interface Backfill {
+        /**
+         * Processes up to limit rows with a key greater than lastKey.
+         *
+         * @return the last key processed, or lastKey when nothing was left
+         */
+        long runChunk(SQLiteDatabase db, long lastKey, int limit);
+    }
+
+    private static class Migration {
+        final int version;
+        final String description;
+        final Step step;
+
+        Migration(int version, String description, Step step) {
+            this.version = version;
+            this.description = description;
+            this.step = step;
+        }
+    }
+
+    private final List<Migration> migrations = new ArrayList<>();
+    private final Map<String, Backfill> backfills = new LinkedHashMap<>();
+
+    /**
+     * Registers the step that takes the schema to the given version. Versions
+     * must be registered in increasing order.
+     */
+    MigrationRunner step(int version, String description, Step step) {
+        if (!migrations.isEmpty() && migrations.get(migrations.size() - 1).version >= version) {
+            throw new IllegalArgumentException("Migration v" + version + " registered out of order");
+        }
+        migrations.add(new Migration(version, description, step));
+        return this;
+    }
+
+    /**
+     * Registers a backfill. It only runs once a step has scheduled it.
+     */
+    MigrationRunner backfill(String name, Backfill backfill) {
+        backfills.put(name, backfill);
+        return this;
+    }
+
+    /**
+     * Creates the bookkeeping tables. Safe to call on every open.
+     */
+    static void createTables(SQLiteDatabase db) {
+        db.execSQL("CREATE TABLE IF NOT EXISTS " + TABLE_MIGRATIONS + " (" +
+                "version INTEGER PRIMARY KEY, " +
+                "description TEXT, " +
+                "applied_at INTEGER, " +
+                "duration_ms INTEGER)");
+        db.execSQL("CREATE TABLE IF NOT EXISTS " + TABLE_BACKFILLS + " (" +
+                "name TEXT PRIMARY KEY, " +
+                "last_key INTEGER DEFAULT 0, " +
+                "chunks_done INTEGER DEFAULT 0, " +
+                "completed_at INTEGER)");
+    }
+
+    /**
+     * Applies every step above fromVersion up to toVersion, one transaction
+     * per step.
+     *
+     * @throws SQLException if a step fails; nothing after it is applied
+     */
+    void migrate(SQLiteDatabase db, int fromVersion, int toVersion) {
+        createTables(db);
+        for (Migration migration : migrations) {
+            if (migration.version <= fromVersion || migration.version > toVersion) {
+                continue;
+            }
+            long started = System.nanoTime();
+            db.beginTransaction();
+            try {
+                migration.step.apply(db);
+                long durationMs = (System.nanoTime() - started) / 1000000;
+                db.execSQL("INSERT OR REPLACE INTO " + TABLE_MIGRATIONS +
+                        " (version, description, applied_at, duration_ms) VALUES (?, ?, ?, ?)",
+                        new Object[] { migration.version, migration.description, System.currentTimeMillis(),
+                                durationMs });
+                db.setTransactionSuccessful();
+                Log.i(TAG, "Applied v" + migration.version + " (" + migration.description + ") in "
+                        + durationMs + " ms");
+            } catch (RuntimeException e) {
+                Log.e(TAG, "Migration to v" + migration.version + " failed", e);
+                throw new SQLException("Migration to v" + migration.version + " failed: " + e.getMessage(), e);
+            } finally {
+                db.endTransaction();
+            }
+        }
+    }
+
+    /**
+     * Marks a registered backfill as pending. Called from inside a step so
+     * the schedule commits or rolls back with the schema change.
+     */
+    static void schedule(SQLiteDatabase db, String name) {
+        db.execSQL("INSERT OR IGNORE INTO " + TABLE_BACKFILLS + " (name, last_key, chunks_done) VALUES (?, 0, 0)",
+                new Object[] { name });
+    }
+
+    /**
+     * Runs every scheduled, unfinished backfill to completion, one chunk per
+     * transaction. Must not be called on the main thread.
+     */
+    void runBackfills(SQLiteDatabase db, int chunkSize) {
+        createTables(db);
+        for (Map.Entry<String, Backfill> entry : backfills.entrySet()) {
+            String name = entry.getKey();
+            long lastKey = readPendingKey(db, name);
+            if (lastKey < 0) {
+                continue;
+            }
+            long started = System.nanoTime();
+            int chunks = 0;
+            SQLiteStatement progress = db.compileStatement("UPDATE " + TABLE_BACKFILLS +
+                    " SET last_key = ?, chunks_done = chunks_done + ?, completed_at = ? WHERE name = ?");
+            try {
+                while (true) {
+                    boolean done;
+                    db.beginTransactionNonExclusive();
+                    try {
+                        long nextKey = entry.getValue().runChunk(db, lastKey, chunkSize);
+                        done = nextKey == lastKey;
+                        progress.bindLong(1, nextKey);
+                        progress.bindLong(2, done ? 0 : 1);
+                        if (done) {
+                            progress.bindLong(3, System.currentTimeMillis());
+                        } else {
+                            progress.bindNull(3);
+                        }
+                        progress.bindString(4, name);
+                        progress.executeUpdateDelete();
+                        db.setTransactionSuccessful();
+                        lastKey = nextKey;
+                    } finally {
+                        db.endTransaction();
+                    }
+                    if (done) {
+                        break;
+                    }
+                    chunks++;
+                }
+                Log.i(TAG, "Backfill " + name + " finished " + chunks + " chunks in "
+                        + (System.nanoTime() - started) / 1000000 + " ms");
+            } finally {
+                progress.close();
+            }
+        }
+    }
+
+    // Saved position of a scheduled backfill, or -1 if it is not pending
+    private static long readPendingKey(SQLiteDatabase db, String name) {
+        Cursor cursor = db.rawQuery("SELECT last_key FROM " + TABLE_BACKFILLS +
+                " WHERE name = ? AND completed_at IS NULL", new String[] { name });
+        try {
+            return cursor.moveToFirst() ? cursor.getLong(0) : -1;
+        } finally {
+            cursor.close();
+        }
+    }
+
+    /**
+     * ALTER TABLE ADD COLUMN that is a no-op when the column already exists,
+     * so a step can be re-run over a schema an older release half-applied.
+     */
+    static void addColumnIfMissing(SQLiteDatabase db, String table, String column, String definition) {
+        if (!hasColumn(db, table, column)) {
+            db.execSQL("ALTER TABLE " + table + " ADD COLUMN " + column + " " + definition);
+        }
+    }
+
+    static boolean hasColumn(SQLiteDatabase db, String table, String column) {
+        Cursor cursor = db.rawQuery("PRAGMA table_info(" + table + ")", null);
+        try {
+            int nameIndex = cursor.getColumnIndex("name");
+            while (cursor.moveToNext()) {
+                if (column.equalsIgnoreCase(cursor.getString(nameIndex))) {
+                    return true;
+                }
+            }
+            return false;
+        } finally {
+            cursor.close();
+        }
+    }
+}
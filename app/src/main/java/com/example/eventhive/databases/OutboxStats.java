@@ -0,0 +1,29 @@
+package com.example.eventhive.databases;
+
+/**
+ * Size and age of the Firestore write outbox at one point in time.
+ */
+public class OutboxStats {
+    int depth;
+    long oldestCreatedAt; // 0 when empty
+
+    public int getDepth() {
+        return depth;
+    }
+
+    public long getOldestCreatedAt() {
+        return oldestCreatedAt;
+    }
+
+    /**
+     * How long the oldest entry has been waiting, or 0 when empty.
+     */
+    public long getAgeMs(long nowMs) {
+        return depth == 0 ? 0 : Math.max(0, nowMs - oldestCreatedAt);
+    }
+
+    @Override
+    public String toString() {
+        return "depth=" + depth + ", ageMs=" + getAgeMs(System.currentTimeMillis());
+    }
+}
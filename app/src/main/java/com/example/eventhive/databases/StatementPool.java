@@ -0,0 +1,61 @@
+package com.example.eventhive.databases;
+
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Keeps compiled SQLiteStatements keyed by their SQL so hot write paths
+ * only parse their INSERT/UPDATE once per database connection.
+ *
+ * SQLiteStatement is not thread-safe: callers must hold the statement's
+ * monitor while binding and executing it.
+ */
+class StatementPool {
+
+    private final Map<String, SQLiteStatement> statements = new HashMap<>();
+    private SQLiteDatabase owner;
+
+    /**
+     * Returns the compiled statement for this SQL, compiling it on first use.
+     * Statements compiled against a previous (closed) database are released.
+     */
+    synchronized SQLiteStatement acquire(SQLiteDatabase db, String sql) {
+        if (db != owner) {
+            releaseAll();
+            owner = db;
+        }
+        SQLiteStatement statement = statements.get(sql);
+        if (statement == null) {
+            statement = db.compileStatement(sql);
+            statements.put(sql, statement);
+        }
+        return statement;
+    }
+
+    /**
+     * Closes every pooled statement. Called when the helper is closed.
+     */
+    synchronized void releaseAll() {
+        for (SQLiteStatement statement : statements.values()) {
+            synchronized (statement) {
+                statement.close();
+            }
+        }
+        statements.clear();
+        owner = null;
+    }
+
+    /**
+     * Binds a possibly-null string; SQLiteStatement.bindString rejects null.
+     */
+    static void bindStringOrNull(SQLiteStatement statement, int index, String value) {
+        if (value == null) {
+            statement.bindNull(index);
+        } else {
+            statement.bindString(index, value);
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package com.example.eventhive.databases;
+
+import android.database.Cursor;
+import android.database.SQLException;
+import android.database.sqlite.SQLiteDatabase;
+import android.os.Build;
+
+/**
+ * SQLite storage settings applied when EventHive.db is opened.
+ *
+ * mmap_size, cache_size and temp_store are per connection. On Android 11
+ * and later each is registered for every connection of the pool, WAL
+ * readers included, if the release accepts it there. Otherwise, and on
+ * older releases, which offer no per-connection hook, only the primary
+ * connection (every write, transaction and maintenance run) gets them and
+ * pooled reads keep the SQLite defaults. page_size and auto_vacuum are
+ * stored in the file header, so they only take effect when the database is
+ * created; existing databases keep theirs until rebuilt with VACUUM.
+ *
+ * A value of 0 leaves the platform default in place.
+ */
+public class StorageProfile {
+
+    /** SQLite defaults as shipped by the platform. */
+    public static final StorageProfile PLATFORM_DEFAULT = new StorageProfile("platform", 0, 0, 0, false, false);
+
+    /** 32 MB mapped, 4 KB pages, 2 MB cache. */
+    public static final StorageProfile BALANCED = new StorageProfile("balanced", 32L * 1024 * 1024, 4096, 2048,
+            true, true);
+
+    /** 128 MB mapped, 8 KB pages, 8 MB cache, for large catalogs on devices with RAM to spare. */
+    public static final StorageProfile READ_HEAVY = new StorageProfile("read_heavy", 128L * 1024 * 1024, 8192, 8192,
+            true, true);
+
+    public final String name;
+    public final long mmapSizeBytes;
+    public final int pageSizeBytes;
+    public final int cacheSizeKb;
+    public final boolean tempStoreInMemory;
+    public final boolean incrementalVacuum;
+
+    public StorageProfile(String name, long mmapSizeBytes, int pageSizeBytes, int cacheSizeKb,
+            boolean tempStoreInMemory, boolean incrementalVacuum) {
+        this.name = name;
+        this.mmapSizeBytes = mmapSizeBytes;
+        this.pageSizeBytes = pageSizeBytes;
+        this.cacheSizeKb = cacheSizeKb;
+        this.tempStoreInMemory = tempStoreInMemory;
+        this.incrementalVacuum = incrementalVacuum;
+    }
+
+    /**
+     * Sets the header-level options. Must run on a database that has no
+     * tables yet and before WAL is enabled, or SQLite ignores them.
+     */
+    void applyToNewDatabase(SQLiteDatabase db) {
+        if (pageSizeBytes > 0) {
+            pragma(db, "page_size = " + pageSizeBytes);
+        }
+        if (incrementalVacuum) {
+            pragma(db, "auto_vacuum = INCREMENTAL");
+        }
+    }
+
+    /**
+     * Sets the per-connection options. Call once per open, from onConfigure():
+     * on Android 11+ they are registered with execPerConnectionSQL(), which
+     * runs them on the open connections and on every connection the pool
+     * opens later. Before that only the connection db hands out, the
+     * primary one, is configured.
+     */
+    void applyToConnections(SQLiteDatabase db) {
+        if (mmapSizeBytes > 0) {
+            perConnectionPragma(db, "mmap_size = " + mmapSizeBytes);
+        }
+        if (cacheSizeKb > 0) {
+            // Negative cache_size is in KiB rather than pages
+            perConnectionPragma(db, "cache_size = -" + cacheSizeKb);
+        }
+        if (tempStoreInMemory) {
+            perConnectionPragma(db, "temp_store = MEMORY");
+        }
+    }
+
+    private static void perConnectionPragma(SQLiteDatabase db, String assignment) {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.R) {
+            try {
+                db.execPerConnectionSQL("PRAGMA " + assignment, null);
+                return;
+            } catch (SQLException e) {
+                // Releases that reject PRAGMAs echoing a row (mmap_size) here unregister it again
+                android.util.Log.w("StorageProfile", "Primary connection only: " + assignment);
+            }
+        }
+        pragma(db, assignment);
+    }
+
+    /**
+     * Runs a PRAGMA to completion. Some PRAGMAs echo a row, which execSQL
+     * rejects, and incremental_vacuum frees one page per step, so the cursor
+     * is filled rather than just opened.
+     */
+    static void pragma(SQLiteDatabase db, String assignment) {
+        Cursor cursor = db.rawQuery("PRAGMA " + assignment, null);
+        try {
+            cursor.getCount();
+        } finally {
+            cursor.close();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return name + " (mmap=" + mmapSizeBytes + ", page=" + pageSizeBytes + ", cacheKb=" + cacheSizeKb
+                + ", tempMemory=" + tempStoreInMemory + ", incrementalVacuum=" + incrementalVacuum + ")";
+    }
+}
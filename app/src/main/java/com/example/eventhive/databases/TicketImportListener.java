@@ -0,0 +1,26 @@
+package com.example.eventhive.databases;
+
+import com.example.eventhive.models.Ticket;
+
+/**
+ * Progress callback for DatabaseHelper.importTickets(). Called on the
+ * importing thread.
+ */
+public interface TicketImportListener {
+    /**
+     * Called after each chunk transaction commits
+     *
+     * @param imported Rows imported so far
+     * @param failed   Rows rejected so far
+     */
+    void onChunkCommitted(int imported, int failed);
+
+    /**
+     * Called when a single row could not be imported
+     *
+     * @param rowIndex Zero-based position of the row in the input
+     * @param ticket   The rejected record
+     * @param reason   Why the row was rejected
+     */
+    void onRowFailed(int rowIndex, Ticket ticket, String reason);
+}
@@ -0,0 +1,17 @@
+package com.example.eventhive.databases;
+
+/**
+ * Totals returned by DatabaseHelper.importTickets().
+ */
+public class TicketImportResult {
+    int imported;
+    int failed;
+
+    public int getImported() {
+        return imported;
+    }
+
+    public int getFailed() {
+        return failed;
+    }
+}
@@ -8,13 +8,87 @@ public class Event implements Serializable {
     public static final String STATUS_HOLD = "Hold";
     public static final String STATUS_CANCELLED = "Cancelled";
 
+    /**
+     * Event status with the integer code stored in SQLite.
+     */
+    public enum Status {
+        ACTIVE(0, STATUS_ACTIVE),
+        HOLD(1, STATUS_HOLD),
+        CANCELLED(2, STATUS_CANCELLED);
+
+        public final int code;
+        public final String label;
+
+        Status(int code, String label) {
+            this.code = code;
+            this.label = label;
+        }
+
+        public static Status fromCode(int code) {
+            for (Status status : values()) {
+                if (status.code == code) {
+                    return status;
+                }
+            }
+            return ACTIVE;
+        }
+
+        public static Status fromLabel(String label) {
+            for (Status status : values()) {
+                if (status.label.equalsIgnoreCase(label)) {
+                    return status;
+                }
+            }
+            return ACTIVE;
+        }
+    }
+
+    /**
+     * Event category with the integer code stored in SQLite.
+     */
+    public enum EventType {
+        CONCERT(0, "Concert"),
+        SEMINAR(1, "Seminar"),
+        FESTIVAL(2, "Festival"),
+        WORKSHOP(3, "Workshop"),
+        SPORTS(4, "Sports"),
+        CONFERENCE(5, "Conference"),
+        OTHER(6, "Other");
+
+        public final int code;
+        public final String label;
+
+        EventType(int code, String label) {
+            this.code = code;
+            this.label = label;
+        }
+
+        public static EventType fromCode(int code) {
+            for (EventType type : values()) {
+                if (type.code == code) {
+                    return type;
+                }
+            }
+            return OTHER;
+        }
+
+        public static EventType fromLabel(String label) {
+            for (EventType type : values()) {
+                if (type.label.equalsIgnoreCase(label)) {
+                    return type;
+                }
+            }
+            return OTHER;
+        }
+    }
+
     private int id;
     private String title;
     private String date; // Combined date/time string for simplicity
     private String location;
     private String description;
     private int imageResId; // Legacy field, deprecated in favor of coverImagePath
-    private String status; // Active, Hold, Cancelled
+    private Status status = Status.ACTIVE;
 
     // New fields for enhanced event management
     private double ticketPrice;
@@ -22,6 +96,9 @@ public class Event implements Serializable {
     private String coverImagePath; // File path to cover image
     private String galleryImagePaths; // Comma-separated file paths for gallery images
     private String eventType; // Event category: Concert, Seminar, Festival, etc.
+    private long startAt; // Epoch millis parsed from date, 0 if unknown
+    private long endAt; // Epoch millis, 0 if unknown
+    private int soldCount; // Tickets sold, kept by the local tickets triggers
 
     public Event(int id, String title, String date, String location, String description, int imageResId,
             String status) {
@@ -31,7 +108,7 @@ public class Event implements Serializable {
         this.location = location;
         this.description = description;
         this.imageResId = imageResId;
-        this.status = status != null ? status : STATUS_ACTIVE;
+        this.status = Status.fromLabel(status);
         // Initialize new fields with defaults
         this.ticketPrice = 0.0;
         this.ticketQuantity = 0;
@@ -47,7 +124,7 @@ public class Event implements Serializable {
         this.location = location;
         this.description = description;
         this.imageResId = imageResId;
-        this.status = STATUS_ACTIVE; // Default to active
+        this.status = Status.ACTIVE; // Default to active
     }
 
     // Constructor with status
@@ -57,7 +134,7 @@ public class Event implements Serializable {
         this.location = location;
         this.description = description;
         this.imageResId = imageResId;
-        this.status = status != null ? status : STATUS_ACTIVE;
+        this.status = Status.fromLabel(status);
         // Initialize new fields with defaults
         this.ticketPrice = 0.0;
         this.ticketQuantity = 0;
@@ -68,6 +145,8 @@ public class Event implements Serializable {
 
     // Firestore ID
     private String firestoreId;
+    // Firebase UID of the organizer who created the event
+    private String organizerId;
 
     public Event() {
         // Required for Firestore serialization
@@ -83,7 +162,7 @@ public class Event implements Serializable {
         this.location = location;
         this.description = description;
         this.imageResId = 0; // Legacy field, not used
-        this.status = status != null ? status : STATUS_ACTIVE;
+        this.status = Status.fromLabel(status);
         this.ticketPrice = ticketPrice;
         this.ticketQuantity = ticketQuantity;
         this.coverImagePath = coverImagePath;
@@ -100,7 +179,7 @@ public class Event implements Serializable {
         this.location = location;
         this.description = description;
         this.imageResId = 0; // Legacy field
-        this.status = status != null ? status : STATUS_ACTIVE;
+        this.status = Status.fromLabel(status);
         this.ticketPrice = ticketPrice;
         this.ticketQuantity = ticketQuantity;
         this.coverImagePath = coverImagePath;
@@ -116,6 +195,14 @@ public class Event implements Serializable {
         this.firestoreId = firestoreId;
     }
 
+    public String getOrganizerId() {
+        return organizerId;
+    }
+
+    public void setOrganizerId(String organizerId) {
+        this.organizerId = organizerId;
+    }
+
     // Getters
     public int getId() {
         return id;
@@ -141,12 +228,27 @@ public class Event implements Serializable {
         return imageResId;
     }
 
+    /**
+     * Status label ("Active", "Hold", "Cancelled"), the form stored in
+     * Firestore and shown to users. Code should compare getEventStatus().
+     */
     public String getStatus() {
-        return status != null ? status : STATUS_ACTIVE;
+        return status.label;
+    }
+
+    /**
+     * Sets the status from its label; unknown labels and null mean Active.
+     */
+    public void setStatus(String label) {
+        this.status = Status.fromLabel(label);
     }
 
-    public void setStatus(String status) {
-        this.status = status;
+    public Status getEventStatus() {
+        return status;
+    }
+
+    public void setEventStatus(Status status) {
+        this.status = status != null ? status : Status.ACTIVE;
     }
 
     public void setId(int id) {
@@ -193,4 +295,35 @@ public class Event implements Serializable {
     public void setEventType(String eventType) {
         this.eventType = eventType;
     }
-}
\ No newline at end of file
+
+    public long getStartAt() {
+        return startAt;
+    }
+
+    public void setStartAt(long startAt) {
+        this.startAt = startAt;
+    }
+
+    public long getEndAt() {
+        return endAt;
+    }
+
+    public void setEndAt(long endAt) {
+        this.endAt = endAt;
+    }
+
+    public int getSoldCount() {
+        return soldCount;
+    }
+
+    public void setSoldCount(int soldCount) {
+        this.soldCount = soldCount;
+    }
+
+    /**
+     * Tickets still available, never below zero.
+     */
+    public int getRemainingTickets() {
+        return Math.max(0, ticketQuantity - soldCount);
+    }
+}
@@ -0,0 +1,130 @@
+package com.example.eventhive.models;
+
+/**
+ * Optional constraints on the event feed. Every constraint left unset
+ * matches all events; the rest are combined with AND.
+ *
+ * The same filter is turned into a Firestore query by EventMirrorSync and
+ * into SQL over the local mirror by DatabaseHelper, so both sides return the
+ * same events.
+ */
+public class EventFilter {
+
+    // Value of an unset price bound
+    public static final double NO_PRICE_LIMIT = -1;
+
+    private Event.EventType type;
+    private Event.Status status;
+    private long startFrom; // Epoch millis, inclusive; 0 if unset
+    private long startUntil; // Epoch millis, exclusive; 0 if unset
+    private double minPrice = NO_PRICE_LIMIT;
+    private double maxPrice = NO_PRICE_LIMIT;
+
+    public EventFilter() {
+    }
+
+    /**
+     * Copies another filter, e.g. to hand a reader thread a snapshot that
+     * later chip changes cannot alter.
+     */
+    public EventFilter(EventFilter other) {
+        this.type = other.type;
+        this.status = other.status;
+        this.startFrom = other.startFrom;
+        this.startUntil = other.startUntil;
+        this.minPrice = other.minPrice;
+        this.maxPrice = other.maxPrice;
+    }
+
+    public Event.EventType getType() {
+        return type;
+    }
+
+    public void setType(Event.EventType type) {
+        this.type = type;
+    }
+
+    public Event.Status getStatus() {
+        return status;
+    }
+
+    public void setStatus(Event.Status status) {
+        this.status = status;
+    }
+
+    public long getStartFrom() {
+        return startFrom;
+    }
+
+    public long getStartUntil() {
+        return startUntil;
+    }
+
+    /**
+     * Keeps events starting in [from, until). Undated events never match a
+     * date window.
+     */
+    public void setDateWindow(long from, long until) {
+        this.startFrom = from;
+        this.startUntil = until;
+    }
+
+    public void clearDateWindow() {
+        setDateWindow(0, 0);
+    }
+
+    public boolean hasDateWindow() {
+        return startFrom > 0 || startUntil > 0;
+    }
+
+    public double getMinPrice() {
+        return minPrice;
+    }
+
+    public double getMaxPrice() {
+        return maxPrice;
+    }
+
+    /**
+     * Keeps events whose ticket price is in [min, max]. Either bound may be
+     * NO_PRICE_LIMIT.
+     */
+    public void setPriceRange(double min, double max) {
+        this.minPrice = min;
+        this.maxPrice = max;
+    }
+
+    public void clearPriceRange() {
+        setPriceRange(NO_PRICE_LIMIT, NO_PRICE_LIMIT);
+    }
+
+    public boolean hasPriceRange() {
+        return minPrice != NO_PRICE_LIMIT || maxPrice != NO_PRICE_LIMIT;
+    }
+
+    public boolean isEmpty() {
+        return type == null && status == null && !hasDateWindow() && !hasPriceRange();
+    }
+
+    /**
+     * Tests a single event, e.g. one arriving from the realtime listener.
+     */
+    public boolean matches(Event event) {
+        if (type != null && Event.EventType.fromLabel(event.getEventType()) != type) {
+            return false;
+        }
+        if (status != null && event.getEventStatus() != status) {
+            return false;
+        }
+        if (hasDateWindow()) {
+            if (event.getStartAt() <= 0 || event.getStartAt() < startFrom
+                    || (startUntil > 0 && event.getStartAt() >= startUntil)) {
+                return false;
+            }
+        }
+        if (minPrice != NO_PRICE_LIMIT && event.getTicketPrice() < minPrice) {
+            return false;
+        }
+        return maxPrice == NO_PRICE_LIMIT || event.getTicketPrice() <= maxPrice;
+    }
+}
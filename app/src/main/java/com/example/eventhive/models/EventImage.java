@@ -0,0 +1,52 @@
+package com.example.eventhive.models;
+
+/**
+ * One gallery image of an event, stored as a row of the event_images table.
+ */
+public class EventImage {
+    private int id;
+    private int eventId;
+    private int ordinal; // Position in the gallery, starting at 0
+    private String path; // File path in internal storage
+    private int width; // Pixels, 0 if unknown
+    private int height; // Pixels, 0 if unknown
+    private long byteSize; // 0 if unknown
+
+    public EventImage(int id, int eventId, int ordinal, String path, int width, int height, long byteSize) {
+        this.id = id;
+        this.eventId = eventId;
+        this.ordinal = ordinal;
+        this.path = path;
+        this.width = width;
+        this.height = height;
+        this.byteSize = byteSize;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public int getEventId() {
+        return eventId;
+    }
+
+    public int getOrdinal() {
+        return ordinal;
+    }
+
+    public String getPath() {
+        return path;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public long getByteSize() {
+        return byteSize;
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.eventhive.models;
+
+/**
+ * A Firestore write stored locally until it can be sent. Entries are sent
+ * in the order they were queued, so one user's writes land in order.
+ */
+public class OutboxEntry {
+
+    // A ticket purchase; docId is the purchase id, payload a PurchaseRequest
+    public static final String KIND_TICKET = "ticket";
+    // An event status change; docId is the event id, payload the new status
+    public static final String KIND_EVENT_STATUS = "event_status";
+
+    private long id;
+    private String userId;
+    private String kind;
+    private String docId;
+    private String payload;
+    private long createdAt;
+
+    public OutboxEntry() {
+    }
+
+    public OutboxEntry(String userId, String kind, String docId, String payload, long createdAt) {
+        this.userId = userId;
+        this.kind = kind;
+        this.docId = docId;
+        this.payload = payload;
+        this.createdAt = createdAt;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public void setId(long id) {
+        this.id = id;
+    }
+
+    public String getUserId() {
+        return userId;
+    }
+
+    public void setUserId(String userId) {
+        this.userId = userId;
+    }
+
+    public String getKind() {
+        return kind;
+    }
+
+    public void setKind(String kind) {
+        this.kind = kind;
+    }
+
+    public String getDocId() {
+        return docId;
+    }
+
+    public void setDocId(String docId) {
+        this.docId = docId;
+    }
+
+    public String getPayload() {
+        return payload;
+    }
+
+    public void setPayload(String payload) {
+        this.payload = payload;
+    }
+
+    public long getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(long createdAt) {
+        this.createdAt = createdAt;
+    }
+}
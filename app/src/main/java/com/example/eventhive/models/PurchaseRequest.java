@@ -0,0 +1,168 @@
+package com.example.eventhive.models;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * One ticket purchase waiting to be written to Firestore, for one or more
+ * tickets to the same event.
+ *
+ * The purchase id is derived from the buyer, the event and the time of the
+ * tap, and doubles as the idempotency key: it is the document id of the first
+ * ticket, and the others derive theirs from it. Every retry writes the same
+ * documents, so a purchase is stored at most once however often it is sent.
+ */
+public class PurchaseRequest {
+
+    // Most tickets one purchase may hold; keeps the commit well inside one transaction
+    public static final int MAX_QUANTITY = 10;
+
+    private final List<Ticket> tickets;
+    private final int ticketLimit; // Event's ticketQuantity, 0 if sales are not capped
+
+    public PurchaseRequest(List<Ticket> tickets, int ticketLimit) {
+        this.tickets = Collections.unmodifiableList(new ArrayList<>(tickets));
+        this.ticketLimit = ticketLimit;
+    }
+
+    /**
+     * Builds the request for a single ticket.
+     */
+    public static PurchaseRequest create(String userId, String eventId, String eventTitle, String eventDate,
+            String eventLocation, int ticketLimit, long purchaseTimestamp) {
+        return create(userId, eventId, eventTitle, eventDate, eventLocation, ticketLimit, 1, purchaseTimestamp);
+    }
+
+    /**
+     * Builds the request for a tap on "Get Tickets", with the id and code of
+     * every ticket already fixed.
+     */
+    public static PurchaseRequest create(String userId, String eventId, String eventTitle, String eventDate,
+            String eventLocation, int ticketLimit, int quantity, long purchaseTimestamp) {
+        if (quantity < 1 || quantity > MAX_QUANTITY) {
+            throw new IllegalArgumentException("Quantity must be between 1 and " + MAX_QUANTITY + ": " + quantity);
+        }
+        String id = purchaseId(userId, eventId, purchaseTimestamp);
+        List<Ticket> tickets = new ArrayList<>();
+        for (int i = 0; i < quantity; i++) {
+            String ticketId = ticketId(id, i);
+            Ticket ticket = new Ticket(userId, eventId, ticketCode(ticketId), purchaseTimestamp,
+                    eventTitle, eventDate, eventLocation);
+            ticket.setFirestoreId(ticketId);
+            tickets.add(ticket);
+        }
+        return new PurchaseRequest(tickets, ticketLimit);
+    }
+
+    /**
+     * Same inputs, same id.
+     */
+    public static String purchaseId(String userId, String eventId, long purchaseTimestamp) {
+        String key = userId + "|" + eventId + "|" + purchaseTimestamp;
+        return UUID.nameUUIDFromBytes(key.getBytes(StandardCharsets.UTF_8)).toString();
+    }
+
+    // The first ticket keeps the purchase id, so single-ticket purchases look as before
+    private static String ticketId(String purchaseId, int index) {
+        if (index == 0) {
+            return purchaseId;
+        }
+        String key = purchaseId + "#" + index;
+        return UUID.nameUUIDFromBytes(key.getBytes(StandardCharsets.UTF_8)).toString();
+    }
+
+    private static String ticketCode(String ticketId) {
+        return "TICKET-" + ticketId.replace("-", "").substring(0, 12).toUpperCase(Locale.ROOT);
+    }
+
+    public String getId() {
+        return tickets.get(0).getFirestoreId();
+    }
+
+    /**
+     * The first ticket; all tickets share the buyer and event details.
+     */
+    public Ticket getTicket() {
+        return tickets.get(0);
+    }
+
+    public List<Ticket> getTickets() {
+        return tickets;
+    }
+
+    public int getQuantity() {
+        return tickets.size();
+    }
+
+    public List<String> getTicketCodes() {
+        List<String> codes = new ArrayList<>();
+        for (Ticket ticket : tickets) {
+            codes.add(ticket.getUniqueCode());
+        }
+        return codes;
+    }
+
+    public int getTicketLimit() {
+        return ticketLimit;
+    }
+
+    /**
+     * The request as stored in the outbox.
+     */
+    public String toPayload() throws JSONException {
+        JSONObject json = new JSONObject(ticketFields(getTicket()));
+        json.put("id", getId());
+        json.put("ticketLimit", ticketLimit);
+        json.put("quantity", getQuantity());
+        return json.toString();
+    }
+
+    /**
+     * Rebuilds a stored request. Ids and codes are derived again from the
+     * stored details; entries queued before multi-ticket purchases hold one
+     * ticket.
+     */
+    public static PurchaseRequest fromPayload(String payload) throws JSONException {
+        JSONObject json = new JSONObject(payload);
+        return create(json.getString("userId"), json.getString("eventId"), stringOrNull(json, "eventTitle"),
+                stringOrNull(json, "eventDate"), stringOrNull(json, "eventLocation"), json.getInt("ticketLimit"),
+                json.optInt("quantity", 1), json.getLong("purchaseTimestamp"));
+    }
+
+    private static String stringOrNull(JSONObject json, String name) throws JSONException {
+        return json.isNull(name) ? null : json.getString(name);
+    }
+
+    /**
+     * Fields of every ticket document, by document id, in ticket order.
+     */
+    public Map<String, Map<String, Object>> toTicketDocuments() {
+        Map<String, Map<String, Object>> documents = new LinkedHashMap<>();
+        for (Ticket ticket : tickets) {
+            documents.put(ticket.getFirestoreId(), ticketFields(ticket));
+        }
+        return documents;
+    }
+
+    private static Map<String, Object> ticketFields(Ticket ticket) {
+        Map<String, Object> fields = new HashMap<>();
+        fields.put("userId", ticket.getUserId());
+        fields.put("eventId", ticket.getEventId());
+        fields.put("uniqueCode", ticket.getUniqueCode());
+        fields.put("purchaseTimestamp", ticket.getPurchaseTimestamp());
+        fields.put("eventTitle", ticket.getEventTitle());
+        fields.put("eventDate", ticket.getEventDate());
+        fields.put("eventLocation", ticket.getEventLocation());
+        return fields;
+    }
+}
@@ -0,0 +1,138 @@
+package com.example.eventhive.utils;
+
+import java.text.ParsePosition;
+import java.text.SimpleDateFormat;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Utility class for turning free-text event dates into epoch millis.
+ * Handles the formats entered in CreateEventActivity, e.g. "12 Dec - 10 PM",
+ * "15 Jan - 9:30 AM", "12 Dec 2025 - 10 PM" or just "12 Dec".
+ */
+public class EventDateParser {
+
+    /** Returned when a date string cannot be parsed. */
+    public static final long UNKNOWN = 0;
+
+    /** Assumed event length when only a start time is known. */
+    public static final long DEFAULT_DURATION_MS = 3 * 60 * 60 * 1000L;
+
+    private static final String[] PATTERNS_WITH_YEAR = {
+            "d MMM yyyy - h:mm a", "d MMM yyyy - h a", "d MMM yyyy"
+    };
+    // Day and month at the start of a date without a year; the year goes in between
+    private static final Pattern DAY_MONTH = Pattern.compile("(\\d{1,2} \\p{L}+)(.*)");
+
+    /**
+     * Parses an event date string.
+     *
+     * Strings without a year are placed in the year that puts them closest to
+     * the reference time (within six months either side). Each candidate year
+     * is written into the text before parsing, so "29 Feb" resolves to a
+     * nearby leap year instead of failing against the 1970 default.
+     *
+     * @param rawDate     Date text as stored on the event
+     * @param referenceMs Time used to infer a missing year, usually now
+     * @return Epoch millis in the device time zone, or UNKNOWN
+     */
+    public static long parse(String rawDate, long referenceMs) {
+        if (rawDate == null) {
+            return UNKNOWN;
+        }
+        String text = rawDate.trim().replaceAll("\\s+", " ");
+        if (text.isEmpty()) {
+            return UNKNOWN;
+        }
+
+        long millis = parseWithYear(text);
+        if (millis != UNKNOWN) {
+            return millis;
+        }
+
+        Matcher dayMonth = DAY_MONTH.matcher(text);
+        if (!dayMonth.matches()) {
+            return UNKNOWN;
+        }
+        Calendar reference = Calendar.getInstance();
+        reference.setTimeInMillis(referenceMs);
+        int referenceYear = reference.get(Calendar.YEAR);
+        long closest = UNKNOWN;
+        for (int year = referenceYear - 1; year <= referenceYear + 1; year++) {
+            millis = parseWithYear(dayMonth.group(1) + " " + year + dayMonth.group(2));
+            if (millis != UNKNOWN
+                    && (closest == UNKNOWN || Math.abs(millis - referenceMs) < Math.abs(closest - referenceMs))) {
+                closest = millis;
+            }
+        }
+        return closest;
+    }
+
+    private static long parseWithYear(String text) {
+        for (String pattern : PATTERNS_WITH_YEAR) {
+            Calendar parsed = tryParse(text, pattern);
+            if (parsed != null) {
+                return parsed.getTimeInMillis();
+            }
+        }
+        return UNKNOWN;
+    }
+
+    /**
+     * Start of the calendar day containing the given time.
+     */
+    public static long startOfDay(long timeMs) {
+        Calendar calendar = Calendar.getInstance();
+        calendar.setTimeInMillis(timeMs);
+        calendar.set(Calendar.HOUR_OF_DAY, 0);
+        calendar.set(Calendar.MINUTE, 0);
+        calendar.set(Calendar.SECOND, 0);
+        calendar.set(Calendar.MILLISECOND, 0);
+        return calendar.getTimeInMillis();
+    }
+
+    /**
+     * Start of the calendar day after the one containing the given time.
+     */
+    public static long startOfNextDay(long timeMs) {
+        Calendar calendar = Calendar.getInstance();
+        calendar.setTimeInMillis(startOfDay(timeMs));
+        calendar.add(Calendar.DAY_OF_MONTH, 1);
+        return calendar.getTimeInMillis();
+    }
+
+    /**
+     * Returns [start, end) of the current or next weekend (Saturday 00:00 to
+     * Monday 00:00). If the given time is already in a weekend, start is that
+     * time.
+     */
+    public static long[] weekendWindow(long timeMs) {
+        Calendar calendar = Calendar.getInstance();
+        calendar.setTimeInMillis(startOfDay(timeMs));
+        int dayOfWeek = calendar.get(Calendar.DAY_OF_WEEK);
+        if (dayOfWeek == Calendar.SUNDAY) {
+            calendar.add(Calendar.DAY_OF_MONTH, -1);
+        } else {
+            calendar.add(Calendar.DAY_OF_MONTH, Calendar.SATURDAY - dayOfWeek);
+        }
+        long saturday = calendar.getTimeInMillis();
+        calendar.add(Calendar.DAY_OF_MONTH, 2);
+        return new long[] { Math.max(saturday, timeMs), calendar.getTimeInMillis() };
+    }
+
+    private static Calendar tryParse(String text, String pattern) {
+        SimpleDateFormat format = new SimpleDateFormat(pattern, Locale.ENGLISH);
+        format.setLenient(false);
+        ParsePosition position = new ParsePosition(0);
+        Date date = format.parse(text, position);
+        if (date == null || position.getIndex() != text.length()) {
+            return null;
+        }
+        Calendar calendar = Calendar.getInstance();
+        calendar.setTime(date);
+        return calendar;
+    }
+}
@@ -0,0 +1,355 @@
+package com.example.eventhive.utils;
+
+import android.content.Context;
+import android.database.SQLException;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import com.example.eventhive.databases.DatabaseHelper;
+import com.example.eventhive.models.Event;
+import com.example.eventhive.models.EventFilter;
+import com.google.firebase.Timestamp;
+import com.google.firebase.firestore.DocumentChange;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FieldPath;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.ListenerRegistration;
+import com.google.firebase.firestore.Query;
+import com.google.firebase.firestore.QuerySnapshot;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Keeps the local events table in step with the Firestore "events"
+ * collection so screens can render from SQLite straight away.
+ *
+ * While started, one snapshot listener watches the documents whose updatedAt
+ * is at or after the watermark stored in sync_state. Its first snapshot is
+ * what changed since the last run, and later ones arrive in realtime; each
+ * DocumentChange is handed to the ChangeListener and written to the mirror
+ * together with the new watermark. Deletes made while nobody was listening
+ * are caught up from the "deletedEvents" tombstones written by
+ * FirestoreCascadeDelete.
+ *
+ * The very first run downloads the whole collection, since documents written
+ * before updatedAt existed would never match the delta query. It pages with
+ * orderBy + limit + startAfter(DocumentSnapshot) so the first screen only
+ * waits for SEED_PAGE_SIZE documents. The watermark stored with the last
+ * page is the time the download started, not the newest updatedAt it saw,
+ * so documents edited on pages already fetched are picked up by the
+ * listener, which attaches once the download is complete.
+ */
+public class EventMirrorSync {
+
+    /**
+     * Receives changes on the main thread, one document at a time, while
+     * listening.
+     */
+    public interface ChangeListener {
+        /**
+         * Called when an event is added or modified
+         *
+         * @param event The event, carrying its Firestore id
+         */
+        void onEventChanged(Event event);
+
+        /**
+         * Called when an event is deleted
+         *
+         * @param firestoreId Document id of the deleted event
+         */
+        void onEventRemoved(String firestoreId);
+
+        /**
+         * Called after each page of the first-run download is stored in the
+         * mirror. Its events are not reported one by one.
+         */
+        void onMirrorPageStored();
+    }
+
+    private static final String TAG = "EventMirrorSync";
+
+    public static final String FIELD_UPDATED_AT = "updatedAt";
+    public static final String FIELD_START_AT = "startAt";
+    public static final String COLLECTION_TOMBSTONES = "deletedEvents";
+    private static final String SYNC_KEY_EVENTS = "events";
+    private static final String SYNC_KEY_TOMBSTONES = "deletedEvents";
+
+    // Tombstones fetched per catch-up page
+    private static final int PAGE_SIZE = 200;
+
+    // Events fetched per page of the first-run download
+    private static final int SEED_PAGE_SIZE = 50;
+
+    // Taken off the download start time in case the device clock runs ahead of the server's
+    private static final long CLOCK_SKEW_MARGIN_MS = 5 * 60 * 1000;
+
+    private final FirebaseFirestore db;
+    private final DatabaseHelper dbHelper;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    private ChangeListener changeListener;
+    private ListenerRegistration registration;
+    private boolean seeding = false;
+
+    public EventMirrorSync(Context context) {
+        db = FirebaseFirestore.getInstance();
+        dbHelper = DatabaseHelper.getInstance(context);
+    }
+
+    /**
+     * Attaches the snapshot listener. Call from onStart().
+     */
+    public void startListening(ChangeListener listener) {
+        if (changeListener != null) {
+            return;
+        }
+        changeListener = listener;
+        dbHelper.submitRead(() -> {
+            long eventsWatermark = dbHelper.getSyncWatermark(SYNC_KEY_EVENTS);
+            long tombstonesWatermark = dbHelper.getSyncWatermark(SYNC_KEY_TOMBSTONES);
+            mainHandler.post(() -> {
+                // Stopped again while the watermarks were read
+                if (changeListener != listener) {
+                    return;
+                }
+                if (eventsWatermark == 0) {
+                    if (!seeding) {
+                        seeding = true;
+                        long startedAt = Math.max(System.currentTimeMillis() - CLOCK_SKEW_MARGIN_MS, 1);
+                        seed(db.collection("events").orderBy(FieldPath.documentId()).limit(SEED_PAGE_SIZE),
+                                startedAt);
+                    }
+                } else {
+                    attach(eventsWatermark);
+                }
+                catchUpTombstones(changedSince(db.collection(COLLECTION_TOMBSTONES), tombstonesWatermark)
+                        .limit(PAGE_SIZE));
+            });
+            return null;
+        });
+    }
+
+    /**
+     * Detaches the snapshot listener. Call from onStop().
+     */
+    public void stopListening() {
+        changeListener = null;
+        if (registration != null) {
+            registration.remove();
+            registration = null;
+        }
+    }
+
+    /**
+     * True while the first-run download is still filling the mirror, when
+     * it cannot yet answer a filtered view on its own.
+     */
+    public boolean isSeeding() {
+        return seeding;
+    }
+
+    /**
+     * Fetches the first page of events matching the filter straight from
+     * Firestore and stores it in the mirror, so a filtered view does not wait
+     * for the first-run download. Only matching documents are transferred.
+     *
+     * @param onStored run on the main thread once the page is in the mirror
+     */
+    public void fetchFiltered(EventFilter filter, int limit, Runnable onStored) {
+        filteredQuery(db.collection("events"), filter).limit(limit).get()
+                .addOnSuccessListener(snapshot -> applyToMirror(toEvents(snapshot.getDocuments()),
+                        Collections.emptyList(), SYNC_KEY_EVENTS, 0, onStored))
+                .addOnFailureListener(e -> Log.e(TAG, "Filtered fetch failed: " + e.getMessage()));
+    }
+
+    /**
+     * The Firestore form of the filter, ordered like the feed. Each
+     * combination is backed by a composite index in firestore.indexes.json;
+     * documents without startAt (created before it was stored) never match.
+     */
+    public static Query filteredQuery(Query events, EventFilter filter) {
+        Query query = events;
+        if (filter.getType() != null) {
+            query = query.whereEqualTo("eventType", filter.getType().label);
+        }
+        if (filter.getStatus() != null) {
+            query = query.whereEqualTo("status", filter.getStatus().label);
+        }
+        if (filter.getStartFrom() > 0) {
+            query = query.whereGreaterThanOrEqualTo(FIELD_START_AT, filter.getStartFrom());
+        }
+        if (filter.getStartUntil() > 0) {
+            query = query.whereLessThan(FIELD_START_AT, filter.getStartUntil());
+        }
+        if (filter.getMinPrice() != EventFilter.NO_PRICE_LIMIT) {
+            query = query.whereGreaterThanOrEqualTo("ticketPrice", filter.getMinPrice());
+        }
+        if (filter.getMaxPrice() != EventFilter.NO_PRICE_LIMIT) {
+            query = query.whereLessThanOrEqualTo("ticketPrice", filter.getMaxPrice());
+        }
+        return query.orderBy(FIELD_START_AT);
+    }
+
+    /**
+     * Maps an event document the same way for every screen. Returns null if
+     * the document cannot be read.
+     */
+    public static Event fromDocument(DocumentSnapshot document) {
+        try {
+            Double price = document.getDouble("ticketPrice");
+            Long quantity = document.getLong("ticketQuantity");
+            Event event = new Event(document.getString("title"), document.getString("date"),
+                    document.getString("location"), document.getString("description"),
+                    document.getString("status"), price != null ? price : 0.0,
+                    quantity != null ? quantity.intValue() : 0, document.getString("coverImagePath"),
+                    document.getString("galleryImagePaths"), document.getString("eventType"));
+            event.setFirestoreId(document.getId());
+            event.setOrganizerId(document.getString("organizerId"));
+            Long startAt = document.getLong(FIELD_START_AT);
+            event.setStartAt(startAt != null ? startAt
+                    : EventDateParser.parse(event.getDate(), System.currentTimeMillis()));
+            return event;
+        } catch (RuntimeException e) {
+            Log.e(TAG, "Error parsing event " + document.getId() + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    private void attach(long eventsWatermark) {
+        registration = changedSince(db.collection("events"), eventsWatermark)
+                .addSnapshotListener((snapshot, e) -> {
+                    if (e != null) {
+                        Log.e(TAG, "Event listener failed: " + e.getMessage());
+                        return;
+                    }
+                    applyChanges(snapshot);
+                });
+    }
+
+    // startedAt: when page 1 was requested, less the clock skew margin; at least 1
+    private void seed(Query page, long startedAt) {
+        page.get()
+                .addOnSuccessListener(snapshot -> {
+                    List<DocumentSnapshot> documents = snapshot.getDocuments();
+                    boolean last = documents.size() < SEED_PAGE_SIZE;
+                    // Watermark 0 leaves the stored one untouched until the last page, so an
+                    // interrupted download starts over
+                    applyToMirror(toEvents(documents), Collections.emptyList(), SYNC_KEY_EVENTS,
+                            last ? startedAt : 0, () -> {
+                                if (changeListener != null) {
+                                    changeListener.onMirrorPageStored();
+                                }
+                                if (!last) {
+                                    seed(page.startAfter(documents.get(documents.size() - 1)), startedAt);
+                                    return;
+                                }
+                                seeding = false;
+                                if (changeListener != null) {
+                                    attach(startedAt);
+                                }
+                            });
+                })
+                .addOnFailureListener(e -> {
+                    seeding = false;
+                    Log.e(TAG, "Event download failed, will restart on next start: " + e.getMessage());
+                });
+    }
+
+    private void applyChanges(QuerySnapshot snapshot) {
+        List<Event> changed = new ArrayList<>();
+        List<String> removed = new ArrayList<>();
+        List<DocumentSnapshot> documents = new ArrayList<>();
+        for (DocumentChange change : snapshot.getDocumentChanges()) {
+            DocumentSnapshot document = change.getDocument();
+            documents.add(document);
+            if (change.getType() == DocumentChange.Type.REMOVED) {
+                removed.add(document.getId());
+                changeListener.onEventRemoved(document.getId());
+            } else {
+                Event event = fromDocument(document);
+                if (event != null) {
+                    changed.add(event);
+                    changeListener.onEventChanged(event);
+                }
+            }
+        }
+        if (!documents.isEmpty()) {
+            applyToMirror(changed, removed, SYNC_KEY_EVENTS, newestUpdate(documents), null);
+        }
+    }
+
+    private void catchUpTombstones(Query query) {
+        query.get()
+                .addOnSuccessListener(snapshot -> {
+                    List<DocumentSnapshot> documents = snapshot.getDocuments();
+                    if (documents.isEmpty()) {
+                        return;
+                    }
+                    List<String> deletedIds = new ArrayList<>();
+                    for (DocumentSnapshot document : documents) {
+                        deletedIds.add(document.getId());
+                        if (changeListener != null) {
+                            changeListener.onEventRemoved(document.getId());
+                        }
+                    }
+                    Runnable next = documents.size() < PAGE_SIZE ? null
+                            : () -> catchUpTombstones(query.startAfter(documents.get(documents.size() - 1)));
+                    applyToMirror(Collections.emptyList(), deletedIds, SYNC_KEY_TOMBSTONES,
+                            newestUpdate(documents), next);
+                })
+                .addOnFailureListener(e -> Log.e(TAG, "Tombstone catch-up failed: " + e.getMessage()));
+    }
+
+    // Greater-or-equal so documents sharing the watermark's millisecond are not skipped;
+    // re-applying them is harmless
+    private static Query changedSince(Query collection, long watermark) {
+        return collection.whereGreaterThanOrEqualTo(FIELD_UPDATED_AT, new Timestamp(new Date(watermark)))
+                .orderBy(FIELD_UPDATED_AT);
+    }
+
+    private void applyToMirror(List<Event> changed, List<String> deletedIds, String syncKey, long watermark,
+            Runnable next) {
+        dbHelper.submitWrite(() -> {
+            try {
+                dbHelper.applyMirrorChanges(changed, deletedIds, syncKey, watermark);
+            } catch (SQLException e) {
+                // The watermark did not move, so these changes are fetched again next time
+                Log.e(TAG, "Could not update event mirror: " + e.getMessage());
+                // A failed first-run page restarts the download on the next start
+                mainHandler.post(() -> seeding = false);
+                return;
+            }
+            if (next != null) {
+                mainHandler.post(next);
+            }
+        });
+    }
+
+    private static List<Event> toEvents(List<DocumentSnapshot> documents) {
+        List<Event> events = new ArrayList<>();
+        for (DocumentSnapshot document : documents) {
+            Event event = fromDocument(document);
+            if (event != null) {
+                events.add(event);
+            }
+        }
+        return events;
+    }
+
+    // Newest updatedAt among the documents in epoch millis, or 0 if none carry one
+    private static long newestUpdate(List<DocumentSnapshot> documents) {
+        long newest = 0;
+        for (DocumentSnapshot document : documents) {
+            Timestamp updatedAt = document.getTimestamp(FIELD_UPDATED_AT);
+            if (updatedAt != null) {
+                newest = Math.max(newest, updatedAt.toDate().getTime());
+            }
+        }
+        return newest;
+    }
+}
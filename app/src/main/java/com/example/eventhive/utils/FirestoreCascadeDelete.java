@@ -0,0 +1,185 @@
+package com.example.eventhive.utils;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.util.Log;
+
+import com.example.eventhive.databases.CascadeDeleteListener;
+import com.example.eventhive.models.Event;
+import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FieldValue;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.Query;
+import com.google.firebase.firestore.Source;
+import com.google.firebase.firestore.WriteBatch;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Deletes an event or user document together with the ticket documents that
+ * reference it.
+ *
+ * The parent document goes first so no new tickets can be bought against it,
+ * then its tickets are removed in WriteBatch groups of at most BATCH_LIMIT.
+ * Deleting an event also writes a "deletedEvents" tombstone in the same batch
+ * so EventMirrorSync can drop it from other devices' mirrors, and removes
+ * the event's TicketCounter shards.
+ * Each delete is remembered in SharedPreferences until its last batch
+ * commits, and resumePending() finishes any that were interrupted. A delete
+ * that fails with an error PurchasePipeline.isRetryable() rejects (e.g.
+ * PERMISSION_DENIED) is forgotten instead, so it is not retried on every
+ * start.
+ */
+public class FirestoreCascadeDelete {
+
+    private static final String TAG = "FirestoreCascadeDelete";
+    private static final String PREF_NAME = "EventHiveCascadeDeletes";
+    private static final String KEY_PENDING = "pending";
+    private static final String PREFIX_EVENT = "event:";
+    private static final String PREFIX_USER = "user:";
+
+    // Firestore rejects a WriteBatch with more than 500 writes
+    private static final int BATCH_LIMIT = 500;
+
+    private final FirebaseFirestore db;
+    private final SharedPreferences pref;
+
+    public FirestoreCascadeDelete(Context context) {
+        db = FirebaseFirestore.getInstance();
+        pref = context.getApplicationContext().getSharedPreferences(PREF_NAME, Context.MODE_PRIVATE);
+    }
+
+    /**
+     * Deletes the event document, its tickets, and its cover and gallery image
+     * files stored on this device.
+     */
+    public void deleteEvent(Event event, CascadeDeleteListener listener) {
+        String eventId = event.getFirestoreId();
+        String key = PREFIX_EVENT + eventId;
+        addPending(key);
+        run(key, db.collection("events").document(eventId), tombstone(eventId),
+                db.collection("tickets").whereEqualTo("eventId", eventId), listener, () -> {
+                    ImageStorageHelper.deleteImage(event.getCoverImagePath());
+                    String gallery = event.getGalleryImagePaths();
+                    if (gallery != null && !gallery.isEmpty()) {
+                        for (String path : gallery.split(",")) {
+                            ImageStorageHelper.deleteImage(path.trim());
+                        }
+                    }
+                });
+    }
+
+    /**
+     * Deletes the user document and every ticket the user bought.
+     */
+    public void deleteUser(String userUid, CascadeDeleteListener listener) {
+        String key = PREFIX_USER + userUid;
+        addPending(key);
+        run(key, db.collection("users").document(userUid), null,
+                db.collection("tickets").whereEqualTo("userId", userUid), listener, null);
+    }
+
+    /**
+     * Finishes deletes interrupted by process death. Call once per start.
+     */
+    public void resumePending() {
+        for (String key : pref.getStringSet(KEY_PENDING, new HashSet<>())) {
+            Log.d(TAG, "Resuming cascade delete " + key);
+            if (key.startsWith(PREFIX_EVENT)) {
+                String eventId = key.substring(PREFIX_EVENT.length());
+                run(key, db.collection("events").document(eventId), tombstone(eventId),
+                        db.collection("tickets").whereEqualTo("eventId", eventId), null, null);
+            } else if (key.startsWith(PREFIX_USER)) {
+                String userUid = key.substring(PREFIX_USER.length());
+                run(key, db.collection("users").document(userUid), null,
+                        db.collection("tickets").whereEqualTo("userId", userUid), null, null);
+            }
+        }
+    }
+
+    private DocumentReference tombstone(String eventId) {
+        return db.collection(EventMirrorSync.COLLECTION_TOMBSTONES).document(eventId);
+    }
+
+    private void run(String key, DocumentReference parent, DocumentReference tombstone, Query tickets,
+            CascadeDeleteListener listener, Runnable onParentDeleted) {
+        WriteBatch parentBatch = db.batch();
+        parentBatch.delete(parent);
+        if (tombstone != null) {
+            parentBatch.set(tombstone,
+                    Collections.singletonMap(EventMirrorSync.FIELD_UPDATED_AT, FieldValue.serverTimestamp()));
+            // Subcollections are not deleted with their parent
+            for (DocumentReference shard : TicketCounter.shardRefs(parent)) {
+                parentBatch.delete(shard);
+            }
+        }
+        parentBatch.commit()
+                .addOnSuccessListener(aVoid -> {
+                    if (onParentDeleted != null) {
+                        onParentDeleted.run();
+                    }
+                    if (listener != null) {
+                        listener.onProgress(parent.getParent().getId(), 1);
+                    }
+                    deleteTickets(key, tickets, 1, listener);
+                })
+                .addOnFailureListener(e -> fail(key, listener, e));
+    }
+
+    // Read from the server: a cached page could be empty and end the delete with tickets left behind
+    private void deleteTickets(String key, Query tickets, int deleted, CascadeDeleteListener listener) {
+        tickets.limit(BATCH_LIMIT).get(Source.SERVER)
+                .addOnSuccessListener(snapshot -> {
+                    if (snapshot.isEmpty()) {
+                        removePending(key);
+                        if (listener != null) {
+                            listener.onComplete(deleted);
+                        }
+                        return;
+                    }
+                    WriteBatch batch = db.batch();
+                    for (DocumentSnapshot doc : snapshot.getDocuments()) {
+                        batch.delete(doc.getReference());
+                    }
+                    int total = deleted + snapshot.size();
+                    batch.commit()
+                            .addOnSuccessListener(aVoid -> {
+                                if (listener != null) {
+                                    listener.onProgress("tickets", total);
+                                }
+                                deleteTickets(key, tickets, total, listener);
+                            })
+                            .addOnFailureListener(e -> fail(key, listener, e));
+                })
+                .addOnFailureListener(e -> fail(key, listener, e));
+    }
+
+    // Offline, the server read fails with UNAVAILABLE, which keeps the delete pending
+    private void fail(String key, CascadeDeleteListener listener, Exception e) {
+        if (PurchasePipeline.isRetryable(e)) {
+            Log.e(TAG, "Cascade delete failed, will resume on next start: " + e.getMessage());
+        } else {
+            Log.e(TAG, "Cascade delete failed for good, dropping " + key + ": " + e.getMessage());
+            removePending(key);
+        }
+        if (listener != null) {
+            listener.onFailed(e.getMessage());
+        }
+    }
+
+    private synchronized void addPending(String key) {
+        Set<String> pending = new HashSet<>(pref.getStringSet(KEY_PENDING, new HashSet<>()));
+        pending.add(key);
+        // Written synchronously: the record must exist before the first delete
+        pref.edit().putStringSet(KEY_PENDING, pending).commit();
+    }
+
+    private synchronized void removePending(String key) {
+        Set<String> pending = new HashSet<>(pref.getStringSet(KEY_PENDING, new HashSet<>()));
+        pending.remove(key);
+        pref.edit().putStringSet(KEY_PENDING, pending).apply();
+    }
+}
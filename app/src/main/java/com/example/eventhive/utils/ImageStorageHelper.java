@@ -115,6 +115,16 @@ public class ImageStorageHelper {
      * @return true if deletion was successful, false otherwise
      */
     public static boolean deleteImage(Context context, String filePath) {
+        return deleteImage(filePath);
+    }
+
+    /**
+     * Deletes an image file from internal storage.
+     * 
+     * @param filePath Absolute file path of the image to delete
+     * @return true if deletion was successful, false otherwise
+     */
+    public static boolean deleteImage(String filePath) {
         if (filePath == null || filePath.isEmpty()) {
             Log.w(TAG, "File path is null or empty");
             return false;
@@ -140,6 +150,35 @@ public class ImageStorageHelper {
         }
     }
 
+    /**
+     * Reads the pixel dimensions of an image without decoding it.
+     * 
+     * @param filePath Absolute file path of the image
+     * @return {width, height}, or {0, 0} if the file cannot be read
+     */
+    public static int[] readImageSize(String filePath) {
+        if (filePath == null || filePath.isEmpty()) {
+            return new int[] { 0, 0 };
+        }
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inJustDecodeBounds = true;
+        BitmapFactory.decodeFile(filePath, options);
+        return new int[] { Math.max(options.outWidth, 0), Math.max(options.outHeight, 0) };
+    }
+
+    /**
+     * Gets the size of an image file.
+     * 
+     * @param filePath Absolute file path of the image
+     * @return Size in bytes, or 0 if the file does not exist
+     */
+    public static long getImageFileSize(String filePath) {
+        if (filePath == null || filePath.isEmpty()) {
+            return 0;
+        }
+        return new File(filePath).length();
+    }
+
     /**
      * Checks if an image file exists at the given path.
      * 
@@ -0,0 +1,167 @@
+package com.example.eventhive.utils;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.util.Log;
+
+import com.example.eventhive.models.Event;
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.firestore.AggregateQuerySnapshot;
+import com.google.firebase.firestore.AggregateSource;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.Query;
+import com.google.firebase.firestore.Source;
+import com.google.firebase.firestore.WriteBatch;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Event counts for the organizer dashboard.
+ *
+ * The counts come from Firestore count() aggregations, so no event
+ * documents are downloaded, and are kept in SharedPreferences for TTL_MS.
+ * The dashboard shows the cached counts straight away and refreshes them
+ * once they are stale or invalidated.
+ *
+ * The Active count matches the status label exactly, where counting on the
+ * device used to ignore case. The app only writes canonical labels, so
+ * before its first count for an organizer a device rewrites any other
+ * casing of a known label (e.g. "active" edited in by hand) once.
+ */
+public class OrganizerStatsCache {
+
+    private static final String TAG = "OrganizerStatsCache";
+    private static final String PREF_NAME = "EventHiveOrganizerStats";
+    private static final String KEY_TOTAL = "total_";
+    private static final String KEY_ACTIVE = "active_";
+    private static final String KEY_FETCHED_AT = "fetchedAt_";
+    private static final String KEY_INVALIDATED_AT = "invalidatedAt_";
+    private static final String KEY_LABELS_NORMALIZED = "labelsNormalized_";
+
+    // Firestore rejects a WriteBatch with more than 500 writes
+    private static final int BATCH_LIMIT = 500;
+
+    public static final long TTL_MS = 5 * 60 * 1000L;
+
+    public interface Callback {
+        void onStats(long totalEvents, long activeEvents);
+    }
+
+    private final FirebaseFirestore db;
+    private final SharedPreferences pref;
+
+    public OrganizerStatsCache(Context context) {
+        db = FirebaseFirestore.getInstance();
+        pref = prefs(context);
+    }
+
+    /**
+     * Marks the organizer's counts stale after this device creates, edits,
+     * deletes or changes the status of one of their events. The old counts
+     * are still shown until the refresh arrives.
+     */
+    public static void invalidate(Context context, String organizerId) {
+        if (organizerId == null) {
+            return;
+        }
+        prefs(context).edit()
+                .remove(KEY_FETCHED_AT + organizerId)
+                .putLong(KEY_INVALIDATED_AT + organizerId, System.currentTimeMillis())
+                .apply();
+    }
+
+    public boolean hasCached(String organizerId) {
+        return pref.contains(KEY_TOTAL + organizerId);
+    }
+
+    public long getTotalEvents(String organizerId) {
+        return pref.getLong(KEY_TOTAL + organizerId, 0);
+    }
+
+    public long getActiveEvents(String organizerId) {
+        return pref.getLong(KEY_ACTIVE + organizerId, 0);
+    }
+
+    public boolean isFresh(String organizerId) {
+        long fetchedAt = pref.getLong(KEY_FETCHED_AT + organizerId, 0);
+        return fetchedAt > 0 && System.currentTimeMillis() - fetchedAt < TTL_MS;
+    }
+
+    /**
+     * Runs both count queries on the server and caches the result.
+     *
+     * @param callback called on the main thread with the new counts
+     */
+    public void refresh(String organizerId, Callback callback) {
+        if (pref.getBoolean(KEY_LABELS_NORMALIZED + organizerId, false)) {
+            count(organizerId, callback);
+            return;
+        }
+        normalizeStatusLabels(organizerId)
+                .addOnSuccessListener(aVoid -> pref.edit()
+                        .putBoolean(KEY_LABELS_NORMALIZED + organizerId, true)
+                        .apply())
+                .addOnFailureListener(e -> Log.e(TAG, "Error normalizing status labels: " + e.getMessage()))
+                // Count either way; a failed pass is tried again on the next refresh
+                .addOnCompleteListener(task -> count(organizerId, callback));
+    }
+
+    private void count(String organizerId, Callback callback) {
+        long requestedAt = System.currentTimeMillis();
+        Query events = db.collection("events").whereEqualTo("organizerId", organizerId);
+        Task<AggregateQuerySnapshot> total = events.count().get(AggregateSource.SERVER);
+        Task<AggregateQuerySnapshot> active = events.whereEqualTo("status", Event.STATUS_ACTIVE)
+                .count().get(AggregateSource.SERVER);
+
+        Tasks.whenAllSuccess(total, active)
+                .addOnSuccessListener(results -> {
+                    long totalEvents = total.getResult().getCount();
+                    long activeEvents = active.getResult().getCount();
+                    SharedPreferences.Editor editor = pref.edit()
+                            .putLong(KEY_TOTAL + organizerId, totalEvents)
+                            .putLong(KEY_ACTIVE + organizerId, activeEvents);
+                    // An invalidation while the queries ran may not be reflected in them
+                    if (pref.getLong(KEY_INVALIDATED_AT + organizerId, 0) < requestedAt) {
+                        editor.putLong(KEY_FETCHED_AT + organizerId, System.currentTimeMillis());
+                    }
+                    editor.apply();
+                    callback.onStats(totalEvents, activeEvents);
+                })
+                .addOnFailureListener(e -> Log.e(TAG, "Error loading stats: " + e.getMessage()));
+    }
+
+    // Rewrites "active", "HOLD" etc. on the organizer's events to the canonical label.
+    // Unknown or missing labels are left alone; they never counted as Active.
+    private Task<Void> normalizeStatusLabels(String organizerId) {
+        return db.collection("events").whereEqualTo("organizerId", organizerId).get(Source.SERVER)
+                .onSuccessTask(snapshot -> {
+                    List<Task<Void>> commits = new ArrayList<>();
+                    WriteBatch batch = db.batch();
+                    int writes = 0;
+                    for (DocumentSnapshot doc : snapshot.getDocuments()) {
+                        String label = doc.getString("status");
+                        String canonical = Event.Status.fromLabel(label).label;
+                        if (label == null || label.equals(canonical) || !label.equalsIgnoreCase(canonical)) {
+                            continue;
+                        }
+                        batch.update(doc.getReference(), "status", canonical);
+                        if (++writes == BATCH_LIMIT) {
+                            commits.add(batch.commit());
+                            batch = db.batch();
+                            writes = 0;
+                        }
+                    }
+                    if (writes > 0) {
+                        commits.add(batch.commit());
+                    }
+                    return Tasks.whenAll(commits);
+                });
+    }
+
+    private static SharedPreferences prefs(Context context) {
+        return context.getApplicationContext().getSharedPreferences(PREF_NAME, Context.MODE_PRIVATE);
+    }
+}
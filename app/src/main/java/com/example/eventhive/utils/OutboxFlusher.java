@@ -0,0 +1,394 @@
+package com.example.eventhive.utils;
+
+import android.content.Context;
+import android.database.SQLException;
+import android.net.ConnectivityManager;
+import android.net.Network;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import com.example.eventhive.databases.DatabaseHelper;
+import com.example.eventhive.databases.OutboxStats;
+import com.example.eventhive.models.Event;
+import com.example.eventhive.models.OutboxEntry;
+import com.example.eventhive.models.PurchaseRequest;
+import com.google.firebase.firestore.FieldValue;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.WriteBatch;
+
+import org.json.JSONException;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Future;
+
+/**
+ * Sends the Firestore writes queued in the local outbox table.
+ *
+ * Writes are queued by PurchasePipeline and by organizers' status changes,
+ * and survive process death. A flush runs on start, whenever a network
+ * becomes available, and after each new entry. Entries are sent strictly in
+ * queue order, so a user's writes reach Firestore in the order they were
+ * made: runs of plain writes go out in WriteBatch groups of up to
+ * BATCH_SIZE entries, while purchases for capped events go through
+ * TicketCounter's transaction one at a time.
+ *
+ * A transient failure stops the flush with the entry still queued; the next
+ * trigger resumes from it. Entries Firestore rejects outright, or that
+ * cannot be read back, are dropped; dropped status changes are reported to
+ * the registered StatusChangeListeners. All methods run on the main thread.
+ */
+public class OutboxFlusher {
+
+    private static final String TAG = "OutboxFlusher";
+
+    // Entries read per pass and the most sent in one WriteBatch
+    public static final int BATCH_SIZE = 100;
+
+    // Firestore's limit on writes in one batch; a purchase writes one per ticket
+    private static final int MAX_BATCH_WRITES = 500;
+
+    /**
+     * Told when a queued event status change could not be delivered and was
+     * dropped, so the screen that made it can show the real status again.
+     */
+    public interface StatusChangeListener {
+        void onStatusChangeDropped(String eventId, String status, String reason);
+    }
+
+    private static OutboxFlusher instance;
+
+    private final Context appContext;
+    private final DatabaseHelper dbHelper;
+    private final FirebaseFirestore db;
+    private final TicketCounter counter;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final List<StatusChangeListener> statusChangeListeners = new ArrayList<>();
+
+    private boolean started = false;
+    private boolean flushing = false;
+    private boolean flushAgain = false;
+
+    private OutboxFlusher(Context context) {
+        appContext = context.getApplicationContext();
+        dbHelper = DatabaseHelper.getInstance(appContext);
+        db = FirebaseFirestore.getInstance();
+        counter = new TicketCounter(db);
+    }
+
+    public static synchronized OutboxFlusher getInstance(Context context) {
+        if (instance == null) {
+            instance = new OutboxFlusher(context);
+        }
+        return instance;
+    }
+
+    /**
+     * Flushes now and whenever connectivity returns. Call once per start.
+     */
+    public void start() {
+        if (started) {
+            return;
+        }
+        started = true;
+        ConnectivityManager connectivity = appContext.getSystemService(ConnectivityManager.class);
+        if (connectivity != null) {
+            connectivity.registerDefaultNetworkCallback(new ConnectivityManager.NetworkCallback() {
+                @Override
+                public void onAvailable(Network network) {
+                    mainHandler.post(OutboxFlusher.this::flush);
+                }
+            });
+        }
+        flush();
+    }
+
+    /**
+     * Stores a purchase until it is confirmed. Queuing the same purchase
+     * twice keeps one entry.
+     */
+    public void enqueuePurchase(PurchaseRequest request) {
+        try {
+            OutboxEntry entry = new OutboxEntry(request.getTicket().getUserId(), OutboxEntry.KIND_TICKET,
+                    request.getId(), request.toPayload(), System.currentTimeMillis());
+            enqueue(entry, false);
+        } catch (JSONException e) {
+            Log.e(TAG, "Could not queue purchase " + request.getId() + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Drops a purchase that was confirmed or rejected without the outbox.
+     */
+    public void removePurchase(PurchaseRequest request) {
+        dbHelper.submitWrite(() -> {
+            try {
+                dbHelper.deleteOutboxTicket(request.getId());
+            } catch (SQLException e) {
+                Log.e(TAG, "Could not remove purchase " + request.getId() + ": " + e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Queues an event status change and sends it as soon as possible. The
+     * document gets the status's canonical label, which the organizer's
+     * Active count matches exactly.
+     */
+    public void enqueueStatusChange(String organizerId, String eventId, Event.Status status) {
+        enqueue(new OutboxEntry(organizerId, OutboxEntry.KIND_EVENT_STATUS, eventId, status.label,
+                System.currentTimeMillis()), true);
+    }
+
+    public void addStatusChangeListener(StatusChangeListener listener) {
+        statusChangeListeners.add(listener);
+    }
+
+    public void removeStatusChangeListener(StatusChangeListener listener) {
+        statusChangeListeners.remove(listener);
+    }
+
+    /**
+     * Current outbox depth and age of its oldest entry.
+     */
+    public Future<OutboxStats> getStats() {
+        return dbHelper.submitRead(dbHelper::getOutboxStats);
+    }
+
+    private void enqueue(OutboxEntry entry, boolean flushAfter) {
+        dbHelper.submitWrite(() -> {
+            try {
+                dbHelper.enqueueOutbox(entry);
+                if (flushAfter) {
+                    mainHandler.post(this::flush);
+                }
+            } catch (SQLException e) {
+                Log.e(TAG, "Could not queue " + entry.getKind() + " " + entry.getDocId() + ": " + e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Sends everything queued. A flush requested while one is running starts
+     * again once it finishes.
+     */
+    public void flush() {
+        if (flushing) {
+            flushAgain = true;
+            return;
+        }
+        flushing = true;
+        flushAgain = false;
+        dbHelper.submitRead(() -> {
+            List<OutboxEntry> head = dbHelper.getOutboxHead(BATCH_SIZE);
+            OutboxStats stats = dbHelper.getOutboxStats();
+            mainHandler.post(() -> {
+                if (!head.isEmpty()) {
+                    Log.i(TAG, "Flushing outbox: " + stats);
+                }
+                send(head, 0);
+            });
+            return null;
+        });
+    }
+
+    private void send(List<OutboxEntry> entries, int index) {
+        if (index >= entries.size()) {
+            // A full page means there may be more behind it
+            done(entries.size() == BATCH_SIZE);
+            return;
+        }
+        OutboxEntry entry = entries.get(index);
+        PurchaseRequest transactional = cappedPurchase(entry);
+        if (transactional != null) {
+            sendPurchase(entries, index, entry, transactional);
+            return;
+        }
+        int end = index;
+        int writes = 0;
+        while (end < entries.size() && cappedPurchase(entries.get(end)) == null) {
+            writes += writeCount(entries.get(end));
+            if (writes > MAX_BATCH_WRITES && end > index) {
+                break;
+            }
+            end++;
+        }
+        sendBatch(entries, index, end);
+    }
+
+    // Tickets for capped events need TicketCounter's read-then-write transaction
+    private PurchaseRequest cappedPurchase(OutboxEntry entry) {
+        if (!OutboxEntry.KIND_TICKET.equals(entry.getKind())) {
+            return null;
+        }
+        PurchaseRequest request = parse(entry);
+        return request != null && request.getTicketLimit() > 0 ? request : null;
+    }
+
+    private int writeCount(OutboxEntry entry) {
+        if (OutboxEntry.KIND_TICKET.equals(entry.getKind())) {
+            PurchaseRequest request = parse(entry);
+            return request != null ? request.getQuantity() : 0;
+        }
+        return 1;
+    }
+
+    private void sendBatch(List<OutboxEntry> entries, int from, int to) {
+        List<OutboxEntry> group = entries.subList(from, to);
+        WriteBatch batch = db.batch();
+        for (OutboxEntry entry : group) {
+            addToBatch(batch, entry);
+        }
+        batch.commit()
+                .addOnSuccessListener(aVoid -> {
+                    delivered(group);
+                    send(entries, to);
+                })
+                .addOnFailureListener(e -> {
+                    if (PurchasePipeline.isRetryable(e)) {
+                        stop(e);
+                    } else if (group.size() > 1) {
+                        // One bad write fails the whole batch; send them singly to find it
+                        sendSingly(entries, from, to);
+                    } else {
+                        undeliverable(group.get(0), e.getMessage());
+                        send(entries, to);
+                    }
+                });
+    }
+
+    private void sendSingly(List<OutboxEntry> entries, int from, int to) {
+        if (from >= to) {
+            send(entries, to);
+            return;
+        }
+        OutboxEntry entry = entries.get(from);
+        WriteBatch batch = db.batch();
+        addToBatch(batch, entry);
+        batch.commit()
+                .addOnSuccessListener(aVoid -> {
+                    delivered(Collections.singletonList(entry));
+                    sendSingly(entries, from + 1, to);
+                })
+                .addOnFailureListener(e -> {
+                    if (PurchasePipeline.isRetryable(e)) {
+                        stop(e);
+                    } else {
+                        undeliverable(entry, e.getMessage());
+                        sendSingly(entries, from + 1, to);
+                    }
+                });
+    }
+
+    private void addToBatch(WriteBatch batch, OutboxEntry entry) {
+        if (OutboxEntry.KIND_EVENT_STATUS.equals(entry.getKind())) {
+            batch.update(db.collection("events").document(entry.getDocId()), "status", entry.getPayload(),
+                    EventMirrorSync.FIELD_UPDATED_AT, FieldValue.serverTimestamp());
+        } else {
+            PurchaseRequest request = parse(entry);
+            if (request != null) {
+                // Same ids and fields on every send, so a repeat changes nothing
+                for (Map.Entry<String, Map<String, Object>> ticket : request.toTicketDocuments().entrySet()) {
+                    batch.set(db.collection("tickets").document(ticket.getKey()), ticket.getValue());
+                }
+            }
+        }
+    }
+
+    private void sendPurchase(List<OutboxEntry> entries, int index, OutboxEntry entry, PurchaseRequest request) {
+        counter.purchase(request.getTicket().getEventId(), request.getTicketLimit(), request.toTicketDocuments(),
+                new TicketCounter.PurchaseCallback() {
+                    @Override
+                    public void onPurchased() {
+                        delivered(Collections.singletonList(entry));
+                        send(entries, index + 1);
+                    }
+
+                    @Override
+                    public void onSoldOut() {
+                        undeliverable(entry, "Sold out");
+                        send(entries, index + 1);
+                    }
+
+                    @Override
+                    public void onFailed(Exception e) {
+                        if (PurchasePipeline.isRetryable(e)) {
+                            stop(e);
+                        } else {
+                            undeliverable(entry, e.getMessage());
+                            send(entries, index + 1);
+                        }
+                    }
+                });
+    }
+
+    private void delivered(List<OutboxEntry> group) {
+        remove(group);
+        for (OutboxEntry entry : group) {
+            if (OutboxEntry.KIND_EVENT_STATUS.equals(entry.getKind())) {
+                OrganizerStatsCache.invalidate(appContext, entry.getUserId());
+            } else {
+                PurchaseRequest request = parse(entry);
+                if (request != null) {
+                    PurchasePipeline.getInstance(appContext).onDelivered(request);
+                }
+            }
+        }
+    }
+
+    private void undeliverable(OutboxEntry entry, String reason) {
+        Log.w(TAG, "Dropping " + entry.getKind() + " " + entry.getDocId() + ": " + reason);
+        remove(Collections.singletonList(entry));
+        if (OutboxEntry.KIND_EVENT_STATUS.equals(entry.getKind())) {
+            for (StatusChangeListener listener : new ArrayList<>(statusChangeListeners)) {
+                listener.onStatusChangeDropped(entry.getDocId(), entry.getPayload(), reason);
+            }
+            return;
+        }
+        PurchaseRequest request = parse(entry);
+        if (request != null) {
+            PurchasePipeline.getInstance(appContext).onUndeliverable(request, reason);
+        }
+    }
+
+    private void remove(List<OutboxEntry> group) {
+        List<Long> ids = new ArrayList<>();
+        for (OutboxEntry entry : group) {
+            ids.add(entry.getId());
+        }
+        dbHelper.submitWrite(() -> {
+            try {
+                dbHelper.deleteOutboxEntries(ids);
+            } catch (SQLException e) {
+                // Resending is harmless: every queued write is idempotent
+                Log.e(TAG, "Could not remove sent entries: " + e.getMessage());
+            }
+        });
+    }
+
+    // Null for a payload that cannot be read back; the entry is then sent as nothing and dropped
+    private PurchaseRequest parse(OutboxEntry entry) {
+        try {
+            return PurchaseRequest.fromPayload(entry.getPayload());
+        } catch (JSONException | IllegalArgumentException e) {
+            Log.e(TAG, "Unreadable outbox entry " + entry.getId() + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    private void stop(Exception e) {
+        Log.i(TAG, "Outbox flush paused, will resume when back online: " + e.getMessage());
+        done(false);
+    }
+
+    private void done(boolean more) {
+        flushing = false;
+        if (more || flushAgain) {
+            // Queued behind the deletes on the writer thread, so sent entries are not read again
+            dbHelper.submitWrite(() -> mainHandler.post(this::flush));
+        }
+    }
+}
@@ -0,0 +1,323 @@
+package com.example.eventhive.utils;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.widget.Toast;
+
+import com.example.eventhive.models.PurchaseRequest;
+import com.google.firebase.firestore.FirebaseFirestoreException;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Commits ticket purchases in the background so the buyer gets their
+ * confirmation immediately.
+ *
+ * Each purchase carries fixed document ids (see PurchaseRequest), so sending
+ * it again after a failure or timeout cannot create a second set of tickets;
+ * the tickets of one purchase are confirmed or rejected together.
+ * Transient failures and attempts that take longer than ATTEMPT_TIMEOUT_MS
+ * are retried with exponential backoff and jitter, up to MAX_ATTEMPTS times.
+ * Sold-out events and other permanent failures are not retried.
+ *
+ * With an outbox, each purchase is also stored locally before the first
+ * attempt. If every attempt fails transiently (e.g. no connectivity) the
+ * purchase is QUEUED rather than rejected, and OutboxFlusher delivers it
+ * when the device is back online.
+ *
+ * The writer and scheduler are interfaces so the retry logic can run
+ * without Firestore. All methods and callbacks run on the main thread.
+ */
+public class PurchasePipeline {
+
+    public static final int MAX_ATTEMPTS = 6;
+    public static final long BASE_BACKOFF_MS = 1000;
+    public static final long MAX_BACKOFF_MS = 30 * 1000;
+    public static final long ATTEMPT_TIMEOUT_MS = 15 * 1000;
+
+    public enum State {
+        PENDING, QUEUED, CONFIRMED, REJECTED
+    }
+
+    /**
+     * Writes a purchase to the server. Writing the same request twice must
+     * store it only once.
+     */
+    public interface TicketWriter {
+        void write(PurchaseRequest request, WriteCallback callback);
+    }
+
+    public interface WriteCallback {
+        void onWritten();
+
+        void onSoldOut();
+
+        void onFailed(Exception e, boolean retryable);
+    }
+
+    /**
+     * Durable copy of purchases that have not been confirmed or rejected.
+     */
+    public interface Outbox {
+        void add(PurchaseRequest request);
+
+        void remove(PurchaseRequest request);
+    }
+
+    public interface Scheduler {
+        void schedule(Runnable task, long delayMs);
+    }
+
+    public interface Listener {
+        void onConfirmed(PurchaseRequest request);
+
+        void onRejected(PurchaseRequest request, String reason);
+
+        void onQueued(PurchaseRequest request);
+    }
+
+    private static PurchasePipeline instance;
+
+    private final TicketWriter writer;
+    private final Outbox outbox;
+    private final Scheduler scheduler;
+    private final Random random;
+    private final Map<String, State> states = new HashMap<>();
+    private final List<Listener> listeners = new ArrayList<>();
+
+    /**
+     * @param outbox may be null, in which case purchases that run out of
+     *               attempts are rejected
+     */
+    public PurchasePipeline(TicketWriter writer, Outbox outbox, Scheduler scheduler, Random random) {
+        this.writer = writer;
+        this.outbox = outbox;
+        this.scheduler = scheduler;
+        this.random = random;
+    }
+
+    /**
+     * App-wide pipeline that writes through TicketCounter and keeps
+     * unconfirmed purchases in the OutboxFlusher's outbox. Purchases rejected
+     * after the buyer has left the confirmation screen are reported in a
+     * toast.
+     */
+    public static synchronized PurchasePipeline getInstance(Context context) {
+        if (instance == null) {
+            Context appContext = context.getApplicationContext();
+            Handler handler = new Handler(Looper.getMainLooper());
+            TicketCounter counter = new TicketCounter();
+            OutboxFlusher flusher = OutboxFlusher.getInstance(appContext);
+            instance = new PurchasePipeline(
+                    (request, callback) -> counter.purchase(request.getTicket().getEventId(),
+                            request.getTicketLimit(), request.toTicketDocuments(), new TicketCounter.PurchaseCallback() {
+                                @Override
+                                public void onPurchased() {
+                                    callback.onWritten();
+                                }
+
+                                @Override
+                                public void onSoldOut() {
+                                    callback.onSoldOut();
+                                }
+
+                                @Override
+                                public void onFailed(Exception e) {
+                                    callback.onFailed(e, isRetryable(e));
+                                }
+                            }),
+                    new Outbox() {
+                        @Override
+                        public void add(PurchaseRequest request) {
+                            flusher.enqueuePurchase(request);
+                        }
+
+                        @Override
+                        public void remove(PurchaseRequest request) {
+                            flusher.removePurchase(request);
+                        }
+                    },
+                    handler::postDelayed, new Random());
+            instance.addListener(new Listener() {
+                @Override
+                public void onConfirmed(PurchaseRequest request) {
+                }
+
+                @Override
+                public void onRejected(PurchaseRequest request, String reason) {
+                    Toast.makeText(appContext, (request.getQuantity() > 1 ? "Tickets for " : "Ticket for ")
+                            + request.getTicket().getEventTitle()
+                            + " could not be confirmed: " + reason, Toast.LENGTH_LONG).show();
+                }
+
+                @Override
+                public void onQueued(PurchaseRequest request) {
+                }
+            });
+        }
+        return instance;
+    }
+
+    /**
+     * Errors worth sending the same write again for.
+     */
+    public static boolean isRetryable(Exception e) {
+        if (!(e instanceof FirebaseFirestoreException)) {
+            return false;
+        }
+        switch (((FirebaseFirestoreException) e).getCode()) {
+            case UNAVAILABLE:
+            case DEADLINE_EXCEEDED:
+            case ABORTED:
+            case RESOURCE_EXHAUSTED:
+            case INTERNAL:
+            case UNKNOWN:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    public void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * State of a submitted purchase, or null if this process never saw it.
+     */
+    public State getState(String purchaseId) {
+        return states.get(purchaseId);
+    }
+
+    /**
+     * Starts committing the purchase. Submitting one that is already in
+     * progress or confirmed does nothing.
+     */
+    public void submit(PurchaseRequest request) {
+        State state = states.get(request.getId());
+        if (state == State.PENDING || state == State.QUEUED || state == State.CONFIRMED) {
+            return;
+        }
+        states.put(request.getId(), State.PENDING);
+        if (outbox != null) {
+            outbox.add(request);
+        }
+        attempt(request, 1);
+    }
+
+    /**
+     * Reports a purchase the outbox delivered, possibly from an earlier run.
+     */
+    public void onDelivered(PurchaseRequest request) {
+        finish(request, State.CONFIRMED, null);
+    }
+
+    /**
+     * Reports a purchase the outbox gave up on, possibly from an earlier run.
+     */
+    public void onUndeliverable(PurchaseRequest request, String reason) {
+        finish(request, State.REJECTED, reason);
+    }
+
+    /**
+     * Delay before attempt {@code attempt + 1}: BASE_BACKOFF_MS doubled per
+     * failed attempt, capped at MAX_BACKOFF_MS, plus up to half of that again
+     * as jitter so retries from many devices spread out.
+     */
+    private long backoffDelay(int attempt) {
+        long delay = Math.min(MAX_BACKOFF_MS, BASE_BACKOFF_MS << Math.min(attempt - 1, 20));
+        return delay + (long) (random.nextDouble() * (delay / 2));
+    }
+
+    private void attempt(PurchaseRequest request, int attempt) {
+        // Whichever comes first settles the attempt: the write's callback or the timeout
+        boolean[] settled = { false };
+        scheduler.schedule(() -> {
+            if (!settled[0]) {
+                settled[0] = true;
+                retryOrReject(request, attempt, "Timed out");
+            }
+        }, ATTEMPT_TIMEOUT_MS);
+
+        writer.write(request, new WriteCallback() {
+            @Override
+            public void onWritten() {
+                // Counts even after a timeout: the ticket is stored either way
+                settled[0] = true;
+                finish(request, State.CONFIRMED, null);
+            }
+
+            @Override
+            public void onSoldOut() {
+                if (!settled[0]) {
+                    settled[0] = true;
+                    finish(request, State.REJECTED, "Sold out");
+                }
+            }
+
+            @Override
+            public void onFailed(Exception e, boolean retryable) {
+                if (settled[0]) {
+                    return;
+                }
+                settled[0] = true;
+                if (retryable) {
+                    retryOrReject(request, attempt, e.getMessage());
+                } else {
+                    finish(request, State.REJECTED, e.getMessage());
+                }
+            }
+        });
+    }
+
+    private void retryOrReject(PurchaseRequest request, int attempt, String reason) {
+        if (states.get(request.getId()) != State.PENDING) {
+            return;
+        }
+        if (attempt >= MAX_ATTEMPTS) {
+            if (outbox != null) {
+                // Stays in the outbox until OutboxFlusher gets it through
+                states.put(request.getId(), State.QUEUED);
+                for (Listener listener : new ArrayList<>(listeners)) {
+                    listener.onQueued(request);
+                }
+            } else {
+                finish(request, State.REJECTED, reason);
+            }
+            return;
+        }
+        scheduler.schedule(() -> {
+            if (states.get(request.getId()) == State.PENDING) {
+                attempt(request, attempt + 1);
+            }
+        }, backoffDelay(attempt));
+    }
+
+    private void finish(PurchaseRequest request, State state, String reason) {
+        State current = states.get(request.getId());
+        // A write that lands after the purchase was given up on still confirms it
+        if (current == State.CONFIRMED || (current == State.REJECTED && state == State.REJECTED)) {
+            return;
+        }
+        states.put(request.getId(), state);
+        if (outbox != null) {
+            outbox.remove(request);
+        }
+        for (Listener listener : new ArrayList<>(listeners)) {
+            if (state == State.CONFIRMED) {
+                listener.onConfirmed(request);
+            } else {
+                listener.onRejected(request, reason);
+            }
+        }
+    }
+}
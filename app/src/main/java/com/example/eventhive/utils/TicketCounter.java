@@ -0,0 +1,189 @@
+package com.example.eventhive.utils;
+
+import android.util.Log;
+
+import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.WriteBatch;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Sharded sold-ticket counter for an event.
+ *
+ * An event's ticketQuantity is split across up to MAX_SHARDS documents in
+ * events/{eventId}/ticketShards, each with its own capacity and sold count,
+ * so concurrent purchases land on different documents instead of contending
+ * on one. A purchase starts at a random shard and takes the tickets it has
+ * left, moving on to the next shard for the rest of the order; in the same
+ * transaction it increments those shards and creates every ticket document.
+ * An order the shards cannot cover in full is sold out, never partly filled.
+ * Since the shard capacities add up to ticketQuantity the event cannot
+ * oversell. Remaining capacity is the sum over all shards.
+ *
+ * Ticket ids are chosen by the caller, and a purchase whose tickets already
+ * exist succeeds without counting them again, so retrying is always safe.
+ *
+ * Shards are created by the first purchase that lands on them. Tickets sold
+ * before an event had shards are not counted.
+ */
+public class TicketCounter {
+
+    private static final String TAG = "TicketCounter";
+
+    public static final String COLLECTION_SHARDS = "ticketShards";
+    public static final int MAX_SHARDS = 10;
+
+    private static final String FIELD_CAPACITY = "capacity";
+    private static final String FIELD_SOLD = "sold";
+
+    public interface PurchaseCallback {
+        void onPurchased();
+
+        void onSoldOut();
+
+        void onFailed(Exception e);
+    }
+
+    public interface RemainingCallback {
+        void onRemaining(int remaining);
+    }
+
+    private static final Random random = new Random();
+
+    private final FirebaseFirestore db;
+
+    public TicketCounter() {
+        this(FirebaseFirestore.getInstance());
+    }
+
+    public TicketCounter(FirebaseFirestore db) {
+        this.db = db;
+    }
+
+    /**
+     * Number of shards for an event: one per ticket for small events, so no
+     * shard is created empty.
+     */
+    public static int shardCount(int ticketQuantity) {
+        return Math.max(1, Math.min(MAX_SHARDS, ticketQuantity));
+    }
+
+    /**
+     * Tickets shard {@code index} may sell. The remainder of an uneven split
+     * goes to the lowest shards.
+     */
+    public static int shardCapacity(int index, int ticketQuantity) {
+        int shards = shardCount(ticketQuantity);
+        return ticketQuantity / shards + (index < ticketQuantity % shards ? 1 : 0);
+    }
+
+    /**
+     * Every shard document an event can have, for deleting them with it.
+     */
+    public static List<DocumentReference> shardRefs(DocumentReference event) {
+        List<DocumentReference> refs = new ArrayList<>();
+        for (int i = 0; i < MAX_SHARDS; i++) {
+            refs.add(event.collection(COLLECTION_SHARDS).document(String.valueOf(i)));
+        }
+        return refs;
+    }
+
+    /**
+     * Sells the tickets of one purchase and writes their documents, all or
+     * nothing. Events without a ticket limit (ticketQuantity <= 0) skip the
+     * counter.
+     *
+     * @param tickets fields of each new ticket document by document id, the
+     *                same ids on every retry
+     */
+    public void purchase(String eventId, int ticketQuantity, Map<String, Map<String, Object>> tickets,
+            PurchaseCallback callback) {
+        if (ticketQuantity <= 0) {
+            // Writing the same fields to the same ids again changes nothing
+            WriteBatch batch = db.batch();
+            for (Map.Entry<String, Map<String, Object>> ticket : tickets.entrySet()) {
+                batch.set(db.collection("tickets").document(ticket.getKey()), ticket.getValue());
+            }
+            batch.commit()
+                    .addOnSuccessListener(aVoid -> callback.onPurchased())
+                    .addOnFailureListener(callback::onFailed);
+            return;
+        }
+        int shards = shardCount(ticketQuantity);
+        int start = random.nextInt(shards);
+        // The tickets are written together, so the first one stands for all of them
+        DocumentReference firstTicket = db.collection("tickets").document(tickets.keySet().iterator().next());
+        db.runTransaction(transaction -> {
+            if (transaction.get(firstTicket).exists()) {
+                // An earlier attempt already went through
+                return true;
+            }
+            // Take what each shard has left, starting from a random one, until the order is covered
+            Map<DocumentReference, Map<String, Object>> updates = new LinkedHashMap<>();
+            int needed = tickets.size();
+            for (int i = 0; i < shards && needed > 0; i++) {
+                int index = (start + i) % shards;
+                DocumentReference shardRef = db.collection("events").document(eventId)
+                        .collection(COLLECTION_SHARDS).document(String.valueOf(index));
+                DocumentSnapshot shard = transaction.get(shardRef);
+                Long soldValue = shard.getLong(FIELD_SOLD);
+                long sold = soldValue != null ? soldValue : 0;
+                Long capacityValue = shard.getLong(FIELD_CAPACITY);
+                long capacity = capacityValue != null ? capacityValue : shardCapacity(index, ticketQuantity);
+                long taken = Math.min(needed, capacity - sold);
+                if (taken > 0) {
+                    Map<String, Object> update = new HashMap<>();
+                    update.put(FIELD_CAPACITY, capacity);
+                    update.put(FIELD_SOLD, sold + taken);
+                    updates.put(shardRef, update);
+                    needed -= taken;
+                }
+            }
+            if (needed > 0) {
+                return false;
+            }
+            // All reads are done; the writes follow
+            for (Map.Entry<DocumentReference, Map<String, Object>> update : updates.entrySet()) {
+                transaction.set(update.getKey(), update.getValue());
+            }
+            for (Map.Entry<String, Map<String, Object>> ticket : tickets.entrySet()) {
+                transaction.set(db.collection("tickets").document(ticket.getKey()), ticket.getValue());
+            }
+            return true;
+        }).addOnSuccessListener(sold -> {
+            if (sold) {
+                callback.onPurchased();
+            } else {
+                callback.onSoldOut();
+            }
+        }).addOnFailureListener(e -> {
+            Log.e(TAG, "Purchase of " + tickets.size() + " tickets failed: " + e.getMessage());
+            callback.onFailed(e);
+        });
+    }
+
+    /**
+     * Reads all shards of the event and reports the tickets still for sale.
+     */
+    public void getRemaining(String eventId, int ticketQuantity, RemainingCallback callback) {
+        db.collection("events").document(eventId).collection(COLLECTION_SHARDS).get()
+                .addOnSuccessListener(snapshot -> {
+                    long sold = 0;
+                    for (DocumentSnapshot shard : snapshot.getDocuments()) {
+                        Long value = shard.getLong(FIELD_SOLD);
+                        if (value != null) {
+                            sold += value;
+                        }
+                    }
+                    callback.onRemaining((int) Math.max(0, ticketQuantity - sold));
+                })
+                .addOnFailureListener(e -> Log.e(TAG, "Error reading shards: " + e.getMessage()));
+    }
+}
@@ -0,0 +1,136 @@
+package com.example.eventhive.adapters;
+
+import com.example.eventhive.models.Event;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Sends ADDED, MODIFIED and REMOVED changes through EventChangeApplier and
+ * checks the exact row notifications and the resulting feed order.
+ */
+public class EventChangeApplierTest {
+
+    private final List<Event> events = new ArrayList<>();
+    private final List<String> calls = new ArrayList<>();
+    private boolean unloadedAfter = false;
+    private boolean unloadedBefore = false;
+    private EventChangeApplier applier;
+
+    @Before
+    public void setUp() {
+        events.add(event("a", 100));
+        events.add(event("b", 200));
+        events.add(event("c", 300));
+        applier = new EventChangeApplier(events, new EventChangeApplier.Rows() {
+            @Override
+            public void notifyItemInserted(int position) {
+                calls.add("inserted " + position);
+            }
+
+            @Override
+            public void notifyItemMoved(int fromPosition, int toPosition) {
+                calls.add("moved " + fromPosition + " " + toPosition);
+            }
+
+            @Override
+            public void notifyItemChanged(int position) {
+                calls.add("changed " + position);
+            }
+
+            @Override
+            public void notifyItemRemoved(int position) {
+                calls.add("removed " + position);
+            }
+
+            @Override
+            public boolean hasUnloadedAfter() {
+                return unloadedAfter;
+            }
+
+            @Override
+            public boolean hasUnloadedBefore() {
+                return unloadedBefore;
+            }
+        });
+    }
+
+    private static Event event(String firestoreId, long startAt) {
+        Event event = new Event();
+        event.setFirestoreId(firestoreId);
+        event.setStartAt(startAt);
+        return event;
+    }
+
+    private List<String> ids() {
+        List<String> ids = new ArrayList<>();
+        for (Event event : events) {
+            ids.add(event.getFirestoreId());
+        }
+        return ids;
+    }
+
+    @Test
+    public void addedEventIsInsertedInFeedOrder() {
+        applier.upsert(event("d", 250));
+        assertEquals(Arrays.asList("inserted 2"), calls);
+        assertEquals(Arrays.asList("a", "b", "d", "c"), ids());
+    }
+
+    @Test
+    public void addedUndatedEventGoesLast() {
+        applier.upsert(event("d", 0));
+        assertEquals(Arrays.asList("inserted 3"), calls);
+        assertEquals(Arrays.asList("a", "b", "c", "d"), ids());
+    }
+
+    @Test
+    public void modifiedEventInPlaceIsOnlyChanged() {
+        applier.upsert(event("b", 200));
+        assertEquals(Arrays.asList("changed 1"), calls);
+        assertEquals(Arrays.asList("a", "b", "c"), ids());
+    }
+
+    @Test
+    public void modifiedEventThatMovesIsMovedThenChanged() {
+        applier.upsert(event("a", 350));
+        assertEquals(Arrays.asList("moved 0 2", "changed 2"), calls);
+        assertEquals(Arrays.asList("b", "c", "a"), ids());
+    }
+
+    @Test
+    public void modifiedEventMovingIntoUnloadedPageIsRemoved() {
+        unloadedAfter = true;
+        applier.upsert(event("a", 400));
+        assertEquals(Arrays.asList("removed 0"), calls);
+        assertEquals(Arrays.asList("b", "c"), ids());
+    }
+
+    @Test
+    public void addedEventBeforeUnloadedPagesIsNotShown() {
+        unloadedBefore = true;
+        applier.upsert(event("d", 50));
+        assertTrue(calls.isEmpty());
+        assertEquals(Arrays.asList("a", "b", "c"), ids());
+    }
+
+    @Test
+    public void removedEventIsRemoved() {
+        applier.remove("b");
+        assertEquals(Arrays.asList("removed 1"), calls);
+        assertEquals(Arrays.asList("a", "c"), ids());
+    }
+
+    @Test
+    public void removedEventNotShownIsIgnored() {
+        applier.remove("x");
+        assertTrue(calls.isEmpty());
+        assertEquals(Arrays.asList("a", "b", "c"), ids());
+    }
+}
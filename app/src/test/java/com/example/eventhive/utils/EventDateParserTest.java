@@ -0,0 +1,65 @@
+package com.example.eventhive.utils;
+
+import org.junit.Test;
+
+import java.util.Calendar;
+
+import static org.junit.Assert.*;
+
+/**
+ * Year inference for event dates typed without a year.
+ */
+public class EventDateParserTest {
+
+    @Test
+    public void explicitYearIsKept() {
+        assertEquals(at(2025, Calendar.DECEMBER, 12, 22, 0),
+                EventDateParser.parse("12 Dec 2025 - 10 PM", at(2027, Calendar.JUNE, 1, 0, 0)));
+    }
+
+    @Test
+    public void missingYearTakesTheReferenceYear() {
+        assertEquals(at(2026, Calendar.MARCH, 15, 9, 30),
+                EventDateParser.parse("15 Mar - 9:30 AM", at(2026, Calendar.JANUARY, 10, 0, 0)));
+    }
+
+    @Test
+    public void missingYearRollsToTheClosestYear() {
+        // Early January reference: a December date is last month, a January date is not next year
+        assertEquals(at(2025, Calendar.DECEMBER, 20, 0, 0),
+                EventDateParser.parse("20 Dec", at(2026, Calendar.JANUARY, 5, 0, 0)));
+        // Late December reference: a January date is next month
+        assertEquals(at(2027, Calendar.JANUARY, 3, 0, 0),
+                EventDateParser.parse("3 Jan", at(2026, Calendar.DECEMBER, 28, 0, 0)));
+    }
+
+    @Test
+    public void leapDayWithoutYearResolvesToALeapYear() {
+        assertEquals(at(2028, Calendar.FEBRUARY, 29, 20, 0),
+                EventDateParser.parse("29 Feb - 8 PM", at(2028, Calendar.JANUARY, 15, 0, 0)));
+        assertEquals(at(2028, Calendar.FEBRUARY, 29, 0, 0),
+                EventDateParser.parse("29 Feb", at(2027, Calendar.DECEMBER, 1, 0, 0)));
+    }
+
+    @Test
+    public void leapDayWithNoLeapYearNearbyIsUnknown() {
+        assertEquals(EventDateParser.UNKNOWN,
+                EventDateParser.parse("29 Feb", at(2026, Calendar.JUNE, 1, 0, 0)));
+    }
+
+    @Test
+    public void unparseableTextIsUnknown() {
+        long now = at(2026, Calendar.JUNE, 1, 0, 0);
+        assertEquals(EventDateParser.UNKNOWN, EventDateParser.parse("next Friday", now));
+        assertEquals(EventDateParser.UNKNOWN, EventDateParser.parse("31 Apr", now));
+        assertEquals(EventDateParser.UNKNOWN, EventDateParser.parse("  ", now));
+        assertEquals(EventDateParser.UNKNOWN, EventDateParser.parse(null, now));
+    }
+
+    private static long at(int year, int month, int day, int hour, int minute) {
+        Calendar calendar = Calendar.getInstance();
+        calendar.clear();
+        calendar.set(year, month, day, hour, minute);
+        return calendar.getTimeInMillis();
+    }
+}
@@ -0,0 +1,392 @@
+package com.example.eventhive.utils;
+
+import com.example.eventhive.models.PurchaseRequest;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Queue;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+/**
+ * Drives PurchasePipeline with a scripted server and a virtual clock to check
+ * retries, timeouts and that no purchase is stored twice.
+ */
+public class PurchasePipelineTest {
+
+    private static final Exception TRANSIENT = new Exception("unavailable");
+    private static final Exception PERMANENT = new Exception("permission denied");
+
+    private FakeClock clock;
+    private FakeServer server;
+    private PurchasePipeline pipeline;
+    private final List<String> confirmed = new ArrayList<>();
+    private final List<String> rejected = new ArrayList<>();
+    private final List<String> queued = new ArrayList<>();
+
+    @Before
+    public void setUp() {
+        clock = new FakeClock();
+        server = new FakeServer();
+        pipeline = newPipeline(0.0, null);
+    }
+
+    private PurchasePipeline newPipeline(double jitter, PurchasePipeline.Outbox outbox) {
+        Random random = new Random() {
+            @Override
+            public double nextDouble() {
+                return jitter;
+            }
+        };
+        PurchasePipeline p = new PurchasePipeline(server, outbox, clock, random);
+        p.addListener(new PurchasePipeline.Listener() {
+            @Override
+            public void onConfirmed(PurchaseRequest request) {
+                confirmed.add(request.getId());
+            }
+
+            @Override
+            public void onRejected(PurchaseRequest request, String reason) {
+                rejected.add(request.getId());
+            }
+
+            @Override
+            public void onQueued(PurchaseRequest request) {
+                queued.add(request.getId());
+            }
+        });
+        return p;
+    }
+
+    private static PurchaseRequest request() {
+        return PurchaseRequest.create("user-1", "event-1", "Concert", "12/01/2026", "Dhaka", 100, 1000L);
+    }
+
+    @Test
+    public void sameInputsGiveSameIdAndCode() {
+        PurchaseRequest a = request();
+        PurchaseRequest b = request();
+        assertEquals(a.getId(), b.getId());
+        assertEquals(a.getTicket().getUniqueCode(), b.getTicket().getUniqueCode());
+        assertNotEquals(a.getId(),
+                PurchaseRequest.create("user-1", "event-1", "Concert", "12/01/2026", "Dhaka", 100, 1001L).getId());
+    }
+
+    @Test
+    public void groupPurchaseHasDistinctStableTickets() {
+        PurchaseRequest a = PurchaseRequest.create("user-1", "event-1", "Concert", "12/01/2026", "Dhaka",
+                100, 3, 1000L);
+        PurchaseRequest b = PurchaseRequest.create("user-1", "event-1", "Concert", "12/01/2026", "Dhaka",
+                100, 3, 1000L);
+
+        assertEquals(3, a.getQuantity());
+        assertEquals(3, new HashSet<>(a.getTicketCodes()).size());
+        assertEquals(3, a.toTicketDocuments().size());
+        // The first ticket keeps the id a single-ticket purchase would have
+        assertEquals(request().getId(), a.getId());
+        assertEquals(request().getTicket().getUniqueCode(), a.getTicketCodes().get(0));
+        assertEquals(a.getTicketCodes(), b.getTicketCodes());
+        assertEquals(new ArrayList<>(a.toTicketDocuments().keySet()), new ArrayList<>(b.toTicketDocuments().keySet()));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void quantityAboveLimitIsRefused() {
+        PurchaseRequest.create("user-1", "event-1", "Concert", "12/01/2026", "Dhaka", 100,
+                PurchaseRequest.MAX_QUANTITY + 1, 1000L);
+    }
+
+    @Test
+    public void transientFailuresAreRetriedWithBackoffAndSameId() {
+        server.script(Outcome.FAIL_TRANSIENT, Outcome.FAIL_TRANSIENT, Outcome.FAIL_TRANSIENT, Outcome.STORE);
+        PurchaseRequest request = request();
+
+        pipeline.submit(request);
+        clock.runAll();
+
+        assertEquals(4, server.writes.size());
+        for (String id : server.writes) {
+            assertEquals(request.getId(), id);
+        }
+        assertEquals(Arrays.asList(1000L, 2000L, 4000L), clock.retryDelays());
+        assertEquals(1, server.stored.size());
+        assertEquals(Arrays.asList(request.getId()), confirmed);
+        assertTrue(rejected.isEmpty());
+        assertEquals(PurchasePipeline.State.CONFIRMED, pipeline.getState(request.getId()));
+    }
+
+    @Test
+    public void backoffDoublesWithBoundedJitter() {
+        pipeline = newPipeline(0.99, null);
+        for (int i = 0; i < PurchasePipeline.MAX_ATTEMPTS; i++) {
+            server.script(Outcome.FAIL_TRANSIENT);
+        }
+
+        pipeline.submit(request());
+        clock.runAll();
+
+        assertEquals(PurchasePipeline.MAX_ATTEMPTS - 1, clock.retryDelays().size());
+        long expected = PurchasePipeline.BASE_BACKOFF_MS;
+        for (long delay : clock.retryDelays()) {
+            long base = Math.min(expected, PurchasePipeline.MAX_BACKOFF_MS);
+            assertTrue(delay >= base);
+            assertTrue(delay < base + base / 2);
+            expected *= 2;
+        }
+    }
+
+    @Test
+    public void timedOutWriteThatLandedIsNotStoredTwice() {
+        // The first write reaches the server but its answer is lost
+        server.script(Outcome.STORE_SILENTLY, Outcome.STORE);
+        PurchaseRequest request = request();
+
+        pipeline.submit(request);
+        clock.runAll();
+
+        assertEquals(2, server.writes.size());
+        assertEquals(1, server.stored.size());
+        assertEquals(Arrays.asList(request.getId()), confirmed);
+    }
+
+    @Test
+    public void lateAnswerAfterTimeoutConfirmsOnce() {
+        server.script(Outcome.HOLD, Outcome.HOLD);
+        PurchaseRequest request = request();
+
+        pipeline.submit(request);
+        clock.advance(PurchasePipeline.ATTEMPT_TIMEOUT_MS + PurchasePipeline.BASE_BACKOFF_MS);
+        assertEquals(2, server.writes.size());
+
+        // Both attempts finally answer; the purchase is confirmed once
+        server.releaseHeld();
+        clock.runAll();
+
+        assertEquals(1, server.stored.size());
+        assertEquals(Arrays.asList(request.getId()), confirmed);
+        assertTrue(rejected.isEmpty());
+    }
+
+    @Test
+    public void givesUpAfterMaxAttempts() {
+        for (int i = 0; i < PurchasePipeline.MAX_ATTEMPTS; i++) {
+            server.script(Outcome.FAIL_TRANSIENT);
+        }
+        PurchaseRequest request = request();
+
+        pipeline.submit(request);
+        clock.runAll();
+
+        assertEquals(PurchasePipeline.MAX_ATTEMPTS, server.writes.size());
+        assertEquals(Arrays.asList(request.getId()), rejected);
+        assertEquals(PurchasePipeline.State.REJECTED, pipeline.getState(request.getId()));
+    }
+
+    @Test
+    public void outOfAttemptsIsQueuedWhenOutboxPresent() {
+        FakeOutbox outbox = new FakeOutbox();
+        pipeline = newPipeline(0.0, outbox);
+        for (int i = 0; i < PurchasePipeline.MAX_ATTEMPTS; i++) {
+            server.script(Outcome.FAIL_TRANSIENT);
+        }
+        PurchaseRequest request = request();
+
+        pipeline.submit(request);
+        clock.runAll();
+
+        assertEquals(Arrays.asList(request.getId()), queued);
+        assertTrue(rejected.isEmpty());
+        assertTrue(outbox.ids.contains(request.getId()));
+        assertEquals(PurchasePipeline.State.QUEUED, pipeline.getState(request.getId()));
+
+        // Submitting again while queued leaves it to the outbox
+        pipeline.submit(request());
+        assertEquals(PurchasePipeline.MAX_ATTEMPTS, server.writes.size());
+
+        // The outbox delivers it later
+        pipeline.onDelivered(request);
+        assertEquals(Arrays.asList(request.getId()), confirmed);
+        assertFalse(outbox.ids.contains(request.getId()));
+    }
+
+    @Test
+    public void outboxEntryIsRemovedOnceSettled() {
+        FakeOutbox outbox = new FakeOutbox();
+        pipeline = newPipeline(0.0, outbox);
+        server.script(Outcome.STORE, Outcome.SOLD_OUT);
+        PurchaseRequest stored = request();
+        PurchaseRequest soldOut = PurchaseRequest.create("user-2", "event-1", "Concert", "12/01/2026", "Dhaka",
+                100, 1000L);
+
+        pipeline.submit(stored);
+        pipeline.submit(soldOut);
+        clock.runAll();
+
+        assertEquals(2, outbox.added);
+        assertTrue(outbox.ids.isEmpty());
+    }
+
+    @Test
+    public void soldOutAndPermanentFailuresAreNotRetried() {
+        server.script(Outcome.SOLD_OUT);
+        pipeline.submit(request());
+        clock.runAll();
+        assertEquals(1, server.writes.size());
+        assertEquals(1, rejected.size());
+
+        PurchaseRequest other = PurchaseRequest.create("user-2", "event-1", "Concert", "12/01/2026", "Dhaka",
+                100, 1000L);
+        server.script(Outcome.FAIL_PERMANENT);
+        pipeline.submit(other);
+        clock.runAll();
+        assertEquals(2, server.writes.size());
+        assertEquals(2, rejected.size());
+    }
+
+    @Test
+    public void duplicateSubmitIsIgnoredWhilePendingOrConfirmed() {
+        server.script(Outcome.HOLD);
+        PurchaseRequest request = request();
+
+        pipeline.submit(request);
+        pipeline.submit(request());
+        assertEquals(1, server.writes.size());
+
+        server.releaseHeld();
+        pipeline.submit(request());
+        clock.runAll();
+        assertEquals(1, server.writes.size());
+        assertEquals(1, confirmed.size());
+    }
+
+    private enum Outcome {
+        STORE, STORE_SILENTLY, HOLD, FAIL_TRANSIENT, FAIL_PERMANENT, SOLD_OUT
+    }
+
+    /**
+     * Stores tickets by id like the real writer, so repeated writes of one
+     * purchase keep a single ticket.
+     */
+    private static class FakeServer implements PurchasePipeline.TicketWriter {
+        final List<String> writes = new ArrayList<>();
+        final Set<String> stored = new HashSet<>();
+        private final Queue<Outcome> outcomes = new LinkedList<>();
+        private final List<Runnable> held = new ArrayList<>();
+
+        void script(Outcome... next) {
+            for (Outcome outcome : next) {
+                outcomes.add(outcome);
+            }
+        }
+
+        void releaseHeld() {
+            List<Runnable> answers = new ArrayList<>(held);
+            held.clear();
+            for (Runnable answer : answers) {
+                answer.run();
+            }
+        }
+
+        @Override
+        public void write(PurchaseRequest request, PurchasePipeline.WriteCallback callback) {
+            writes.add(request.getId());
+            Outcome outcome = outcomes.isEmpty() ? Outcome.STORE : outcomes.remove();
+            switch (outcome) {
+                case STORE:
+                    stored.add(request.getId());
+                    callback.onWritten();
+                    break;
+                case STORE_SILENTLY:
+                    stored.add(request.getId());
+                    break;
+                case HOLD:
+                    held.add(() -> {
+                        stored.add(request.getId());
+                        callback.onWritten();
+                    });
+                    break;
+                case FAIL_TRANSIENT:
+                    callback.onFailed(TRANSIENT, true);
+                    break;
+                case FAIL_PERMANENT:
+                    callback.onFailed(PERMANENT, false);
+                    break;
+                case SOLD_OUT:
+                    callback.onSoldOut();
+                    break;
+            }
+        }
+    }
+
+    private static class FakeOutbox implements PurchasePipeline.Outbox {
+        final Set<String> ids = new HashSet<>();
+        int added;
+
+        @Override
+        public void add(PurchaseRequest request) {
+            added++;
+            ids.add(request.getId());
+        }
+
+        @Override
+        public void remove(PurchaseRequest request) {
+            ids.remove(request.getId());
+        }
+    }
+
+    /**
+     * Runs scheduled tasks in due order without waiting.
+     */
+    private static class FakeClock implements PurchasePipeline.Scheduler {
+        private final PriorityQueue<long[]> due = new PriorityQueue<>((a, b) -> Long.compare(a[0], b[0]));
+        private final List<Runnable> tasks = new ArrayList<>();
+        private final List<Long> delays = new ArrayList<>();
+        private long now;
+
+        @Override
+        public void schedule(Runnable task, long delayMs) {
+            delays.add(delayMs);
+            tasks.add(task);
+            due.add(new long[] { now + delayMs, tasks.size() - 1 });
+        }
+
+        /**
+         * Scheduled delays other than the per-attempt timeouts.
+         */
+        List<Long> retryDelays() {
+            List<Long> retries = new ArrayList<>();
+            for (long delay : delays) {
+                if (delay != PurchasePipeline.ATTEMPT_TIMEOUT_MS) {
+                    retries.add(delay);
+                }
+            }
+            return retries;
+        }
+
+        void advance(long ms) {
+            long until = now + ms;
+            while (!due.isEmpty() && due.peek()[0] <= until) {
+                long[] next = due.poll();
+                now = next[0];
+                tasks.get((int) next[1]).run();
+            }
+            now = until;
+        }
+
+        void runAll() {
+            while (!due.isEmpty()) {
+                long[] next = due.poll();
+                now = next[0];
+                tasks.get((int) next[1]).run();
+            }
+        }
+    }
+}